@@ -0,0 +1,158 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A {@link WebCrawler} that crawls every page in its own chain of {@link CompletableFuture}
+ * stages, and never has a thread wait for another page.
+ *
+ * <p>{@link CrawResultTask} joins the subtasks of every page before it returns, so a deep crawl
+ * keeps a stack frame per level alive, and a worker whose subtasks were stolen has to wait for
+ * them. Here, parsing a page ends with starting the chains of its links, and the page is done.
+ * Nothing is joined: the pages in flight are counted by {@link PendingPages}, and only the thread
+ * that called {@link #crawl(List)} waits for the count to drop to zero. Every stage runs on
+ * a pool worker with an otherwise empty stack, however deep the crawl goes.
+ */
+final class AsyncWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final ForkJoinPool pool;
+    private final UrlFilter urlFilter;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+
+    @Inject
+    PageParserFactory pageParserFactory;
+
+    @Inject
+    AsyncWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @TargetParallelism int threadCount,
+            UrlFilter urlFilter,
+            Provider<VisitedUrlSet> visitedUrlSets
+    ) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        // Nothing is ever joined, so the tasks are run in the order they were submitted, like
+        // events, rather than last in, first out.
+        this.pool = new ForkJoinPool(
+                Math.min(threadCount, getMaxParallelism()),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null,
+                true);
+        this.urlFilter = urlFilter;
+        this.visitedUrlSets = visitedUrlSets;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        if (startingUrls.isEmpty() || maxDepth == 0) {
+            return new CrawlResult.Builder().build();
+        }
+        Crawl crawl = new Crawl(CrawlDeadline.start(clock, timeout), visitedUrlSets.get());
+        crawl.run(startingUrls);
+
+        // Reduce the shards and rank the words on the crawler's own pool, not the common pool.
+        Map<String, Integer> wordCounts = pool.invoke(ForkJoinTask.adapt(
+                () -> WordCounts.parallelSort(crawl.wordCounts.getWordCounts(), popularWordCount)));
+
+        return new CrawlResult.Builder().setWordCounts(wordCounts)
+                .setUrlsVisited(crawl.urlsVisited.size())
+                .setTruncatedByDeadline(crawl.deadline.wasTruncated())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The state of a single crawl, shared by all of its stages.
+     */
+    private final class Crawl {
+        private final CrawlDeadline deadline;
+        private final VisitedUrlSet urlsVisited;
+        private final WordCountAggregator wordCounts =
+                new ShardedWordCountAggregator(pool.getParallelism());
+        private final PendingPages pages;
+
+        Crawl(CrawlDeadline deadline, VisitedUrlSet urlsVisited) {
+            this.deadline = deadline;
+            this.urlsVisited = urlsVisited;
+            this.pages = new PendingPages(deadline, urlsVisited);
+        }
+
+        /**
+         * Crawls from the given start pages, and returns once every claimed page has been crawled.
+         */
+        void run(List<String> startingUrls) {
+            claimAndCrawl(startingUrls, maxDepth);
+            pages.await();
+        }
+
+        /**
+         * Claims every URL that is not ignored or already claimed, and starts crawling it.
+         */
+        private void claimAndCrawl(List<String> urls, int depth) {
+            for (String url : urls) {
+                if (url.isEmpty() || urlFilter.isIgnored(url) || !urlsVisited.add(url)) {
+                    continue;
+                }
+                pages.add();
+                CompletableFuture<String> claimed = new CompletableFuture<>();
+                // The whole chain is built before the page is handed to the pool, so every stage
+                // runs on the worker that finished the one before it, never on this thread.
+                claimed.thenApplyAsync(this::download, pool)
+                        .thenAccept(result -> followLinks(result, depth))
+                        .whenComplete((ignored, e) -> {
+                            if (e != null) {
+                                pages.fail(e instanceof CompletionException ? e.getCause() : e);
+                            }
+                            pages.finish();
+                        });
+                claimed.complete(url);
+            }
+        }
+
+        /**
+         * Downloads and parses the given page, or returns null if it is skipped.
+         */
+        private PageParser.Result download(String url) {
+            if (pages.skip(url)) {
+                return null;
+            }
+            return pageParserFactory.get(url).parse();
+        }
+
+        private void followLinks(PageParser.Result result, int depth) {
+            if (result == null) {
+                return;
+            }
+            result.forEachWordCount(wordCounts::add);
+            List<String> links = result.getLinks();
+            if (pages.shouldFollow(links, depth)) {
+                claimAndCrawl(links, depth - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.udacity.webcrawler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, cache-blocked Bloom filter over 64-bit hashes.
+ *
+ * <p>All the bits of one hash fall into the same 512-bit block, a single cache line, so a lookup
+ * touches one cache line instead of one per hash function. This costs a slightly higher false
+ * positive rate than a classic Bloom filter of the same size.
+ *
+ * <p>Bits are only ever set, never cleared, with compare-and-set, so concurrent lookups and
+ * insertions need no locks. A lookup that races with the insertion of the same hash may miss it.
+ */
+final class BlockedBloomFilter {
+    private static final int BLOCK_BITS = 512;
+    private static final int WORDS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+
+    private final AtomicLongArray words;
+    private final long blocks;
+    private final int hashes;
+
+    private BlockedBloomFilter(int blocks, int hashes) {
+        this.words = new AtomicLongArray(blocks * WORDS_PER_BLOCK);
+        this.blocks = blocks;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Creates a filter that has about the given false positive rate once it holds
+     * {@code expectedInsertions} hashes.
+     */
+    static BlockedBloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        double n = Math.max(1, expectedInsertions);
+        double bits = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int blocks =
+                (int) Math.min(Integer.MAX_VALUE / WORDS_PER_BLOCK, Math.ceil(bits / BLOCK_BITS));
+        int hashes = (int) Math.round(bits / n * Math.log(2));
+        return new BlockedBloomFilter(blocks, Math.max(1, Math.min(MAX_HASHES, hashes)));
+    }
+
+    /**
+     * Returns false if the given hash has definitely never been {@link #put(long) put}.
+     */
+    boolean mightContain(long hash) {
+        int base = blockOf(hash);
+        long mixed = hash * 0x9e3779b97f4a7c15L;
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((words.get(base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the given hash to the filter.
+     */
+    void put(long hash) {
+        int base = blockOf(hash);
+        long mixed = hash * 0x9e3779b97f4a7c15L;
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            int word = base + (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            // Most bits of a well-used filter are already set, so read before trying to write.
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(
+                    word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    private int blockOf(long hash) {
+        // Maps the high 32 bits of the hash onto [0, blocks) without a division.
+        return (int) (((hash >>> 32) * blocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+}
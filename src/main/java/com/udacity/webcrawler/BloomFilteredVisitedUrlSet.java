@@ -0,0 +1,127 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link FingerprintVisitedUrlSet} with a {@link BlockedBloomFilter} in front of it.
+ *
+ * <p>The filter can only prove that a URL is new, never that it is a duplicate. When it does, the
+ * URL's fingerprint is stored without probing the table for it first. Otherwise, the table still
+ * has the final say. The filter also measures how often the crawl sees new URLs versus duplicates.
+ */
+final class BloomFilteredVisitedUrlSet implements VisitedUrlSet {
+    private final FingerprintVisitedUrlSet delegate;
+    private final BlockedBloomFilter filter;
+    private final Statistics statistics = new Statistics();
+    // The hashes of URLs that were given up. The filter cannot forget them, so adding one of them
+    // again is not held against its false positive rate.
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+    BloomFilteredVisitedUrlSet(FingerprintVisitedUrlSet delegate, BlockedBloomFilter filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean add(String url) {
+        long start = System.nanoTime();
+        long hash = FingerprintVisitedUrlSet.hash(url);
+        FingerprintVisitedUrlSet.FilteredAdd result = delegate.add(hash, filter);
+        statistics.lookupNanos.add(System.nanoTime() - start);
+        switch (result) {
+            case RULED_OUT:
+                statistics.ruledOut.increment();
+                return true;
+            case FALSE_POSITIVE:
+                if (!removed.isEmpty() && removed.remove(hash)) {
+                    statistics.readded.increment();
+                } else {
+                    statistics.falsePositives.increment();
+                }
+                return true;
+            default:
+                statistics.duplicates.increment();
+                return false;
+        }
+    }
+
+    @Override
+    public void remove(String url) {
+        long hash = FingerprintVisitedUrlSet.hash(url);
+        // Remember the hash before giving up the claim, so a thread that claims the URL again
+        // right away finds it.
+        removed.add(hash);
+        delegate.remove(hash);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Registers this set's filter statistics with the given profiler, under
+     * {@code visitedUrls.bloomFilter.*}.
+     *
+     * <p>The lookup rate is the one the crawl itself saw: the number of lookups one thread makes
+     * per second of time it spends in {@link #add(String)}. How it scales from 1 to 8 and 32
+     * threads is measured by {@code VisitedUrlSetBenchmark}.
+     */
+    void recordStatistics(Profiler profiler) {
+        Statistics statistics = this.statistics;
+        profiler.recordStatistic(
+                "visitedUrls.bloomFilter.lookups", () -> String.valueOf(statistics.lookups()));
+        profiler.recordStatistic(
+                "visitedUrls.bloomFilter.duplicates",
+                () -> String.valueOf(statistics.duplicates.sum()));
+        profiler.recordStatistic(
+                "visitedUrls.bloomFilter.falsePositiveRate",
+                () -> String.format(Locale.ROOT, "%.6f", statistics.falsePositiveRate()));
+        profiler.recordStatistic(
+                "visitedUrls.bloomFilter.lookupsPerSecondPerThread",
+                () -> String.format(Locale.ROOT, "%.0f", statistics.lookupsPerSecondPerThread()));
+    }
+
+    Statistics statistics() {
+        return statistics;
+    }
+
+    /**
+     * The outcomes of every lookup made through the filter.
+     */
+    static final class Statistics {
+        final LongAdder ruledOut = new LongAdder();
+        final LongAdder falsePositives = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        // New claims of URLs that had been given up, which the filter rightly remembers.
+        final LongAdder readded = new LongAdder();
+        // The time all threads together spent in lookups.
+        final LongAdder lookupNanos = new LongAdder();
+
+        long lookups() {
+            return ruledOut.sum() + falsePositives.sum() + duplicates.sum() + readded.sum();
+        }
+
+        /**
+         * Returns the fraction of new URLs that the filter failed to rule out.
+         */
+        double falsePositiveRate() {
+            long falsePositives = this.falsePositives.sum();
+            long newUrls = ruledOut.sum() + falsePositives;
+            return newUrls == 0 ? 0 : (double) falsePositives / newUrls;
+        }
+
+        /**
+         * Returns the number of lookups one thread made per second it spent making them.
+         */
+        double lookupsPerSecondPerThread() {
+            long nanos = lookupNanos.sum();
+            return nanos == 0 ? 0 : lookups() * 1e9 / nanos;
+        }
+    }
+}
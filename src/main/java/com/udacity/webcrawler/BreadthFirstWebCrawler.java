@@ -0,0 +1,188 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@link WebCrawler} that crawls one level of the site at a time on a {@link ForkJoinPool}.
+ *
+ * <p>Every page of a level is downloaded and parsed in parallel, and the next level only starts
+ * once the whole level is done. Between levels, a single thread collects the links of the level's
+ * pages in order and claims the new ones, so which pages get visited never depends on how the
+ * workers were scheduled: a page is always crawled at its shortest distance from a start page, and
+ * the same site always gives the same result.
+ */
+final class BreadthFirstWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+    private final UrlFilter urlFilter;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+
+    @Inject
+    PageParserFactory pageParserFactory;
+
+    @Inject
+    BreadthFirstWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @TargetParallelism int threadCount,
+            UrlFilter urlFilter,
+            Provider<VisitedUrlSet> visitedUrlSets
+    ) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
+        this.urlFilter = urlFilter;
+        this.visitedUrlSets = visitedUrlSets;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        CrawlDeadline deadline = CrawlDeadline.start(clock, timeout);
+        VisitedUrlSet urlsVisited = visitedUrlSets.get();
+        WordCountAggregator aggregator = new ShardedWordCountAggregator(pool.getParallelism());
+        if (startingUrls.isEmpty() || maxDepth == 0) {
+            return new CrawlResult.Builder().build();
+        }
+
+        List<String> frontier = claimNew(startingUrls, urlsVisited);
+        // Once the deadline passes, no page of the level returns any links, so this stops as well.
+        for (int depth = maxDepth; depth > 0 && !frontier.isEmpty(); depth--) {
+            List<List<String>> links = crawlLevel(frontier, urlsVisited, aggregator, deadline);
+            if (depth == 1) {
+                break;
+            }
+            List<String> next = new ArrayList<>();
+            for (List<String> pageLinks : links) {
+                next.addAll(claimNew(pageLinks, urlsVisited));
+            }
+            frontier = next;
+        }
+
+        // Reduce the shards and rank the words on the crawler's own pool, not the common pool.
+        Map<String, Integer> wordCounts = pool.invoke(ForkJoinTask.adapt(
+                () -> WordCounts.parallelSort(aggregator.getWordCounts(), popularWordCount)));
+
+        return new CrawlResult.Builder().setWordCounts(wordCounts)
+                .setUrlsVisited(urlsVisited.size())
+                .setTruncatedByDeadline(deadline.wasTruncated())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Claims the given URLs in order and returns the ones that were not ignored or claimed before.
+     */
+    private List<String> claimNew(List<String> urls, VisitedUrlSet urlsVisited) {
+        List<String> claimed = new ArrayList<>();
+        for (String url : urls) {
+            if (!url.isEmpty() && !urlFilter.isIgnored(url) && urlsVisited.add(url)) {
+                claimed.add(url);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Crawls every page of one level in parallel, and returns each page's links in the order of
+     * the level's pages.
+     */
+    private List<List<String>> crawlLevel(
+            List<String> level,
+            VisitedUrlSet urlsVisited,
+            WordCountAggregator wordCounts,
+            CrawlDeadline deadline) {
+        List<List<String>> links = new ArrayList<>(level.size());
+        for (int i = 0; i < level.size(); i++) {
+            links.add(List.of());
+        }
+        // A few batches per worker keeps everyone busy even when some pages are much slower than
+        // others, without scheduling a task for every single page.
+        int batchSize = Math.max(1, level.size() / (pool.getParallelism() * 4));
+        pool.invoke(new LevelBatch(
+                level, 0, level.size(), batchSize, links, urlsVisited, wordCounts, deadline));
+        return links;
+    }
+
+    /**
+     * Crawls the pages {@code [from, to)} of a level, splitting in half until a batch is small
+     * enough.
+     */
+    private final class LevelBatch extends RecursiveAction {
+        private final List<String> level;
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final List<List<String>> links;
+        private final VisitedUrlSet urlsVisited;
+        private final WordCountAggregator wordCounts;
+        private final CrawlDeadline deadline;
+
+        LevelBatch(
+                List<String> level,
+                int from,
+                int to,
+                int batchSize,
+                List<List<String>> links,
+                VisitedUrlSet urlsVisited,
+                WordCountAggregator wordCounts,
+                CrawlDeadline deadline) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.links = links;
+            this.urlsVisited = urlsVisited;
+            this.wordCounts = wordCounts;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new LevelBatch(level, from, middle, batchSize, links, urlsVisited,
+                                wordCounts, deadline),
+                        new LevelBatch(level, middle, to, batchSize, links, urlsVisited,
+                                wordCounts, deadline));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                String url = level.get(i);
+                // Pages that were claimed but never downloaded do not count as visited.
+                if (deadline.truncateIfPassed()) {
+                    urlsVisited.remove(url);
+                    continue;
+                }
+                PageParser.Result result = pageParserFactory.get(url).parse();
+                result.forEachWordCount(wordCounts::add);
+                // Every batch writes to its own slots, and invoke() publishes them to the caller.
+                links.set(i, result.getLinks());
+            }
+        }
+    }
+}
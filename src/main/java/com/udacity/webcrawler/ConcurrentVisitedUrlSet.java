@@ -0,0 +1,26 @@
+package com.udacity.webcrawler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link VisitedUrlSet} that keeps every URL, so it never mistakes one URL for another.
+ */
+final class ConcurrentVisitedUrlSet implements VisitedUrlSet {
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public void remove(String url) {
+        urls.remove(url);
+    }
+
+    @Override
+    public int size() {
+        return urls.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.udacity.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free {@link WordCountAggregator} that is safe to share between crawler threads.
+ *
+ * <p>Each word gets its own {@link LongAdder}, so threads counting the same word update striped
+ * cells instead of contending on one monitor, and threads counting different words never touch the
+ * same memory at all.
+ */
+final class ConcurrentWordCountAggregator implements WordCountAggregator {
+    private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(String word, int count) {
+        // Most words have been seen before, and get() never locks a bin.
+        LongAdder adder = counts.get(word);
+        if (adder == null) {
+            adder = counts.computeIfAbsent(word, w -> new LongAdder());
+        }
+        adder.add(count);
+    }
+
+    @Override
+    public Map<String, Integer> getWordCounts() {
+        Map<String, Integer> snapshot = new HashMap<>(counts.size() * 2);
+        counts.forEach((word, adder) -> snapshot.put(word, Math.toIntExact(adder.sum())));
+        return snapshot;
+    }
+}
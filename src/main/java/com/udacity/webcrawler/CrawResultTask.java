@@ -4,64 +4,63 @@ import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
-import java.util.regex.Pattern;
 
 public class CrawResultTask extends RecursiveTask<CrawlResult> {
-    private final Map<String, Integer> wordCounts;
-    private final Set<String> urlsVisited;
+    private final WordCountAggregator wordCounts;
+    private final VisitedUrlSet urlsVisited;
     private final String url;
     private final Integer depth;
     private final PageParserFactory pageParserFactory;
-    private final int popularWordCount;
-    private final List<Pattern> ignoredUrls;
+    private final UrlFilter urlFilter;
+    private final int linkBatchSize;
 
-    private final Duration timeout;
+    private final CrawlDeadline deadline;
 
     private CrawResultTask(
             String url,
-            Set<String> urlsVisited,
-            Map<String, Integer> wordCounts,
+            VisitedUrlSet urlsVisited,
+            WordCountAggregator wordCounts,
             int depth,
             PageParserFactory pageParserFactory,
-            int popularWordCount,
-            List<Pattern> ignoredUrls,
-            Duration timeout
+            UrlFilter urlFilter,
+            int linkBatchSize,
+            CrawlDeadline deadline
     ) {
         this.url = url;
         this.urlsVisited = urlsVisited;
         this.wordCounts = wordCounts;
         this.depth = depth;
         this.pageParserFactory = pageParserFactory;
-        this.popularWordCount = popularWordCount;
-        this.ignoredUrls = ignoredUrls;
-        this.timeout = timeout;
+        this.urlFilter = urlFilter;
+        this.linkBatchSize = linkBatchSize;
+        this.deadline = deadline;
     }
 
     public static final class Builder {
-        private Map<String, Integer> wordCounts;
-        private Set<String> urlsVisited;
+        private WordCountAggregator wordCounts;
+        private VisitedUrlSet urlsVisited;
         private String url;
         private Integer depth;
         private PageParserFactory pageParserFactory;
-        private int popularWordCount;
-        private List<Pattern> ignoredUrls;
+        private UrlFilter urlFilter;
+        private int linkBatchSize = 1;
 
-        private Duration timeout;
+        private CrawlDeadline deadline;
 
-        public Builder setWordCounts(Map<String, Integer> wordCounts) {
+        public Builder setWordCounts(WordCountAggregator wordCounts) {
             this.wordCounts = wordCounts;
             return this;
         }
 
-        public Builder setTimeOut(Duration timeout) {
-            this.timeout = timeout;
+        public Builder setDeadline(CrawlDeadline deadline) {
+            this.deadline = deadline;
             return this;
         }
 
-        public Builder setUrlsVisited(Set<String> urlsVisited) {
+        public Builder setUrlsVisited(VisitedUrlSet urlsVisited) {
             this.urlsVisited = urlsVisited;
             return this;
         }
@@ -81,13 +80,13 @@ public class CrawResultTask extends RecursiveTask<CrawlResult> {
             return this;
         }
 
-        public Builder setPopularWordCount(int popularWordCount) {
-            this.popularWordCount = popularWordCount;
+        public Builder setUrlFilter(UrlFilter urlFilter) {
+            this.urlFilter = urlFilter;
             return this;
         }
 
-        public Builder setIgnoredUrls(List<Pattern> ignoredUrls) {
-            this.ignoredUrls = ignoredUrls;
+        public Builder setLinkBatchSize(int linkBatchSize) {
+            this.linkBatchSize = linkBatchSize;
             return this;
         }
 
@@ -97,59 +96,104 @@ public class CrawResultTask extends RecursiveTask<CrawlResult> {
                     wordCounts,
                     depth,
                     pageParserFactory,
-                    popularWordCount,
-                    ignoredUrls,
-                    timeout);
+                    urlFilter,
+                    linkBatchSize,
+                    deadline);
         }
     }
 
+    /**
+     * Crawls this task's URL, and then the links that nobody has claimed yet, split into batches.
+     *
+     * <p>Whoever creates a task must already have claimed its URL by adding it to the visited set,
+     * so a task never has to find out that it is a duplicate after being allocated and scheduled.
+     */
     @Override
     protected CrawlResult compute() {
         if (this.depth == 0 || url.isEmpty()) {
             return new CrawlResult.Builder().setWordCounts(new HashMap<>())
                     .build();
         }
+        crawl(url, depth);
 
-        for (Pattern pattern : ignoredUrls) {
-            if (pattern.matcher(url).matches()) {
-                return new CrawlResult.Builder().build();
-            }
-        }
+        // The word counts live in the shared aggregator; the crawler reads them once at the end.
+        return new CrawlResult.Builder().setUrlsVisited(urlsVisited.size())
+                .build();
+    }
 
-        if (!urlsVisited.add(url)) {
-            return null;
+    /**
+     * Crawls the given claimed URL, and then every link on it that nobody has claimed yet.
+     */
+    private void crawl(String url, int depth) {
+        // Once the deadline has passed, queued batches bail out before downloading anything, and
+        // hand back the URLs they claimed, since they were never actually visited.
+        if (deadline.truncateIfPassed()) {
+            urlsVisited.remove(url);
+            return;
         }
 
-
-        List<CrawResultTask> subtasks = new ArrayList<>();
-
         PageParser.Result result = pageParserFactory.get(url).parse();
-        Map<String, Integer> counts = result.getWordCounts();
-
-        counts.forEach((word, count) -> {
-            wordCounts.merge(word, count, Integer::sum);
-        });
+        result.forEachWordCount(wordCounts::add);
 
         List<String> subUrls = result.getLinks();
+        if (subUrls.isEmpty() || depth == 1 || deadline.truncateIfPassed()) {
+            return;
+        }
 
+        List<String> claimed = new ArrayList<>();
         for (String subUrl : subUrls) {
-            CrawResultTask task = new CrawResultTask.Builder().setUrl(subUrl)
-                    .setUrlsVisited(urlsVisited)
-                    .setDepth(depth - 1)
-                    .setPageParserFactory(pageParserFactory)
-                    .setPopularWordCount(popularWordCount)
-                    .setIgnoredUrls(ignoredUrls)
-                    .setWordCounts(wordCounts)
-                    .setTimeOut(timeout)
-                    .build();
-            subtasks.add(task);
+            // Drop ignored and already claimed links here, before any work is scheduled just to
+            // reject them. Children always have a depth of at least 1, so every link claimed here
+            // does get crawled.
+            if (subUrl.isEmpty() || urlFilter.isIgnored(subUrl) || !urlsVisited.add(subUrl)) {
+                continue;
+            }
+            claimed.add(subUrl);
         }
+        if (!claimed.isEmpty()) {
+            new LinkBatch(claimed, 0, claimed.size(), depth - 1).invoke();
+        }
+    }
 
-        invokeAll(subtasks);
+    /**
+     * A slice of the links claimed on one page.
+     *
+     * <p>A slice of more than {@link #linkBatchSize} links is split in half, and both halves are
+     * scheduled, so idle workers can steal one of them. A smaller slice is crawled right away, link
+     * after link, on the current worker: forking a task per link costs more deque traffic than the
+     * stealing it allows is worth. The exception is a worker that has almost nothing queued, which
+     * means other workers may be idle, and keeps splitting down to single links.
+     */
+    private final class LinkBatch extends RecursiveAction {
+        // The number of queued tasks below which a worker hands out work instead of keeping it.
+        private static final int MIN_SURPLUS_TASKS = 2;
+
+        private final List<String> links;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        LinkBatch(List<String> links, int from, int to, int depth) {
+            this.links = links;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
 
-        return new CrawlResult.Builder().setWordCounts(wordCounts)
-                .setUrlsVisited(urlsVisited.size())
-                .build();
+        @Override
+        protected void compute() {
+            int size = to - from;
+            if (size > linkBatchSize
+                    || (size > 1 && getSurplusQueuedTaskCount() < MIN_SURPLUS_TASKS)) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new LinkBatch(links, from, middle, depth),
+                        new LinkBatch(links, middle, to, depth));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                crawl(links.get(i), depth);
+            }
+        }
     }
-
 }
@@ -0,0 +1,57 @@
+package com.udacity.webcrawler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The global deadline of a single crawl, shared by every task of that crawl.
+ *
+ * <p>Besides answering whether the deadline has passed, it remembers whether any work was actually
+ * dropped because of it, so the crawler can report a truncated {@link
+ * com.udacity.webcrawler.json.CrawlResult}.
+ */
+final class CrawlDeadline {
+    private final Clock clock;
+    private final Instant deadline;
+    private volatile boolean truncated;
+
+    private CrawlDeadline(Clock clock, Instant deadline) {
+        this.clock = Objects.requireNonNull(clock);
+        this.deadline = Objects.requireNonNull(deadline);
+    }
+
+    /**
+     * Starts a deadline that expires {@code timeout} from the current time of the given clock.
+     */
+    static CrawlDeadline start(Clock clock, Duration timeout) {
+        return new CrawlDeadline(clock, clock.instant().plus(timeout));
+    }
+
+    /**
+     * Returns true if the deadline has passed.
+     */
+    boolean hasPassed() {
+        return clock.instant().isAfter(deadline);
+    }
+
+    /**
+     * Returns true if the deadline has passed, and records that the caller is dropping work because
+     * of it.
+     */
+    boolean truncateIfPassed() {
+        if (!hasPassed()) {
+            return false;
+        }
+        truncated = true;
+        return true;
+    }
+
+    /**
+     * Returns true if any work was dropped because the deadline had passed.
+     */
+    boolean wasTruncated() {
+        return truncated;
+    }
+}
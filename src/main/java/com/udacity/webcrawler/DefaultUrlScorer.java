@@ -0,0 +1,52 @@
+package com.udacity.webcrawler;
+
+/**
+ * The default {@link UrlScorer}: shallow pages first, then pages that many crawled pages link to,
+ * then pages with short paths and no query string.
+ *
+ * <p>Every link between the URL and the start pages costs {@value #DISTANCE_WEIGHT} points, and
+ * every doubling of the inlink count earns one. A page has to be linked from 16 times as many pages
+ * to be crawled before a page one link closer to the start. The path only breaks ties: deep paths
+ * and query strings tend to lead to archives, listings and search results rather than content.
+ */
+final class DefaultUrlScorer implements UrlScorer {
+    static final int DISTANCE_WEIGHT = 4;
+    private static final double SEGMENT_PENALTY = 0.125;
+    private static final double QUERY_PENALTY = 0.5;
+    // Never let the path outweigh a doubling of the inlinks.
+    private static final double MAX_PATH_PENALTY = 0.875;
+
+    @Override
+    public double score(String url, int distance, int inlinks) {
+        int inlinkBonus = 31 - Integer.numberOfLeadingZeros(Math.max(1, inlinks));
+        return inlinkBonus - DISTANCE_WEIGHT * distance - pathPenalty(url);
+    }
+
+    /**
+     * Scans the URL instead of parsing it into a {@link java.net.URI}, since every link found on a
+     * page is scored, and most of them more than once.
+     */
+    private static double pathPenalty(String url) {
+        int scheme = url.indexOf("://");
+        int path = scheme < 0 ? -1 : url.indexOf('/', scheme + 3);
+        double penalty = 0;
+        int end = url.length();
+        for (int i = Math.max(0, path); i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        if (path >= 0) {
+            int i = url.indexOf('/', path + 1);
+            for (; i >= 0 && i < end; i = url.indexOf('/', i + 1)) {
+                penalty += SEGMENT_PENALTY;
+            }
+        }
+        if (end < url.length() && url.charAt(end) == '?') {
+            penalty += QUERY_PENALTY;
+        }
+        return Math.min(penalty, MAX_PATH_PENALTY);
+    }
+}
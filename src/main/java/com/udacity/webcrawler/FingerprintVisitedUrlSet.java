@@ -0,0 +1,244 @@
+package com.udacity.webcrawler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link VisitedUrlSet} that only keeps a fixed-size fingerprint of each URL, in open-addressing
+ * hash tables that live outside the Java heap.
+ *
+ * <p>A URL takes 4 bytes (up to 32 fingerprint bits) or 8 bytes (more than 32 bits) of direct
+ * memory, no matter how long it is, and the garbage collector never has to trace the entries. The
+ * price is that two URLs with the same fingerprint are treated as the same URL: after {@code n}
+ * URLs, a new URL is wrongly reported as already visited with a probability of about
+ * {@code n / 2^bits}.
+ *
+ * <p>The table is split into lock-striped segments, chosen by the high bits of the URL hash, so
+ * threads claiming different URLs rarely wait for each other.
+ */
+final class FingerprintVisitedUrlSet implements VisitedUrlSet {
+    private static final int INITIAL_SEGMENT_CAPACITY = 1 << 10;
+
+    private final int fingerprintBits;
+    private final int segmentShift;
+    private final Segment[] segments;
+
+    /**
+     * Creates a set that keeps {@code fingerprintBits} bits of each URL hash, and allows about
+     * {@code concurrencyLevel} threads to add URLs at the same time.
+     */
+    FingerprintVisitedUrlSet(int fingerprintBits, int concurrencyLevel) {
+        if (fingerprintBits < 32 || fingerprintBits > 64) {
+            throw new IllegalArgumentException("fingerprintBits must be between 32 and 64");
+        }
+        this.fingerprintBits = fingerprintBits;
+        int segmentCount = Integer.highestOneBit(Math.max(1, concurrencyLevel * 4 - 1)) << 1;
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(fingerprintBits > 32 ? Long.BYTES : Integer.BYTES);
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        long hash = hash(url);
+        return segmentFor(hash).add(fingerprint(hash));
+    }
+
+    @Override
+    public void remove(String url) {
+        remove(hash(url));
+    }
+
+    /**
+     * Claims the URL with the given {@link #hash(String) hash}, checking it against the given
+     * filter first. A URL the filter has never seen is stored without probing the table for it.
+     * The filter is checked and updated under the segment's lock, so two threads adding the same
+     * new URL can never both be told that it is new.
+     *
+     * <p>A URL the filter rules out is claimed even if its fingerprint matches another URL's, since
+     * the filter has seen every bit of the hash.
+     */
+    FilteredAdd add(long hash, BlockedBloomFilter filter) {
+        return segmentFor(hash).add(fingerprint(hash), hash, filter);
+    }
+
+    /**
+     * Gives up the claim on the URL with the given {@link #hash(String) hash}.
+     */
+    void remove(long hash) {
+        segmentFor(hash).remove(fingerprint(hash));
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * Returns the low {@code fingerprintBits} bits of the hash. 0 marks an empty slot, so it is
+     * mapped to 1.
+     */
+    private long fingerprint(long hash) {
+        long fingerprint = fingerprintBits == 64 ? hash : hash & ((1L << fingerprintBits) - 1);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the URL's characters, followed by the MurmurHash3 finalizer so that
+     * every bit of the result depends on every character.
+     */
+    static long hash(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h = (h ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The outcome of {@link #add(long, BlockedBloomFilter)}.
+     */
+    enum FilteredAdd {
+        /** The filter had never seen the URL, so it was added without a probe. */
+        RULED_OUT,
+        /** The filter may have seen the URL, but it was new, so it was added. */
+        FALSE_POSITIVE,
+        /** The URL was already in the set. */
+        DUPLICATE
+    }
+
+    /**
+     * An open-addressing table of fingerprints with linear probing, guarded by its own monitor.
+     */
+    private static final class Segment {
+        private final int entryBytes;
+        private ByteBuffer table;
+        private int mask;
+        private volatile int size;
+
+        Segment(int entryBytes) {
+            this.entryBytes = entryBytes;
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        synchronized boolean add(long fingerprint) {
+            int slot = home(fingerprint);
+            for (long entry; (entry = get(slot)) != 0; slot = (slot + 1) & mask) {
+                if (entry == fingerprint) {
+                    return false;
+                }
+            }
+            insert(slot, fingerprint);
+            return true;
+        }
+
+        synchronized FilteredAdd add(long fingerprint, long hash, BlockedBloomFilter filter) {
+            if (filter.mightContain(hash)) {
+                return add(fingerprint) ? FilteredAdd.FALSE_POSITIVE : FilteredAdd.DUPLICATE;
+            }
+            filter.put(hash);
+            int slot = home(fingerprint);
+            while (get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            insert(slot, fingerprint);
+            return FilteredAdd.RULED_OUT;
+        }
+
+        synchronized void remove(long fingerprint) {
+            int slot = home(fingerprint);
+            for (long entry; (entry = get(slot)) != fingerprint; slot = (slot + 1) & mask) {
+                if (entry == 0) {
+                    return;
+                }
+            }
+            // Backward-shift deletion: move later entries of the probe run into the hole, so no
+            // tombstones are needed.
+            int hole = slot;
+            for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+                long entry = get(next);
+                if (entry == 0) {
+                    break;
+                }
+                int home = home(entry);
+                boolean homeBetween = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!homeBetween) {
+                    set(hole, entry);
+                    hole = next;
+                }
+            }
+            set(hole, 0);
+            size--;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void insert(int slot, long fingerprint) {
+            set(slot, fingerprint);
+            size++;
+            if (size > (mask + 1) / 2) {
+                grow();
+            }
+        }
+
+        private int home(long fingerprint) {
+            return (int) ((fingerprint * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+        }
+
+        private long get(int slot) {
+            return entryBytes == Long.BYTES
+                    ? table.getLong(slot * Long.BYTES)
+                    : table.getInt(slot * Integer.BYTES) & 0xffffffffL;
+        }
+
+        private void set(int slot, long fingerprint) {
+            if (entryBytes == Long.BYTES) {
+                table.putLong(slot * Long.BYTES, fingerprint);
+            } else {
+                table.putInt(slot * Integer.BYTES, (int) fingerprint);
+            }
+        }
+
+        private void allocate(int capacity) {
+            // allocateDirect() zeroes the memory, so every slot starts out empty.
+            table = ByteBuffer.allocateDirect(capacity * entryBytes);
+            mask = capacity - 1;
+        }
+
+        private void grow() {
+            ByteBuffer oldTable = table;
+            int oldCapacity = mask + 1;
+            allocate(oldCapacity * 2);
+            for (int i = 0; i < oldCapacity; i++) {
+                long entry = entryBytes == Long.BYTES
+                        ? oldTable.getLong(i * Long.BYTES)
+                        : oldTable.getInt(i * Integer.BYTES) & 0xffffffffL;
+                if (entry != 0) {
+                    int slot = home(entry);
+                    while (get(slot) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    set(slot, entry);
+                }
+            }
+        }
+    }
+}
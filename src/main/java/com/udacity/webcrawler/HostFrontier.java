@@ -0,0 +1,249 @@
+package com.udacity.webcrawler;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The URLs a crawl still has to download, with one queue per host, handed out so that no host gets
+ * more than its fair share of requests.
+ *
+ * <p>A host never has more than {@code maxRequestsPerHost} requests in flight, and two requests to
+ * the same host never start less than {@code minRequestDelay} apart. Among the hosts that may be
+ * sent a request, the frontier takes turns, so a host with thousands of queued links does not
+ * starve the others. URLs without a host, such as local files, are not limited at all.
+ *
+ * <p>All methods are thread-safe. Time is read from the given {@link Clock}, so {@link #poll()}
+ * can be tested with a fake clock.
+ *
+ * @param <T> the type of the queued items, such as a URL and its remaining depth.
+ */
+final class HostFrontier<T> {
+    private final Clock clock;
+    private final int maxRequestsPerHost;
+    private final Duration minRequestDelay;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, HostQueue<T>> hosts = new HashMap<>();
+    // Every host with queued items, in the order they take turns.
+    private final Queue<HostQueue<T>> rotation = new ArrayDeque<>();
+    // Hosts with nothing queued or in flight, oldest first. They are only forgotten once their
+    // delay is over, so that a new link to the same host still has to wait for it.
+    private final Queue<HostQueue<T>> idle = new ArrayDeque<>();
+    private int size;
+    private boolean closed;
+
+    HostFrontier(Clock clock, int maxRequestsPerHost, Duration minRequestDelay) {
+        if (maxRequestsPerHost <= 0) {
+            throw new IllegalArgumentException("maxRequestsPerHost must be positive");
+        }
+        this.clock = Objects.requireNonNull(clock);
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.minRequestDelay = Objects.requireNonNull(minRequestDelay);
+    }
+
+    /**
+     * Returns the host of the given URL that requests are limited by, or an empty string if the
+     * URL has no host.
+     */
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Queues the given item for the given host.
+     */
+    void add(String host, T item) {
+        lock.lock();
+        try {
+            forgetIdleHosts(clock.instant());
+            HostQueue<T> queue = hosts.computeIfAbsent(host, HostQueue::new);
+            if (queue.items.isEmpty()) {
+                rotation.add(queue);
+            }
+            queue.items.add(item);
+            size++;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the next item whose host may be sent a request right now, or null if
+     * there is none. The caller must {@link #release(String)} the item's host once its request is
+     * done.
+     */
+    T poll() {
+        lock.lock();
+        try {
+            return pollReady(clock.instant());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #poll()}, but waits until there is an item whose host may be sent a request.
+     * Returns null once the frontier is {@link #close() closed}.
+     */
+    T take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed) {
+                Instant now = clock.instant();
+                T item = pollReady(now);
+                if (item != null) {
+                    if (size > 0) {
+                        // Another item may be ready as well; let the next waiting thread look.
+                        changed.signal();
+                    }
+                    return item;
+                }
+                Instant wakeUp = nextReadyTime();
+                if (wakeUp == null) {
+                    changed.await();
+                } else {
+                    changed.await(
+                            Math.max(1, Duration.between(now, wakeUp).toNanos()),
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that a request to the given host, handed out by {@link #poll()} or {@link #take()},
+     * is done.
+     */
+    void release(String host) {
+        if (host.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            HostQueue<T> queue = hosts.get(host);
+            queue.inFlight--;
+            if (queue.inFlight == 0 && queue.items.isEmpty()) {
+                idle.add(queue);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up every thread waiting in {@link #take()}, and makes them return null.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued items.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private T pollReady(Instant now) {
+        for (int i = rotation.size(); i > 0; i--) {
+            HostQueue<T> queue = rotation.remove();
+            if (!isReady(queue, now)) {
+                rotation.add(queue);
+                continue;
+            }
+            T item = queue.items.remove();
+            size--;
+            if (!queue.items.isEmpty()) {
+                // Back of the line, so every other ready host gets a turn first.
+                rotation.add(queue);
+            }
+            if (!queue.host.isEmpty()) {
+                queue.inFlight++;
+                queue.lastRequest = now;
+            }
+            return item;
+        }
+        return null;
+    }
+
+    private boolean isReady(HostQueue<T> queue, Instant now) {
+        if (queue.host.isEmpty()) {
+            return true;
+        }
+        return queue.inFlight < maxRequestsPerHost
+                && (queue.lastRequest == null
+                || !now.isBefore(queue.lastRequest.plus(minRequestDelay)));
+    }
+
+    private void forgetIdleHosts(Instant now) {
+        while (!idle.isEmpty()) {
+            HostQueue<T> queue = idle.peek();
+            if (queue.inFlight == 0 && queue.items.isEmpty()) {
+                if (now.isBefore(queue.lastRequest.plus(minRequestDelay))) {
+                    return;
+                }
+                hosts.remove(queue.host, queue);
+            }
+            idle.remove();
+        }
+    }
+
+    /**
+     * Returns the earliest time a host that is only waiting for its delay becomes ready, or null if
+     * every host with queued items is waiting for a request to finish instead.
+     */
+    private Instant nextReadyTime() {
+        Instant next = null;
+        for (HostQueue<T> queue : rotation) {
+            if (queue.inFlight < maxRequestsPerHost && queue.lastRequest != null) {
+                Instant ready = queue.lastRequest.plus(minRequestDelay);
+                if (next == null || ready.isBefore(next)) {
+                    next = ready;
+                }
+            }
+        }
+        return next;
+    }
+
+    private static final class HostQueue<T> {
+        final String host;
+        final Queue<T> items = new ArrayDeque<>();
+        int inFlight;
+        Instant lastRequest;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the number of links a fork/join worker crawls one after the other,
+ * instead of splitting them into tasks that other workers can steal.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "linkBatchSize"} option from
+ * the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LinkBatchSize {
+}
@@ -4,11 +4,12 @@ import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ForkJoinPool;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A concrete implementation of {@link WebCrawler} that runs multiple threads on a
@@ -20,7 +21,9 @@ final class ParallelWebCrawler implements WebCrawler {
     private final int popularWordCount;
     private final ForkJoinPool pool;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
+    private final UrlFilter urlFilter;
+    private final int linkBatchSize;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
 
     @Inject
     PageParserFactory pageParserFactory;
@@ -32,44 +35,58 @@ final class ParallelWebCrawler implements WebCrawler {
             @PopularWordCount int popularWordCount,
             @MaxDepth int maxDepth,
             @TargetParallelism int threadCount,
-            @IgnoredUrls List<Pattern> ignoredUrls
+            UrlFilter urlFilter,
+            @LinkBatchSize int linkBatchSize,
+            Provider<VisitedUrlSet> visitedUrlSets
     ) {
         this.clock = clock;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
         this.maxDepth = maxDepth;
         this.pool = new ForkJoinPool(Math.min(threadCount, getMaxParallelism()));
-        this.ignoredUrls = ignoredUrls;
+        this.urlFilter = urlFilter;
+        this.linkBatchSize = linkBatchSize;
+        this.visitedUrlSets = visitedUrlSets;
     }
 
     @Override
     public CrawlResult crawl(List<String> startingUrls) {
-        Set<String> urlsVisited = Collections.synchronizedSet(new HashSet<>());
-        Map<String, Integer> wordCounts = Collections.synchronizedMap(new HashMap<>());
-        if (startingUrls.isEmpty()) {
+        CrawlDeadline deadline = CrawlDeadline.start(clock, timeout);
+        VisitedUrlSet urlsVisited = visitedUrlSets.get();
+        // Each worker counts words into its own shard; the shards are only combined at the end.
+        WordCountAggregator aggregator = new ShardedWordCountAggregator(pool.getParallelism());
+        if (startingUrls.isEmpty() || maxDepth == 0) {
             return new CrawlResult.Builder().build();
         } else {
+            List<CrawResultTask> tasks = new ArrayList<>();
             for (String url : startingUrls) {
+                // Claim each start page for its task, as CrawResultTask does for links.
+                if (url.isEmpty() || urlFilter.isIgnored(url) || !urlsVisited.add(url)) {
+                    continue;
+                }
                 CrawResultTask task = new CrawResultTask.Builder().setUrl(url)
                         .setUrlsVisited(urlsVisited)
-                        .setWordCounts(wordCounts)
+                        .setWordCounts(aggregator)
                         .setDepth(maxDepth)
                         .setPageParserFactory(pageParserFactory)
-                        .setPopularWordCount(popularWordCount)
-                        .setIgnoredUrls(ignoredUrls)
-                        .setTimeOut(timeout)
+                        .setUrlFilter(urlFilter)
+                        .setLinkBatchSize(linkBatchSize)
+                        .setDeadline(deadline)
                         .build();
-                pool.invoke(task);
+                tasks.add(task);
             }
+            // Submit every seed under a single root, so idle workers can steal from the other
+            // seeds' subtrees instead of waiting for one seed to finish before the next starts.
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
         }
 
-
-        if (!wordCounts.isEmpty()) {
-            wordCounts = WordCounts.sort(wordCounts, popularWordCount);
-        }
+        // Reduce the shards and rank the words on the crawler's own pool, not the common pool.
+        Map<String, Integer> wordCounts = pool.invoke(ForkJoinTask.adapt(
+                () -> WordCounts.parallelSort(aggregator.getWordCounts(), popularWordCount)));
 
         return new CrawlResult.Builder().setWordCounts(wordCounts)
                 .setUrlsVisited(urlsVisited.size())
+                .setTruncatedByDeadline(deadline.wasTruncated())
                 .build();
     }
 
@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the number of threads that parse downloaded pages.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "parseParallelism"} option from
+ * the crawler configuration JSON, or the number of available CPU cores if that option is less than
+ * 1.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ParseParallelism {
+}
@@ -0,0 +1,110 @@
+package com.udacity.webcrawler;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks the pages of a single crawl that have been claimed but not finished yet, for the crawlers
+ * that do not join their tasks, and lets the thread that started the crawl wait for the last one.
+ *
+ * <p>A page is pending from the moment its URL is claimed until it has been crawled and its links
+ * have been claimed. The count starts at one, for the thread that claims the start pages, so it
+ * cannot drop to zero between two of them; that thread gives up its own count by calling {@link
+ * #await()}. The links of a page are claimed before the page is finished, so the count stays
+ * positive as long as there is work left.
+ *
+ * <p>The first page that fails ends the crawl right away: {@link #await()} rethrows its failure
+ * without waiting for the other pending pages, and no more links are followed.
+ */
+final class PendingPages {
+    private final CrawlDeadline deadline;
+    private final VisitedUrlSet urlsVisited;
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    PendingPages(CrawlDeadline deadline, VisitedUrlSet urlsVisited) {
+        this.deadline = deadline;
+        this.urlsVisited = urlsVisited;
+    }
+
+    /**
+     * Counts a page whose URL was just claimed.
+     */
+    void add() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Finishes a page that was {@link #add() added}, whether it was crawled, skipped or failed.
+     */
+    void finish() {
+        if (pending.decrementAndGet() == 0) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Records the failure of a page, and ends the crawl if it is the first one. The page still has
+     * to be {@link #finish() finished}.
+     */
+    void fail(Throwable e) {
+        if (failure.compareAndSet(null, e)) {
+            done.countDown();
+        }
+    }
+
+    boolean hasFailed() {
+        return failure.get() != null;
+    }
+
+    /**
+     * Returns true if the given claimed page should not be downloaded, because the crawl has
+     * failed or its deadline has passed. Past the deadline, the claim on the URL is handed back,
+     * like {@link CrawResultTask} does, so the URL does not count as visited.
+     */
+    boolean skip(String url) {
+        if (hasFailed()) {
+            return true;
+        }
+        if (!deadline.truncateIfPassed()) {
+            return false;
+        }
+        urlsVisited.remove(url);
+        return true;
+    }
+
+    /**
+     * Returns true if the given links of a page at the given depth should be claimed.
+     */
+    boolean shouldFollow(List<String> links, int depth) {
+        return depth > 1 && !links.isEmpty() && !hasFailed() && !deadline.truncateIfPassed();
+    }
+
+    /**
+     * Gives up the count of the calling thread, and waits until every page has been finished or
+     * one of them failed. Must be called exactly once, by the thread that claimed the start pages.
+     *
+     * @throws RuntimeException the first failure of a page, if it was unchecked.
+     * @throws Error            the first failure of a page, if it was an error.
+     */
+    void await() {
+        finish();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while crawling", e);
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
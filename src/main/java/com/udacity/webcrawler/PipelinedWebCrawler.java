@@ -0,0 +1,317 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link WebCrawler} that downloads pages and parses them in two separate stages, each with its
+ * own thread pool.
+ *
+ * <p>The download stage is a fixed pool of {@link FetchParallelism} threads that mostly wait on
+ * the network. They take URLs from a {@link HostFrontier}, which keeps every host within
+ * {@link MaxRequestsPerHost} concurrent requests and {@link HostRequestDelay} between requests,
+ * and takes turns between hosts. The parse stage is a fixed pool of {@link ParseParallelism}
+ * threads that parse pages and count their words, and never wait on a slow host. Both stages
+ * spend their idle time blocked on a queue, so neither runs on a {@link ForkJoinPool}, which
+ * expects its workers to only block through a {@link ForkJoinPool.ManagedBlocker}. Downloaded
+ * pages are handed from one stage to the other through a queue that holds at most
+ * {@link FetchedPageQueueCapacity} pages: when the parsers fall behind, downloads block until there
+ * is room again. Once a page fails, both stages stop, and the pages still queued are dropped.
+ */
+final class PipelinedWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final int queueCapacity;
+    private final int maxRequestsPerHost;
+    private final Duration hostRequestDelay;
+    private final int fetchThreads;
+    private final int parseThreads;
+    private final ExecutorService fetchPool;
+    private final ExecutorService parsePool;
+    private final UrlFilter urlFilter;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+
+    @Inject
+    PageFetcher pageFetcher;
+
+    @Inject
+    PageParserFactory pageParserFactory;
+
+    @Inject
+    PipelinedWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @FetchParallelism int fetchThreads,
+            @ParseParallelism int parseThreads,
+            @FetchedPageQueueCapacity int queueCapacity,
+            @MaxRequestsPerHost int maxRequestsPerHost,
+            @HostRequestDelay Duration hostRequestDelay,
+            UrlFilter urlFilter,
+            Provider<VisitedUrlSet> visitedUrlSets
+    ) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.queueCapacity = queueCapacity;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.hostRequestDelay = hostRequestDelay;
+        this.fetchThreads = fetchThreads;
+        this.parseThreads = Math.min(parseThreads, getMaxParallelism());
+        this.fetchPool = Executors.newFixedThreadPool(fetchThreads, threadFactory("fetch"));
+        this.parsePool = Executors.newFixedThreadPool(this.parseThreads, threadFactory("parse"));
+        this.urlFilter = urlFilter;
+        this.visitedUrlSets = visitedUrlSets;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        if (startingUrls.isEmpty() || maxDepth == 0) {
+            return new CrawlResult.Builder().build();
+        }
+        Crawl crawl = new Crawl(CrawlDeadline.start(clock, timeout), visitedUrlSets.get());
+        crawl.start(startingUrls);
+        crawl.awaitCompletion();
+
+        // Neither stage runs fork/join tasks, so the shards are reduced on the common pool.
+        Map<String, Integer> wordCounts =
+                WordCounts.parallelSort(crawl.wordCounts.getWordCounts(), popularWordCount);
+
+        return new CrawlResult.Builder().setWordCounts(wordCounts)
+                .setUrlsVisited(crawl.urlsVisited.size())
+                .setTruncatedByDeadline(crawl.deadline.wasTruncated())
+                .build();
+    }
+
+    /**
+     * Returns the number of CPU cores, which bounds the parse stage. The download stage is sized
+     * separately, by {@link FetchParallelism}.
+     */
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates the daemon threads of a stage, so an idle crawler does not keep the JVM alive, just
+     * like the workers of a {@link ForkJoinPool}.
+     */
+    private static ThreadFactory threadFactory(String stage) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread =
+                    new Thread(runnable, "crawler-" + stage + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A claimed URL waiting in the frontier to be downloaded.
+     */
+    private static final class Queued {
+        final String url;
+        final String host;
+        final int depth;
+
+        Queued(String url, String host, int depth) {
+            this.url = url;
+            this.host = host;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * A downloaded page on its way from the download stage to the parse stage.
+     */
+    private static final class Fetched {
+        // Tells a parser that the crawl is over.
+        static final Fetched END = new Fetched(null, 0);
+
+        final FetchedPage page;
+        final int depth;
+
+        Fetched(FetchedPage page, int depth) {
+            this.page = page;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * The state of a single crawl, shared by both stages.
+     */
+    private final class Crawl {
+        private final CrawlDeadline deadline;
+        private final VisitedUrlSet urlsVisited;
+        // Only the parse stage counts words, so a shard per parse thread is enough.
+        private final ShardedWordCountAggregator wordCounts =
+                new ShardedWordCountAggregator(parseThreads);
+        private final HostFrontier<Queued> frontier =
+                new HostFrontier<>(clock, maxRequestsPerHost, hostRequestDelay);
+        private final BlockingQueue<Fetched> fetched = new ArrayBlockingQueue<>(queueCapacity);
+        private final PendingPages pages;
+
+        Crawl(CrawlDeadline deadline, VisitedUrlSet urlsVisited) {
+            this.deadline = deadline;
+            this.urlsVisited = urlsVisited;
+            this.pages = new PendingPages(deadline, urlsVisited);
+        }
+
+        void start(List<String> startingUrls) {
+            for (int i = 0; i < fetchThreads; i++) {
+                fetchPool.execute(this::fetchPages);
+            }
+            for (int i = 0; i < parseThreads; i++) {
+                int shard = i;
+                parsePool.execute(() -> parsePages(shard));
+            }
+            claimAndFetch(startingUrls, maxDepth);
+        }
+
+        /**
+         * Waits until every claimed page has been parsed, or one of them failed, then stops both
+         * stages. Must be called exactly once, by the thread that called {@link #start(List)}.
+         */
+        void awaitCompletion() {
+            try {
+                pages.await();
+            } finally {
+                stop();
+            }
+        }
+
+        private void stop() {
+            frontier.close();
+            try {
+                // The parsers keep taking pages until they see the end, so there is room for it.
+                for (int i = 0; i < parseThreads; i++) {
+                    fetched.put(Fetched.END);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Claims every URL that is not ignored or already claimed, and queues it for download.
+         */
+        private void claimAndFetch(List<String> urls, int depth) {
+            for (String url : urls) {
+                if (url.isEmpty() || urlFilter.isIgnored(url) || !urlsVisited.add(url)) {
+                    continue;
+                }
+                pages.add();
+                String host = HostFrontier.hostOf(url);
+                frontier.add(host, new Queued(url, host, depth));
+            }
+        }
+
+        /**
+         * Downloads URLs from the frontier until the crawl is over. Runs on every download thread.
+         */
+        private void fetchPages() {
+            while (true) {
+                Queued next;
+                try {
+                    next = frontier.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next == null) {
+                    return;
+                }
+                fetch(next);
+            }
+        }
+
+        private void fetch(Queued next) {
+            // Until the page is handed to the parse stage, this thread has to finish it.
+            boolean handedOver = false;
+            try {
+                FetchedPage page;
+                try {
+                    if (pages.skip(next.url)) {
+                        return;
+                    }
+                    page = pageFetcher.fetch(next.url);
+                } finally {
+                    frontier.release(next.host);
+                }
+                // Blocks while the queue is full, which is what keeps downloads from racing ahead
+                // of the parsers.
+                fetched.put(new Fetched(page, next.depth));
+                handedOver = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pages.fail(
+                        new IllegalStateException("Interrupted while downloading " + next.url, e));
+            } catch (RuntimeException | Error e) {
+                pages.fail(e);
+            } finally {
+                if (!handedOver) {
+                    pages.finish();
+                }
+            }
+        }
+
+        /**
+         * Parses downloaded pages until the crawl is over, counting words into the given shard.
+         * Runs on every thread of the parse pool.
+         */
+        private void parsePages(int shard) {
+            while (true) {
+                Fetched next;
+                try {
+                    next = fetched.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next == Fetched.END) {
+                    return;
+                }
+                try {
+                    // Pages still queued when the crawl failed are dropped.
+                    if (!pages.hasFailed()) {
+                        parse(next, shard);
+                    }
+                } catch (RuntimeException | Error e) {
+                    pages.fail(e);
+                } finally {
+                    pages.finish();
+                }
+            }
+        }
+
+        private void parse(Fetched next, int shard) {
+            PageParser.Result result = pageParserFactory.get(next.page).parse();
+            result.forEachWordCount((word, count) -> wordCounts.add(shard, word, count));
+            List<String> links = result.getLinks();
+            if (pages.shouldFollow(links, next.depth)) {
+                claimAndFetch(links, next.depth - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.udacity.webcrawler;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent priority queue that gives up strict ordering so that its users do not all wait on
+ * the same lock.
+ *
+ * <p>Items are spread over several shards, each a binary heap with its own lock. {@link #add} puts
+ * an item into a random shard whose lock is free. {@link #poll()} looks at the best items of two
+ * random shards and takes the better one, so it usually returns one of the best items in the
+ * queue, but not always the very best. With twice as many shards as threads, two threads rarely
+ * want the same lock, and a crawl does not need an exact order anyway.
+ *
+ * <p>Items with the same priority in the same shard come out in the order they were added.
+ *
+ * <p>{@link #take()} waits on a condition until there is an item, so idle threads sleep instead of
+ * polling. Only adds that find a waiting thread take the lock that guards the condition.
+ */
+final class PriorityFrontier<T> {
+    private static final int LOCK_ATTEMPTS = 4;
+
+    private final Shard<T>[] shards;
+    // The number of items in every shard. An item is counted just after it is added, and uncounted
+    // just after it is removed, so for a moment the count can be off by the items in flight.
+    private final AtomicInteger size = new AtomicInteger();
+    // The number of threads waiting in take(), or about to.
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition added = lock.newCondition();
+    private volatile boolean closed;
+
+    /**
+     * Creates a frontier for the given number of threads. A single thread has nobody to wait for,
+     * so it gets a single shard, and an exact order.
+     */
+    @SuppressWarnings("unchecked")
+    PriorityFrontier(int parallelism) {
+        this.shards = new Shard[parallelism <= 1 ? 1 : 2 * parallelism];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard<>();
+        }
+    }
+
+    /**
+     * Adds the given item. Items with a higher priority come out first.
+     */
+    void add(T item, double priority) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; ; attempt++) {
+            Shard<T> shard = shards[random.nextInt(shards.length)];
+            // Another shard is as good as this one, so only wait for a lock after a few tries.
+            if (attempt < LOCK_ATTEMPTS && !shard.lock.tryLock()) {
+                continue;
+            } else if (attempt >= LOCK_ATTEMPTS) {
+                shard.lock.lock();
+            }
+            try {
+                shard.add(item, priority);
+            } finally {
+                shard.lock.unlock();
+            }
+            size.incrementAndGet();
+            // A thread that starts waiting after this check sees the new size, and does not wait.
+            if (waiting.get() > 0) {
+                lock.lock();
+                try {
+                    added.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Removes and returns one of the items with the highest priority, or null if the frontier is
+     * empty.
+     */
+    T poll() {
+        T item = pollShards();
+        if (item != null) {
+            size.decrementAndGet();
+        }
+        return item;
+    }
+
+    /**
+     * Like {@link #poll()}, but waits until there is an item to take. Returns null once the
+     * frontier is {@link #close() closed}, even if it still has items.
+     */
+    T take() throws InterruptedException {
+        while (!closed) {
+            T item = poll();
+            if (item != null) {
+                return item;
+            }
+            lock.lock();
+            waiting.incrementAndGet();
+            try {
+                // An item that is in the frontier but not counted yet comes with a signal. An item
+                // that is counted but already taken is uncounted right away, so waiting for it to
+                // go is a short retry.
+                while (size.get() == 0 && !closed) {
+                    added.await();
+                }
+            } finally {
+                waiting.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wakes up every thread waiting in {@link #take()}, and makes them return null.
+     */
+    void close() {
+        closed = true;
+        lock.lock();
+        try {
+            added.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private T pollShards() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < LOCK_ATTEMPTS; attempt++) {
+            Shard<T> first = shards[random.nextInt(shards.length)];
+            Shard<T> second = shards[random.nextInt(shards.length)];
+            Shard<T> best = second.top > first.top ? second : first;
+            if (best.top == Double.NEGATIVE_INFINITY) {
+                // Both were empty. The frontier may be nearly empty, so stop guessing.
+                break;
+            }
+            if (best.lock.tryLock()) {
+                try {
+                    T item = best.poll();
+                    if (item != null) {
+                        return item;
+                    }
+                } finally {
+                    best.lock.unlock();
+                }
+            }
+        }
+        return pollAny(random.nextInt(shards.length));
+    }
+
+    /**
+     * Takes the best item of the first shard that has one, starting at the given shard.
+     */
+    private T pollAny(int start) {
+        for (int i = 0; i < shards.length; i++) {
+            Shard<T> shard = shards[(start + i) % shards.length];
+            if (shard.top == Double.NEGATIVE_INFINITY) {
+                continue;
+            }
+            shard.lock.lock();
+            try {
+                T item = shard.poll();
+                if (item != null) {
+                    return item;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    private static final class Shard<T> {
+        private static final Comparator<Entry<?>> ORDER =
+                Comparator.<Entry<?>>comparingDouble(entry -> -entry.priority)
+                        .thenComparingLong(entry -> entry.sequence);
+
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<Entry<T>> heap = new PriorityQueue<>(ORDER);
+        // The priority of the best item, readable without the lock. It may be out of date, which
+        // only makes poll() pick a slightly worse shard.
+        volatile double top = Double.NEGATIVE_INFINITY;
+        long sequence;
+
+        void add(T item, double priority) {
+            heap.add(new Entry<>(item, priority, sequence++));
+            top = heap.peek().priority;
+        }
+
+        T poll() {
+            Entry<T> entry = heap.poll();
+            Entry<T> next = heap.peek();
+            top = next == null ? Double.NEGATIVE_INFINITY : next.priority;
+            return entry == null ? null : entry.item;
+        }
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final double priority;
+        final long sequence;
+
+        Entry(T item, double priority, long sequence) {
+            this.item = item;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
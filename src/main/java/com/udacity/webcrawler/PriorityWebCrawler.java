@@ -0,0 +1,240 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link WebCrawler} that always crawls the most promising URL it knows of next, so that a crawl
+ * cut off by its timeout has spent its time on the pages that matter most.
+ *
+ * <p>How promising a URL is, is up to the {@link UrlScorer}. A URL that is found again before it
+ * is crawled is scored again, as described there, and queued again if its score went up. The
+ * waiting URLs are kept in a {@link PriorityFrontier}, which every worker takes from without
+ * waiting on the others, and which idle workers sleep on. Since workers block, they are the daemon
+ * threads of a fixed pool rather than the workers of a {@link java.util.concurrent.ForkJoinPool}.
+ */
+final class PriorityWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final int threadCount;
+    private final ExecutorService pool;
+    private final UrlFilter urlFilter;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+    private final UrlScorer urlScorer;
+
+    @Inject
+    PageParserFactory pageParserFactory;
+
+    @Inject
+    PriorityWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @TargetParallelism int threadCount,
+            UrlFilter urlFilter,
+            Provider<VisitedUrlSet> visitedUrlSets,
+            UrlScorer urlScorer
+    ) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.threadCount = Math.min(threadCount, getMaxParallelism());
+        this.pool = Executors.newFixedThreadPool(this.threadCount, workerThreadFactory());
+        this.urlFilter = urlFilter;
+        this.visitedUrlSets = visitedUrlSets;
+        this.urlScorer = urlScorer;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        if (startingUrls.isEmpty() || maxDepth == 0) {
+            return new CrawlResult.Builder().build();
+        }
+        Crawl crawl = new Crawl(CrawlDeadline.start(clock, timeout), visitedUrlSets.get());
+        crawl.run(startingUrls);
+
+        // The workers do not run fork/join tasks, so the shards are reduced on the common pool.
+        Map<String, Integer> wordCounts =
+                WordCounts.parallelSort(crawl.wordCounts.getWordCounts(), popularWordCount);
+
+        return new CrawlResult.Builder().setWordCounts(wordCounts)
+                .setUrlsVisited(crawl.urlsVisited.size())
+                .setTruncatedByDeadline(crawl.deadline.wasTruncated())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates daemon worker threads, so an idle crawler does not keep the JVM alive.
+     */
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "crawler-priority-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A claimed URL that has not been crawled yet.
+     */
+    private static final class Waiting {
+        final String url;
+        final AtomicInteger depth;
+        final AtomicInteger inlinks;
+        final AtomicBoolean taken = new AtomicBoolean();
+        // The best score this URL was queued with. Only a better score queues it again.
+        volatile double queuedScore = Double.NEGATIVE_INFINITY;
+
+        Waiting(String url, int depth, int inlinks) {
+            this.url = url;
+            this.depth = new AtomicInteger(depth);
+            this.inlinks = new AtomicInteger(inlinks);
+        }
+    }
+
+    /**
+     * The state of a single crawl, shared by every worker.
+     */
+    private final class Crawl {
+        private final CrawlDeadline deadline;
+        private final VisitedUrlSet urlsVisited;
+        // Every worker counts into the shard with its own index.
+        private final ShardedWordCountAggregator wordCounts =
+                new ShardedWordCountAggregator(threadCount);
+        // A URL may be in the frontier more than once, once for every time its score went up.
+        // Only the first copy taken is crawled.
+        private final PriorityFrontier<Waiting> frontier = new PriorityFrontier<>(threadCount);
+        private final Map<String, Waiting> waiting = new ConcurrentHashMap<>();
+        private final PendingPages pages;
+
+        Crawl(CrawlDeadline deadline, VisitedUrlSet urlsVisited) {
+            this.deadline = deadline;
+            this.urlsVisited = urlsVisited;
+            this.pages = new PendingPages(deadline, urlsVisited);
+        }
+
+        /**
+         * Crawls from the given start pages, and returns once every claimed page has been crawled
+         * or one of them failed.
+         */
+        void run(List<String> startingUrls) {
+            for (int i = 0; i < threadCount; i++) {
+                int shard = i;
+                pool.execute(() -> crawlPages(shard));
+            }
+            claim(startingUrls, maxDepth, 0);
+            try {
+                pages.await();
+            } finally {
+                // Wake every worker, so they see that the crawl is over.
+                frontier.close();
+            }
+        }
+
+        /**
+         * Claims and queues every URL that is not ignored or already claimed. URLs that are
+         * claimed but still waiting get another inlink, and may be queued again.
+         */
+        private void claim(List<String> urls, int depth, int inlinks) {
+            for (String url : urls) {
+                if (url.isEmpty() || urlFilter.isIgnored(url)) {
+                    continue;
+                }
+                Waiting next;
+                if (urlsVisited.add(url)) {
+                    next = new Waiting(url, depth, inlinks);
+                    waiting.put(url, next);
+                    pages.add();
+                } else {
+                    next = waiting.get(url);
+                    if (next == null || next.taken.get()) {
+                        continue;
+                    }
+                    boolean closer = next.depth.getAndAccumulate(depth, Math::max) < depth;
+                    int seen = next.inlinks.incrementAndGet();
+                    if (!closer && Integer.bitCount(seen) != 1) {
+                        continue;
+                    }
+                }
+                enqueue(next);
+            }
+        }
+
+        private void enqueue(Waiting next) {
+            double score =
+                    urlScorer.score(next.url, maxDepth - next.depth.get(), next.inlinks.get());
+            if (score <= next.queuedScore) {
+                return;
+            }
+            next.queuedScore = score;
+            frontier.add(next, score);
+        }
+
+        /**
+         * Crawls the best waiting URL until the crawl is over, counting words into the given
+         * shard. Runs on every worker of the pool.
+         */
+        private void crawlPages(int shard) {
+            while (true) {
+                Waiting next;
+                try {
+                    next = frontier.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next == null) {
+                    return;
+                }
+                if (!next.taken.compareAndSet(false, true)) {
+                    continue;
+                }
+                waiting.remove(next.url);
+                try {
+                    crawlPage(next, shard);
+                } catch (RuntimeException | Error e) {
+                    pages.fail(e);
+                } finally {
+                    pages.finish();
+                }
+            }
+        }
+
+        private void crawlPage(Waiting next, int shard) {
+            if (pages.skip(next.url)) {
+                return;
+            }
+            int depth = next.depth.get();
+            PageParser.Result result = pageParserFactory.get(next.url).parse();
+            result.forEachWordCount((word, count) -> wordCounts.add(shard, word, count));
+            List<String> links = result.getLinks();
+            if (pages.shouldFollow(links, depth)) {
+                claim(links, depth - 1, 1);
+            }
+        }
+    }
+}
@@ -5,15 +5,11 @@ import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.regex.Pattern;
 
 /**
  * A {@link WebCrawler} that downloads and processes one page at a time.
@@ -25,7 +21,8 @@ final class SequentialWebCrawler implements WebCrawler {
   private final Duration timeout;
   private final int popularWordCount;
   private final int maxDepth;
-  private final List<Pattern> ignoredUrls;
+  private final UrlFilter urlFilter;
+  private final Provider<VisitedUrlSet> visitedUrlSets;
 
   @Inject
   SequentialWebCrawler(
@@ -34,66 +31,60 @@ final class SequentialWebCrawler implements WebCrawler {
       @Timeout Duration timeout,
       @PopularWordCount int popularWordCount,
       @MaxDepth int maxDepth,
-      @IgnoredUrls List<Pattern> ignoredUrls) {
+      UrlFilter urlFilter,
+      Provider<VisitedUrlSet> visitedUrlSets) {
     this.clock = clock;
     this.parserFactory = parserFactory;
     this.timeout = timeout;
     this.popularWordCount = popularWordCount;
     this.maxDepth = maxDepth;
-    this.ignoredUrls = ignoredUrls;
+    this.urlFilter = urlFilter;
+    this.visitedUrlSets = visitedUrlSets;
   }
 
   @Override
   public CrawlResult crawl(List<String> startingUrls) {
-    Instant deadline = clock.instant().plus(timeout);
-    Map<String, Integer> counts = new HashMap<>();
-    Set<String> visitedUrls = new HashSet<>();
-
-
+    CrawlDeadline deadline = CrawlDeadline.start(clock, timeout);
+    WordCountAggregator aggregator = new ConcurrentWordCountAggregator();
+    VisitedUrlSet visitedUrls = visitedUrlSets.get();
 
     for (String url : startingUrls) {
-      crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+      crawlInternal(url, deadline, maxDepth, aggregator, visitedUrls);
     }
 
+    Map<String, Integer> counts = aggregator.getWordCounts();
     if (counts.isEmpty()) {
       return new CrawlResult.Builder()
           .setWordCounts(counts)
           .setUrlsVisited(visitedUrls.size())
+          .setTruncatedByDeadline(deadline.wasTruncated())
           .build();
     }
 
     return new CrawlResult.Builder()
         .setWordCounts(WordCounts.sort(counts, popularWordCount))
         .setUrlsVisited(visitedUrls.size())
+        .setTruncatedByDeadline(deadline.wasTruncated())
         .build();
   }
 
   private void crawlInternal(
       String url,
-      Instant deadline,
+      CrawlDeadline deadline,
       int maxDepth,
-      Map<String, Integer> counts,
-      Set<String> visitedUrls) {
-    if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
+      WordCountAggregator counts,
+      VisitedUrlSet visitedUrls) {
+    if (maxDepth == 0 || deadline.truncateIfPassed()) {
       return;
     }
-    for (Pattern pattern : ignoredUrls) {
-      if (pattern.matcher(url).matches()) {
-        return;
-      }
+    if (urlFilter.isIgnored(url)) {
+      return;
     }
-    if (visitedUrls.contains(url)) {
+    if (!visitedUrls.add(url)) {
       return;
     }
-    visitedUrls.add(url);
     PageParser.Result result = parserFactory.get(url).parse();
-    for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-      if (counts.containsKey(e.getKey())) {
-        counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
-      } else {
-        counts.put(e.getKey(), e.getValue());
-      }
-    }
+    result.forEachWordCount(counts::add);
     for (String link : result.getLinks()) {
       crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
     }
@@ -0,0 +1,161 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.WordCounter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link WordCountAggregator} where every fork/join worker thread counts into its own private
+ * shard, so adding words never touches memory that another thread writes to.
+ *
+ * <p>Shards are found by the worker's {@link ForkJoinWorkerThread#getPoolIndex() pool index}, in a
+ * plain array owned by this aggregator, rather than in a {@link ThreadLocal}. Pool threads outlive
+ * the crawl, and a thread-local value would keep each crawl's vocabulary reachable from them until
+ * the thread dies. Threads that are not pool workers, or whose index is beyond the array, share a
+ * single synchronized fallback shard, unless they bring their own index to
+ * {@link #add(int, String, int)}.
+ *
+ * <p>Each shard is split into the same number of partitions by word hash. When the crawl is done,
+ * {@link #getWordCounts()} reduces every partition in parallel: partition {@code p} of the result
+ * only needs partition {@code p} of each shard, and no two partitions share a word.
+ *
+ * <p>{@link #getWordCounts()} must only be called after every thread has finished adding words,
+ * for example after the fork/join pool has joined the crawl's root task. To run the reduction on a
+ * specific {@link java.util.concurrent.ForkJoinPool}, call it from a task in that pool.
+ */
+final class ShardedWordCountAggregator implements WordCountAggregator {
+    private final int partitionMask;
+    private final AtomicReferenceArray<Shard> workerShards;
+    // Guarded by itself.
+    private final Shard fallbackShard;
+
+    /**
+     * Creates an aggregator for a pool with the given parallelism, whose final reduction is split
+     * into at least {@code parallelism} partitions.
+     */
+    ShardedWordCountAggregator(int parallelism) {
+        int partitions = Integer.highestOneBit(Math.max(1, parallelism - 1)) << 1;
+        this.partitionMask = partitions - 1;
+        // Pool indices of a pool's workers stay below twice its parallelism, unless the pool adds
+        // threads to compensate for blocked ones. Those use the fallback shard.
+        this.workerShards = new AtomicReferenceArray<>(partitions * 2);
+        this.fallbackShard = new Shard(partitionMask, null);
+    }
+
+    @Override
+    public void add(String word, int count) {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ForkJoinWorkerThread) {
+            int index = ((ForkJoinWorkerThread) thread).getPoolIndex();
+            if (index < workerShards.length()) {
+                Shard shard = workerShards.get(index);
+                if (shard == null) {
+                    shard = new Shard(partitionMask, thread);
+                    if (!workerShards.compareAndSet(index, null, shard)) {
+                        shard = workerShards.get(index);
+                    }
+                }
+                if (shard.claim(thread)) {
+                    shard.partition(word).add(word, count);
+                    return;
+                }
+            }
+        }
+        synchronized (fallbackShard) {
+            fallbackShard.partition(word).add(word, count);
+        }
+    }
+
+    /**
+     * Adds to the shard with the given index, which must be below the parallelism this aggregator
+     * was created for, and must not be used by any other thread at the same time. This is for
+     * threads that are not fork/join workers, such as the threads of a fixed pool, which each own
+     * an index. Such threads must not share an aggregator with fork/join workers.
+     */
+    void add(int shard, String word, int count) {
+        Shard target = workerShards.get(shard);
+        if (target == null) {
+            target = new Shard(partitionMask, null);
+            if (!workerShards.compareAndSet(shard, null, target)) {
+                target = workerShards.get(shard);
+            }
+        }
+        target.partition(word).add(word, count);
+    }
+
+    @Override
+    public Map<String, Integer> getWordCounts() {
+        List<Shard> snapshot = new ArrayList<>();
+        for (int i = 0; i < workerShards.length(); i++) {
+            Shard shard = workerShards.get(i);
+            if (shard != null) {
+                snapshot.add(shard);
+            }
+        }
+        synchronized (fallbackShard) {
+            snapshot.add(fallbackShard);
+        }
+        List<Map<String, Integer>> partitions =
+                IntStream.rangeClosed(0, partitionMask)
+                        .parallel()
+                        .mapToObj(p -> reducePartition(snapshot, p))
+                        .toList();
+
+        Map<String, Integer> wordCounts =
+                new HashMap<>(partitions.stream().mapToInt(Map::size).sum() * 2);
+        partitions.forEach(wordCounts::putAll);
+        return wordCounts;
+    }
+
+    private static Map<String, Integer> reducePartition(List<Shard> shards, int partition) {
+        Map<String, Integer> merged = new HashMap<>();
+        for (Shard shard : shards) {
+            shard.partitions[partition].forEach(
+                    (word, count) -> merged.merge(word, count, Integer::sum));
+        }
+        return merged;
+    }
+
+    /**
+     * The word counts of a single thread, held in unboxed {@link WordCounter}s.
+     */
+    private static final class Shard {
+        private final WordCounter[] partitions;
+        private final int partitionMask;
+        private final AtomicReference<Thread> owner;
+
+        Shard(int partitionMask, Thread owner) {
+            this.partitionMask = partitionMask;
+            this.owner = new AtomicReference<>(owner);
+            partitions = new WordCounter[partitionMask + 1];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new WordCounter();
+            }
+        }
+
+        /**
+         * Returns whether the given thread may add to this shard. A shard passes to another
+         * worker with the same pool index only once its owner has terminated, which also makes
+         * everything the owner added visible to the new one.
+         */
+        boolean claim(Thread thread) {
+            Thread current = owner.get();
+            return current == thread
+                    || (current != null
+                            && !current.isAlive()
+                            && owner.compareAndSet(current, thread));
+        }
+
+        WordCounter partition(String word) {
+            int h = word.hashCode();
+            return partitions[(h ^ (h >>> 16)) & partitionMask];
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.udacity.webcrawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link IgnoredUrls} patterns, compiled once per crawler so that a link is checked with a few
+ * string comparisons and at most one regular expression match.
+ *
+ * <p>Most ignored URL patterns pin a host or path prefix ({@code "https://example\\.com/.*"}), a
+ * file extension ({@code ".*\\.pdf"}) or a fixed fragment ({@code ".*logout.*"}). Those are
+ * matched with {@link String#startsWith(String)}, {@link String#endsWith(String)} and
+ * {@link String#contains(CharSequence)}. All other patterns are joined into a single alternation,
+ * and its verdicts are cached, because the same navigation links show up on almost every page.
+ *
+ * <p>A URL is ignored if and only if at least one of the original patterns
+ * {@link java.util.regex.Matcher#matches() matches} the entire URL. Instances are thread-safe.
+ */
+final class UrlFilter {
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final int MAX_CACHED_VERDICTS = 1 << 16;
+
+    private final List<LiteralRule> literalRules;
+    private final List<Pattern> patterns;
+    private final Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
+
+    private UrlFilter(List<LiteralRule> literalRules, List<Pattern> patterns) {
+        this.literalRules = literalRules;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Compiles the given ignored URL patterns.
+     */
+    static UrlFilter compile(List<Pattern> ignoredUrls) {
+        List<LiteralRule> literalRules = new ArrayList<>();
+        List<Pattern> joinable = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (Pattern pattern : ignoredUrls) {
+            LiteralRule rule = pattern.flags() == 0 ? LiteralRule.of(pattern) : null;
+            if (rule != null) {
+                literalRules.add(rule);
+            } else if (pattern.flags() == 0 && !hasBackReference(pattern.pattern())) {
+                joinable.add(pattern);
+            } else {
+                patterns.add(pattern);
+            }
+        }
+
+        if (joinable.size() == 1) {
+            patterns.add(joinable.get(0));
+        } else if (!joinable.isEmpty()) {
+            // Inline flags such as (?i) only apply until the end of the group that contains them.
+            String alternation = joinable.stream()
+                    .map(p -> "(?:" + p.pattern() + ")")
+                    .collect(Collectors.joining("|"));
+            try {
+                patterns.add(Pattern.compile(alternation));
+            } catch (PatternSyntaxException e) {
+                patterns.addAll(joinable);
+            }
+        }
+        return new UrlFilter(List.copyOf(literalRules), List.copyOf(patterns));
+    }
+
+    /**
+     * Returns true if the crawler should not visit the given URL.
+     */
+    boolean isIgnored(String url) {
+        if (!literalRules.isEmpty()) {
+            boolean singleLine = isSingleLine(url);
+            for (LiteralRule rule : literalRules) {
+                if (rule.matches(url, singleLine)) {
+                    return true;
+                }
+            }
+        }
+        if (patterns.isEmpty()) {
+            return false;
+        }
+
+        Boolean cached = verdicts.get(url);
+        if (cached != null) {
+            return cached;
+        }
+        boolean ignored = false;
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(url).matches()) {
+                ignored = true;
+                break;
+            }
+        }
+        // Stop caching instead of evicting: a huge crawl still gets its common links cached.
+        if (verdicts.size() < MAX_CACHED_VERDICTS) {
+            verdicts.put(url, ignored);
+        }
+        return ignored;
+    }
+
+    /**
+     * Returns true if {@code .*} matches the whole string, i.e. it has no line terminators.
+     */
+    private static boolean isSingleLine(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the regular expression refers back to one of its own groups, which would
+     * refer to a different group once it is part of a bigger pattern.
+     */
+    private static boolean hasBackReference(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            if (regex.charAt(i) == '\\') {
+                char next = regex.charAt(i + 1);
+                if ((next >= '1' && next <= '9') || next == 'k') {
+                    return true;
+                }
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A pattern of the form {@code [^][.*]literal[.*][$]}.
+     */
+    private static final class LiteralRule {
+        private final Pattern pattern;
+        private final String literal;
+        private final boolean anyPrefix;
+        private final boolean anySuffix;
+
+        private LiteralRule(Pattern pattern, String literal, boolean anyPrefix, boolean anySuffix) {
+            this.pattern = pattern;
+            this.literal = literal;
+            this.anyPrefix = anyPrefix;
+            this.anySuffix = anySuffix;
+        }
+
+        /**
+         * Returns the rule equivalent to the given pattern, or null if it is not of that form.
+         */
+        static LiteralRule of(Pattern pattern) {
+            String body = pattern.pattern();
+            if (body.startsWith("^")) {
+                body = body.substring(1);
+            }
+            if (body.endsWith("$") && !isEscaped(body, body.length() - 1)) {
+                body = body.substring(0, body.length() - 1);
+            }
+            boolean anyPrefix = body.startsWith(".*");
+            if (anyPrefix) {
+                body = body.substring(2);
+            }
+            boolean anySuffix = body.endsWith(".*") && !isEscaped(body, body.length() - 2);
+            if (anySuffix) {
+                body = body.substring(0, body.length() - 2);
+            }
+            String literal = unescape(body);
+            return literal == null ? null : new LiteralRule(pattern, literal, anyPrefix, anySuffix);
+        }
+
+        boolean matches(String url, boolean singleLine) {
+            if (!singleLine) {
+                // Let the regex decide where its dots may not go.
+                return pattern.matcher(url).matches();
+            }
+            if (anyPrefix && anySuffix) {
+                return url.contains(literal);
+            } else if (anyPrefix) {
+                return url.endsWith(literal);
+            } else if (anySuffix) {
+                return url.startsWith(literal);
+            }
+            return url.equals(literal);
+        }
+
+        /**
+         * Returns the string the given regular expression matches literally, or null if it contains
+         * any unescaped metacharacter.
+         */
+        private static String unescape(String regex) {
+            if (regex.startsWith("\\Q") && regex.endsWith("\\E") && regex.length() >= 4) {
+                String quoted = regex.substring(2, regex.length() - 2);
+                return quoted.contains("\\E") ? null : quoted;
+            }
+            StringBuilder literal = new StringBuilder(regex.length());
+            for (int i = 0; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    // Only escaped punctuation stands for itself; \d, \w, \Q etc. do not.
+                    if (i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                        return null;
+                    }
+                    literal.append(regex.charAt(++i));
+                } else if (METACHARACTERS.indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.toString();
+        }
+
+        private static boolean isEscaped(String regex, int index) {
+            int backslashes = 0;
+            while (index - backslashes > 0 && regex.charAt(index - backslashes - 1) == '\\') {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+    }
+}
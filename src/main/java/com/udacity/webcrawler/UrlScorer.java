@@ -0,0 +1,28 @@
+package com.udacity.webcrawler;
+
+/**
+ * Decides which of the URLs waiting to be crawled is worth crawling first.
+ *
+ * <p>A crawl that is cut off by its timeout only gets to a fraction of the pages it found, so the
+ * order in which it visits them decides what ends up in the result. {@link PriorityWebCrawler}
+ * always crawls the waiting URL with the highest score next. To change the order, bind a different
+ * implementation in place of the one {@link WebCrawlerModule} installs. Implementations must be
+ * thread-safe.
+ */
+public interface UrlScorer {
+
+    /**
+     * Returns the score of the given URL. Higher scores are crawled first.
+     *
+     * <p>A URL that is found again before it is crawled is scored again, with its new distance and
+     * inlink count, if the new page is closer to the start pages or the inlink count reached a
+     * power of two. Pages that link to almost every page would cost a score for every link
+     * otherwise.
+     *
+     * @param url      the URL to score.
+     * @param distance the number of links between the closest start page and the URL, which is 0
+     *                 for the start pages themselves.
+     * @param inlinks  the number of crawled pages that link to the URL so far.
+     */
+    double score(String url, int distance, int inlinks);
+}
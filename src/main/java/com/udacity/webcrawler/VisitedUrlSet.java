@@ -0,0 +1,24 @@
+package com.udacity.webcrawler;
+
+/**
+ * The set of URLs a single crawl has claimed for visiting. Implementations must be thread-safe.
+ */
+interface VisitedUrlSet {
+
+    /**
+     * Claims the given URL.
+     *
+     * @return true if the URL was not in the set yet, so the caller is the one who should visit it.
+     */
+    boolean add(String url);
+
+    /**
+     * Gives up a claim made by {@link #add(String)}, for a URL that ended up not being visited.
+     */
+    void remove(String url);
+
+    /**
+     * Returns the number of URLs in the set.
+     */
+    int size();
+}
@@ -17,6 +17,7 @@ import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -49,11 +50,25 @@ public final class WebCrawlerModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), WebCrawler.class, Internal.class);
     multibinder.addBinding().to(SequentialWebCrawler.class);
     multibinder.addBinding().to(ParallelWebCrawler.class);
+    multibinder.addBinding().to(BreadthFirstWebCrawler.class);
+    multibinder.addBinding().to(PipelinedWebCrawler.class);
+    multibinder.addBinding().to(PriorityWebCrawler.class);
+    multibinder.addBinding().to(AsyncWebCrawler.class);
+    // Only reachable with a parallelism above the number of cores, so it comes last.
+    findVirtualThreadWebCrawler().ifPresent(crawler -> multibinder.addBinding().to(crawler));
 
     bind(Clock.class).toInstance(Clock.systemUTC());
+    bind(UrlScorer.class).to(DefaultUrlScorer.class);
     bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
     bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
     bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
+    bind(Key.get(Integer.class, FetchParallelism.class)).toInstance(config.getFetchParallelism());
+    bind(Key.get(Integer.class, FetchedPageQueueCapacity.class))
+        .toInstance(config.getFetchedPageQueueCapacity());
+    bind(Key.get(Integer.class, MaxRequestsPerHost.class))
+        .toInstance(config.getMaxRequestsPerHost());
+    bind(Key.get(Duration.class, HostRequestDelay.class)).toInstance(config.getHostRequestDelay());
+    bind(Key.get(Integer.class, LinkBatchSize.class)).toInstance(config.getLinkBatchSize());
     bind(new Key<List<Pattern>>(IgnoredUrls.class) {
     }).toInstance(config.getIgnoredUrls());
 
@@ -61,6 +76,12 @@ public final class WebCrawlerModule extends AbstractModule {
         new ParserModule.Builder()
             .setTimeout(config.getTimeout())
             .setIgnoredWords(config.getIgnoredWords())
+            .setStrippedQueryParameters(config.getStrippedQueryParameters())
+            .setStreamingParser(config.isStreamingParser())
+            .setParseCacheEntries(config.getParseCacheEntries())
+            .setPageCacheDirectory(config.getPageCacheDirectory())
+            .setPageCacheMaxBytes(config.getPageCacheMaxMegabytes() * 1024L * 1024L)
+            .setPageCacheEviction(config.getPageCacheEviction())
             .build());
   }
 
@@ -88,6 +109,34 @@ public final class WebCrawlerModule extends AbstractModule {
                     config.getParallelism() + "\"."));
   }
 
+  @Provides
+  @Singleton
+  UrlFilter provideUrlFilter(@IgnoredUrls List<Pattern> ignoredUrls) {
+    return UrlFilter.compile(ignoredUrls);
+  }
+
+  /**
+   * Provides a new, empty {@link VisitedUrlSet} for every crawl.
+   */
+  @Provides
+  VisitedUrlSet provideVisitedUrlSet(@TargetParallelism int targetParallelism, Profiler profiler) {
+    int fingerprintBits = config.getVisitedUrlFingerprintBits();
+    if (fingerprintBits == 0) {
+      return new ConcurrentVisitedUrlSet();
+    }
+    FingerprintVisitedUrlSet urls =
+        new FingerprintVisitedUrlSet(fingerprintBits, targetParallelism);
+    if (config.getBloomFilterExpectedUrls() == 0) {
+      return urls;
+    }
+    BloomFilteredVisitedUrlSet filtered = new BloomFilteredVisitedUrlSet(
+        urls,
+        BlockedBloomFilter.create(
+            config.getBloomFilterExpectedUrls(), config.getBloomFilterFalsePositiveRate()));
+    filtered.recordStatistics(profiler);
+    return filtered;
+  }
+
   @Provides
   @Singleton
   @TargetParallelism
@@ -98,12 +147,39 @@ public final class WebCrawlerModule extends AbstractModule {
     return Runtime.getRuntime().availableProcessors();
   }
 
+  @Provides
+  @Singleton
+  @ParseParallelism
+  int provideParseParallelism() {
+    if (config.getParseParallelism() >= 1) {
+      return config.getParseParallelism();
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
   @Provides
   @Singleton
   WebCrawler provideWebCrawlerProxy(Profiler wrapper, @Internal WebCrawler delegate) {
     return wrapper.wrap(WebCrawler.class, delegate);
   }
 
+  /**
+   * Returns the {@code VirtualThreadWebCrawler} class if this build includes it and the running JVM
+   * supports virtual threads. It is only compiled by the {@code java21} profile in {@code pom.xml}.
+   */
+  private static Optional<Class<? extends WebCrawler>> findVirtualThreadWebCrawler() {
+    if (Runtime.version().feature() < 21) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(
+          Class.forName(WebCrawler.class.getPackageName() + ".VirtualThreadWebCrawler")
+              .asSubclass(WebCrawler.class));
+    } catch (ClassNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
   @Qualifier
   @Retention(RetentionPolicy.RUNTIME)
   private @interface Internal {
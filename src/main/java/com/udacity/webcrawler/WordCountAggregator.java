@@ -0,0 +1,28 @@
+package com.udacity.webcrawler;
+
+import java.util.Map;
+
+/**
+ * Accumulates the word counts of every page processed during a single crawl.
+ */
+interface WordCountAggregator {
+
+    /**
+     * Adds {@code count} occurrences of the given word.
+     */
+    void add(String word, int count);
+
+    /**
+     * Adds the word counts of a single page.
+     */
+    default void addAll(Map<String, Integer> pageCounts) {
+        pageCounts.forEach(this::add);
+    }
+
+    /**
+     * Returns a snapshot of the total word counts added so far.
+     *
+     * <p>This copies the whole vocabulary, so it should only be called once the crawl is done.
+     */
+    Map<String, Integer> getWordCounts();
+}
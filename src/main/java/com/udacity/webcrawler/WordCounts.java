@@ -4,6 +4,7 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 /**
@@ -30,11 +31,72 @@ final class WordCounts {
 
         // TODO: Reimplement this method using only the Stream API and lambdas and/or method references.
 
-        return wordCounts.entrySet().stream().sorted( new WordCountComparator() ).limit( popularWordCount ).collect( Collectors.toMap(
-                Map.Entry::getKey,
-                Map.Entry::getValue,
-                (v1, v2) -> v1,
-                LinkedHashMap::new ) );
+        return wordCounts.entrySet().stream().collect( topWordCounts( popularWordCount ) );
+    }
+
+    /**
+     * Same as {@link #sort(Map, int)}, but splits the map into chunks that are ranked in parallel.
+     *
+     * <p>Each chunk keeps its own top {@code popularWordCount} words, and the chunks are merged
+     * pairwise. The chunks run on the {@link java.util.concurrent.ForkJoinPool} of the calling
+     * task, or on the common pool when called from outside a pool.
+     */
+    static Map<String, Integer> parallelSort (
+            Map<String, Integer> wordCounts, int popularWordCount) {
+        return wordCounts.entrySet().parallelStream().collect( topWordCounts( popularWordCount ) );
+    }
+
+    /**
+     * Returns a {@link Collector} that keeps the top {@code popularWordCount} entries in a bounded
+     * heap, instead of sorting all of them. This takes O(n log k) time for n words instead of
+     * O(n log n), and the result is the same because {@link WordCountComparator} never ties two
+     * different words.
+     */
+    private static Collector<Map.Entry<String, Integer>, ?, Map<String, Integer>> topWordCounts (
+            int popularWordCount) {
+        return Collector.of(
+                () -> new TopWordCounts( popularWordCount ),
+                TopWordCounts::offer,
+                TopWordCounts::merge,
+                TopWordCounts::toMap );
+    }
+
+    /**
+     * A min-heap of the best entries seen so far, whose head is the worst of them.
+     */
+    private static final class TopWordCounts {
+        private static final Comparator<Map.Entry<String, Integer>> RANKING =
+                new WordCountComparator();
+
+        private final int limit;
+        private final PriorityQueue<Map.Entry<String, Integer>> heap;
+
+        TopWordCounts (int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>( Math.min( limit, 1024 ) + 1, RANKING.reversed() );
+        }
+
+        void offer (Map.Entry<String, Integer> entry) {
+            if ( heap.size() < limit ) {
+                heap.add( entry );
+            } else if ( limit > 0 && RANKING.compare( entry, heap.peek() ) < 0 ) {
+                heap.poll();
+                heap.add( entry );
+            }
+        }
+
+        TopWordCounts merge (TopWordCounts other) {
+            other.heap.forEach( this::offer );
+            return this;
+        }
+
+        Map<String, Integer> toMap () {
+            return heap.stream().sorted( RANKING ).collect( Collectors.toMap(
+                    Map.Entry::getKey,
+                    Map.Entry::getValue,
+                    (v1, v2) -> v1,
+                    LinkedHashMap::new ) );
+        }
     }
 
     /**
@@ -47,7 +109,7 @@ final class WordCounts {
      *   <li>Finally, breaking ties using alphabetical order.</li>
      * </ol>
      */
-    private static final class WordCountComparator implements Comparator<Map.Entry<String, Integer>> {
+    static final class WordCountComparator implements Comparator<Map.Entry<String, Integer>> {
         @Override
         public int compare (Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
             if ( !a.getValue().equals( b.getValue() ) ) {
@@ -16,13 +16,16 @@ public final class CrawlResult {
 
   private final Map<String, Integer> wordCounts;
   private final int urlsVisited;
+  private final boolean truncatedByDeadline;
 
   /**
-   * Constructs a {@link CrawlResult} with the given word counts and visited URL count.
+   * Constructs a {@link CrawlResult} with the given word counts, visited URL count and deadline
+   * flag.
    */
-  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited) {
+  private CrawlResult(Map<String, Integer> wordCounts, int urlsVisited, boolean truncatedByDeadline) {
     this.wordCounts = wordCounts;
     this.urlsVisited = urlsVisited;
+    this.truncatedByDeadline = truncatedByDeadline;
   }
 
   /**
@@ -56,12 +59,24 @@ public final class CrawlResult {
     return urlsVisited;
   }
 
+  /**
+   * Returns true if the crawl ran out of time and stopped following links before it reached the
+   * max depth.
+   *
+   * <p>When this is true, {@link #getWordCounts()} and {@link #getUrlsVisited()} only cover the
+   * pages that were processed before the deadline.
+   */
+  public boolean isTruncatedByDeadline() {
+    return truncatedByDeadline;
+  }
+
   /**
    * A package-private builder class for constructing web crawl {@link CrawlResult}s.
    */
   public static final class Builder {
     private Map<String, Integer> wordFrequencies = new HashMap<>();
     private int pageCount;
+    private boolean truncatedByDeadline;
 
     /**
      * Sets the word counts. See {@link #getWordCounts()}
@@ -81,17 +96,27 @@ public final class CrawlResult {
       return this;
     }
 
+    /**
+     * Sets whether the crawl was cut short by its deadline. See {@link #isTruncatedByDeadline()}.
+     */
+    @JsonProperty("truncatedByDeadline")
+    public Builder setTruncatedByDeadline(boolean truncatedByDeadline) {
+      this.truncatedByDeadline = truncatedByDeadline;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlResult} from this builder.
      */
     public CrawlResult build() {
-      return new CrawlResult(Collections.unmodifiableMap(wordFrequencies), pageCount);
+      return new CrawlResult(
+          Collections.unmodifiableMap(wordFrequencies), pageCount, truncatedByDeadline);
     }
 
 
   }
 
   public static CrawlResult create(int urlVisited, Map<String, Integer> wordCounts) {
-    return new CrawlResult(wordCounts, urlVisited);
+    return new CrawlResult(wordCounts, urlVisited, false);
   }
 }
@@ -27,6 +27,21 @@ public final class CrawlerConfiguration {
   private final int popularWordCount;
   private final String profileOutputPath;
   private final String resultPath;
+  private final int visitedUrlFingerprintBits;
+  private final int bloomFilterExpectedUrls;
+  private final double bloomFilterFalsePositiveRate;
+  private final List<String> strippedQueryParameters;
+  private final int fetchParallelism;
+  private final int parseParallelism;
+  private final int fetchedPageQueueCapacity;
+  private final int maxRequestsPerHost;
+  private final Duration hostRequestDelay;
+  private final int linkBatchSize;
+  private final boolean streamingParser;
+  private final int parseCacheEntries;
+  private final String pageCacheDirectory;
+  private final int pageCacheMaxMegabytes;
+  private final String pageCacheEviction;
 
   private CrawlerConfiguration(
       List<String> startPages,
@@ -38,7 +53,22 @@ public final class CrawlerConfiguration {
       Duration timeout,
       int popularWordCount,
       String profileOutputPath,
-      String resultPath) {
+      String resultPath,
+      int visitedUrlFingerprintBits,
+      int bloomFilterExpectedUrls,
+      double bloomFilterFalsePositiveRate,
+      List<String> strippedQueryParameters,
+      int fetchParallelism,
+      int parseParallelism,
+      int fetchedPageQueueCapacity,
+      int maxRequestsPerHost,
+      Duration hostRequestDelay,
+      int linkBatchSize,
+      boolean streamingParser,
+      int parseCacheEntries,
+      String pageCacheDirectory,
+      int pageCacheMaxMegabytes,
+      String pageCacheEviction) {
     this.startPages = startPages;
     this.ignoredUrls = ignoredUrls;
     this.ignoredWords = ignoredWords;
@@ -49,6 +79,21 @@ public final class CrawlerConfiguration {
     this.popularWordCount = popularWordCount;
     this.profileOutputPath = profileOutputPath;
     this.resultPath = resultPath;
+    this.visitedUrlFingerprintBits = visitedUrlFingerprintBits;
+    this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+    this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
+    this.strippedQueryParameters = strippedQueryParameters;
+    this.fetchParallelism = fetchParallelism;
+    this.parseParallelism = parseParallelism;
+    this.fetchedPageQueueCapacity = fetchedPageQueueCapacity;
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.hostRequestDelay = hostRequestDelay;
+    this.linkBatchSize = linkBatchSize;
+    this.streamingParser = streamingParser;
+    this.parseCacheEntries = parseCacheEntries;
+    this.pageCacheDirectory = pageCacheDirectory;
+    this.pageCacheMaxMegabytes = pageCacheMaxMegabytes;
+    this.pageCacheEviction = pageCacheEviction;
   }
 
   /**
@@ -174,6 +219,172 @@ public final class CrawlerConfiguration {
     return resultPath;
   }
 
+  /**
+   * The number of bits of each URL hash the crawler keeps to remember which URLs it has visited.
+   * This setting is optional.
+   *
+   * <p>If set to 0, the crawler remembers every visited URL exactly, which takes memory in
+   * proportion to the total length of the URLs. If set to a value between 32 and 64, it only keeps
+   * a fingerprint of that many bits per URL, stored off-heap. After visiting {@code n} URLs, the
+   * probability that a new URL is wrongly skipped as already visited is about
+   * {@code n / 2^bits}: for example, one in 28 million for 48 bits after ten million URLs.
+   */
+  public int getVisitedUrlFingerprintBits() {
+    return visitedUrlFingerprintBits;
+  }
+
+  /**
+   * The number of URLs the Bloom filter in front of the visited URL set is sized for. This setting
+   * is optional, and can only be used together with {@link #getVisitedUrlFingerprintBits()}.
+   *
+   * <p>If set to 0, there is no Bloom filter. Otherwise, every link is first checked against a
+   * lock-free Bloom filter, and a link the filter has never seen is stored in the fingerprint table
+   * without searching it first. The filter's statistics, including its false positive rate and the
+   * lookup rate the crawl saw, are written to the profile output. Once more than this many URLs
+   * have been visited, the false positive rate climbs above
+   * {@link #getBloomFilterFalsePositiveRate()}.
+   */
+  public int getBloomFilterExpectedUrls() {
+    return bloomFilterExpectedUrls;
+  }
+
+  /**
+   * The false positive rate the Bloom filter should have once it holds
+   * {@link #getBloomFilterExpectedUrls()} URLs. Defaults to 0.01.
+   */
+  public double getBloomFilterFalsePositiveRate() {
+    return bloomFilterFalsePositiveRate;
+  }
+
+  /**
+   * An unmodifiable {@link List} of query parameter names that the crawler removes from every link
+   * before following it, such as tracking parameters that do not change the page. A name ending
+   * with {@code *} removes every parameter whose name starts with the rest of it, for example
+   * {@code "utm_*"}.
+   */
+  public List<String> getStrippedQueryParameters() {
+    return strippedQueryParameters;
+  }
+
+  /**
+   * The number of threads that download pages in crawlers that download and parse pages on
+   * separate thread pools, such as {@code com.udacity.webcrawler.PipelinedWebCrawler}. Defaults to
+   * 16.
+   *
+   * <p>Downloading mostly waits on the network, so this can be much higher than the number of CPU
+   * cores.
+   */
+  public int getFetchParallelism() {
+    return fetchParallelism;
+  }
+
+  /**
+   * The number of threads that parse downloaded pages in crawlers that download and parse pages on
+   * separate thread pools. This setting is optional.
+   *
+   * <p>If set to a value less than 1, the crawler uses the number of available CPU cores.
+   */
+  public int getParseParallelism() {
+    return parseParallelism;
+  }
+
+  /**
+   * The number of downloaded pages that may wait to be parsed in crawlers that download and parse
+   * pages on separate thread pools. Defaults to 64.
+   *
+   * <p>Once this many pages are waiting, downloads pause until the parsers catch up, which bounds
+   * the memory that downloaded pages can take.
+   */
+  public int getFetchedPageQueueCapacity() {
+    return fetchedPageQueueCapacity;
+  }
+
+  /**
+   * The maximum number of requests a crawler that schedules downloads per host, such as
+   * {@code com.udacity.webcrawler.PipelinedWebCrawler}, sends to the same host at the same time.
+   * Defaults to 2.
+   *
+   * <p>Local files do not count against any host.
+   */
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  /**
+   * The minimum amount of time between the starts of two requests to the same host, in crawlers
+   * that schedule downloads per host. Defaults to zero.
+   */
+  public Duration getHostRequestDelay() {
+    return hostRequestDelay;
+  }
+
+  /**
+   * The number of links a fork/join crawler, such as
+   * {@code com.udacity.webcrawler.ParallelWebCrawler}, crawls one after the other on the same
+   * worker, instead of splitting them into tasks for other workers to steal. Defaults to 8.
+   *
+   * <p>Larger batches mean fewer tasks for pages with many links. A worker whose own queue is
+   * almost empty still splits smaller batches, so idle workers are not left waiting.
+   */
+  public int getLinkBatchSize() {
+    return linkBatchSize;
+  }
+
+  /**
+   * Whether pages are parsed in a single streaming pass over their HTML, instead of by building
+   * and traversing a Jsoup document. Defaults to false.
+   *
+   * <p>Both parsers find the same words and links on ordinary pages. The streaming parser uses
+   * less memory and time per page, but does not repair broken markup the way a browser would.
+   */
+  public boolean isStreamingParser() {
+    return streamingParser;
+  }
+
+  /**
+   * The number of parsed pages the crawler remembers by the content of the page. This setting is
+   * optional.
+   *
+   * <p>If set to 0, every page is parsed. Otherwise, a page whose bytes are identical to one of the
+   * last this many pages parsed, such as a mirror or the same page under another session ID, reuses
+   * that page's words and links instead of being parsed again, and the cache's hit ratio is written
+   * to the profile output.
+   */
+  public int getParseCacheEntries() {
+    return parseCacheEntries;
+  }
+
+  /**
+   * Path to the directory where downloaded pages are cached between crawls. This setting is
+   * optional.
+   *
+   * <p>If the path is empty, nothing is cached. Otherwise, pages whose server sent an {@code ETag}
+   * or {@code Last-Modified} header are kept in the directory, and the next crawl only downloads
+   * them again if the server says that they changed. The directory is created if it does not
+   * exist, and should not be used for anything else.
+   */
+  public String getPageCacheDirectory() {
+    return pageCacheDirectory;
+  }
+
+  /**
+   * How many megabytes of pages the cache in {@link #getPageCacheDirectory()} may hold. Defaults
+   * to 256.
+   */
+  public int getPageCacheMaxMegabytes() {
+    return pageCacheMaxMegabytes;
+  }
+
+  /**
+   * Which pages to evict from the cache in {@link #getPageCacheDirectory()} once it is full: either
+   * {@code "fifo"}, which evicts the pages that were cached first, or {@code "fifo-second-chance"},
+   * which does the same but keeps the pages the current crawl has used. Which pages earlier crawls
+   * used is not remembered, so this is not LRU. Defaults to {@code "fifo-second-chance"}.
+   */
+  public String getPageCacheEviction() {
+    return pageCacheEviction;
+  }
+
   /**
    * A builder class to create {@link CrawlerConfiguration} instances.
    */
@@ -181,6 +392,7 @@ public final class CrawlerConfiguration {
     private final Set<String> startPages = new LinkedHashSet<>();
     private final Set<String> ignoredUrls = new LinkedHashSet<>();
     private final Set<String> ignoredWords = new LinkedHashSet<>();
+    private final Set<String> strippedQueryParameters = new LinkedHashSet<>();
     private int parallelism = -1;
     private String implementationOverride = "";
     private int maxDepth = 0;
@@ -188,6 +400,20 @@ public final class CrawlerConfiguration {
     private int popularWordCount = 0;
     private String profileOutputPath = "";
     private String resultPath = "";
+    private int visitedUrlFingerprintBits = 0;
+    private int bloomFilterExpectedUrls = 0;
+    private double bloomFilterFalsePositiveRate = 0.01;
+    private int fetchParallelism = 16;
+    private int parseParallelism = -1;
+    private int fetchedPageQueueCapacity = 64;
+    private int maxRequestsPerHost = 2;
+    private int hostRequestDelayMillis = 0;
+    private int linkBatchSize = 8;
+    private boolean streamingParser = false;
+    private int parseCacheEntries = 0;
+    private String pageCacheDirectory = "";
+    private int pageCacheMaxMegabytes = 256;
+    private String pageCacheEviction = "fifo-second-chance";
 
     /**
      * Adds a start page URL.
@@ -236,6 +462,20 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Adds query parameter names that should be removed from links.
+     *
+     * <p>Does nothing if the same name has already been added. See
+     * {@link #getStrippedQueryParameters()}.
+     */
+    @JsonProperty("strippedQueryParameters")
+    public Builder addStrippedQueryParameters(String... names) {
+      for (String name : names) {
+        strippedQueryParameters.add(Objects.requireNonNull(name));
+      }
+      return this;
+    }
+
     /**
      * Sets the desired parallelism of the crawl.
      *
@@ -314,6 +554,160 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the number of bits to keep per visited URL, or 0 to keep the URLs themselves.
+     *
+     * <p>See {@link #getVisitedUrlFingerprintBits()}.
+     */
+    @JsonProperty("visitedUrlFingerprintBits")
+    public Builder setVisitedUrlFingerprintBits(int visitedUrlFingerprintBits) {
+      this.visitedUrlFingerprintBits = visitedUrlFingerprintBits;
+      return this;
+    }
+
+    /**
+     * Sets the number of URLs the Bloom filter should be sized for, or 0 to use no Bloom filter.
+     *
+     * <p>See {@link #getBloomFilterExpectedUrls()}.
+     */
+    @JsonProperty("bloomFilterExpectedUrls")
+    public Builder setBloomFilterExpectedUrls(int bloomFilterExpectedUrls) {
+      this.bloomFilterExpectedUrls = bloomFilterExpectedUrls;
+      return this;
+    }
+
+    /**
+     * Sets the target false positive rate of the Bloom filter.
+     *
+     * <p>See {@link #getBloomFilterFalsePositiveRate()}.
+     */
+    @JsonProperty("bloomFilterFalsePositiveRate")
+    public Builder setBloomFilterFalsePositiveRate(double bloomFilterFalsePositiveRate) {
+      this.bloomFilterFalsePositiveRate = bloomFilterFalsePositiveRate;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads that download pages.
+     *
+     * <p>See {@link #getFetchParallelism()}.
+     */
+    @JsonProperty("fetchParallelism")
+    public Builder setFetchParallelism(int fetchParallelism) {
+      this.fetchParallelism = fetchParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads that parse downloaded pages.
+     *
+     * <p>See {@link #getParseParallelism()}.
+     */
+    @JsonProperty("parseParallelism")
+    public Builder setParseParallelism(int parseParallelism) {
+      this.parseParallelism = parseParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the number of downloaded pages that may wait to be parsed.
+     *
+     * <p>See {@link #getFetchedPageQueueCapacity()}.
+     */
+    @JsonProperty("fetchedPageQueueCapacity")
+    public Builder setFetchedPageQueueCapacity(int fetchedPageQueueCapacity) {
+      this.fetchedPageQueueCapacity = fetchedPageQueueCapacity;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of requests that may be sent to the same host at the same time.
+     *
+     * <p>See {@link #getMaxRequestsPerHost()}.
+     */
+    @JsonProperty("maxRequestsPerHost")
+    public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+      this.maxRequestsPerHost = maxRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets the minimum time between two requests to the same host, specified in milliseconds.
+     *
+     * <p>See {@link #getHostRequestDelay()}.
+     */
+    @JsonProperty("hostRequestDelayMillis")
+    public Builder setHostRequestDelayMillis(int millis) {
+      this.hostRequestDelayMillis = millis;
+      return this;
+    }
+
+    /**
+     * Sets the number of links a fork/join worker crawls one after the other.
+     *
+     * <p>See {@link #getLinkBatchSize()}.
+     */
+    @JsonProperty("linkBatchSize")
+    public Builder setLinkBatchSize(int linkBatchSize) {
+      this.linkBatchSize = linkBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets whether pages are parsed in a single streaming pass.
+     *
+     * <p>See {@link #isStreamingParser()}.
+     */
+    @JsonProperty("streamingParser")
+    public Builder setStreamingParser(boolean streamingParser) {
+      this.streamingParser = streamingParser;
+      return this;
+    }
+
+    /**
+     * Sets the number of parsed pages the crawler remembers by their content.
+     *
+     * <p>See {@link #getParseCacheEntries()}.
+     */
+    @JsonProperty("parseCacheEntries")
+    public Builder setParseCacheEntries(int parseCacheEntries) {
+      this.parseCacheEntries = parseCacheEntries;
+      return this;
+    }
+
+    /**
+     * Sets the path to the directory where downloaded pages are cached between crawls.
+     *
+     * <p>See {@link #getPageCacheDirectory()}.
+     */
+    @JsonProperty("pageCacheDirectory")
+    public Builder setPageCacheDirectory(String pageCacheDirectory) {
+      this.pageCacheDirectory = Objects.requireNonNull(pageCacheDirectory);
+      return this;
+    }
+
+    /**
+     * Sets how many megabytes of pages the page cache may hold.
+     *
+     * <p>See {@link #getPageCacheMaxMegabytes()}.
+     */
+    @JsonProperty("pageCacheMaxMegabytes")
+    public Builder setPageCacheMaxMegabytes(int pageCacheMaxMegabytes) {
+      this.pageCacheMaxMegabytes = pageCacheMaxMegabytes;
+      return this;
+    }
+
+    /**
+     * Sets which pages to evict from the page cache once it is full.
+     *
+     * <p>See {@link #getPageCacheEviction()}.
+     */
+    @JsonProperty("pageCacheEviction")
+    public Builder setPageCacheEviction(String pageCacheEviction) {
+      this.pageCacheEviction = Objects.requireNonNull(pageCacheEviction);
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlerConfiguration} from this builder.
      */
@@ -327,6 +721,46 @@ public final class CrawlerConfiguration {
       if (popularWordCount < 0) {
         throw new IllegalArgumentException("popularWordCount cannot be negative");
       }
+      if (visitedUrlFingerprintBits != 0
+          && (visitedUrlFingerprintBits < 32 || visitedUrlFingerprintBits > 64)) {
+        throw new IllegalArgumentException(
+            "visitedUrlFingerprintBits must be 0 or between 32 and 64");
+      }
+      if (bloomFilterExpectedUrls < 0) {
+        throw new IllegalArgumentException("bloomFilterExpectedUrls cannot be negative");
+      }
+      if (bloomFilterExpectedUrls != 0 && visitedUrlFingerprintBits == 0) {
+        throw new IllegalArgumentException(
+            "bloomFilterExpectedUrls requires visitedUrlFingerprintBits");
+      }
+      if (!(bloomFilterFalsePositiveRate > 0 && bloomFilterFalsePositiveRate < 1)) {
+        throw new IllegalArgumentException("bloomFilterFalsePositiveRate must be between 0 and 1");
+      }
+      if (fetchParallelism <= 0) {
+        throw new IllegalArgumentException("fetchParallelism must be positive");
+      }
+      if (fetchedPageQueueCapacity <= 0) {
+        throw new IllegalArgumentException("fetchedPageQueueCapacity must be positive");
+      }
+      if (maxRequestsPerHost <= 0) {
+        throw new IllegalArgumentException("maxRequestsPerHost must be positive");
+      }
+      if (hostRequestDelayMillis < 0) {
+        throw new IllegalArgumentException("hostRequestDelayMillis cannot be negative");
+      }
+      if (linkBatchSize <= 0) {
+        throw new IllegalArgumentException("linkBatchSize must be positive");
+      }
+      if (parseCacheEntries < 0) {
+        throw new IllegalArgumentException("parseCacheEntries cannot be negative");
+      }
+      if (pageCacheMaxMegabytes <= 0) {
+        throw new IllegalArgumentException("pageCacheMaxMegabytes must be positive");
+      }
+      if (!pageCacheEviction.equals("fifo-second-chance") && !pageCacheEviction.equals("fifo")) {
+        throw new IllegalArgumentException(
+            "pageCacheEviction must be \"fifo-second-chance\" or \"fifo\"");
+      }
 
       return new CrawlerConfiguration(
           startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -338,7 +772,22 @@ public final class CrawlerConfiguration {
           Duration.ofSeconds(timeoutSeconds),
           popularWordCount,
           profileOutputPath,
-          resultPath);
+          resultPath,
+          visitedUrlFingerprintBits,
+          bloomFilterExpectedUrls,
+          bloomFilterFalsePositiveRate,
+          List.copyOf(strippedQueryParameters),
+          fetchParallelism,
+          parseParallelism,
+          fetchedPageQueueCapacity,
+          maxRequestsPerHost,
+          Duration.ofMillis(hostRequestDelayMillis),
+          linkBatchSize,
+          streamingParser,
+          parseCacheEntries,
+          pageCacheDirectory,
+          pageCacheMaxMegabytes,
+          pageCacheEviction);
     }
   }
 }
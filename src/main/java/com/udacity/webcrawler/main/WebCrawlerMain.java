@@ -11,6 +11,7 @@ import com.udacity.webcrawler.profiler.Profiler;
 import com.udacity.webcrawler.profiler.ProfilerModule;
 
 import javax.inject.Inject;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -19,6 +20,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.Set;
 
 public final class WebCrawlerMain {
 
@@ -34,11 +36,22 @@ public final class WebCrawlerMain {
     @Inject
     private Profiler profiler;
 
+    // Resources the crawler holds on to, such as the page cache, which are closed after the crawl.
+    @Inject
+    private Set<Closeable> resources;
+
     private void run () throws Exception {
         Guice.createInjector( new WebCrawlerModule( config ), new ProfilerModule() )
                 .injectMembers( this );
 
-        CrawlResult result = crawler.crawl( config.getStartPages() );
+        CrawlResult result;
+        try {
+            result = crawler.crawl( config.getStartPages() );
+        } finally {
+            for ( Closeable resource : resources ) {
+                resource.close();
+            }
+        }
         CrawlResultWriter resultWriter = new CrawlResultWriter( result );
         // TODO: Write the crawl results to a JSON file (or System.out if the file name is empty)
         String outputPath = config.getResultPath();
@@ -0,0 +1,70 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An {@link InputStream} that reads the remaining bytes of a {@link ByteBuffer}.
+ *
+ * <p>Unlike wrapping {@link ByteBuffer#array()} in a {@link java.io.ByteArrayInputStream}, this
+ * also works for direct and memory-mapped buffers, without copying them to the heap first. Reads
+ * advance the position of the given buffer, so callers should pass in a
+ * {@link ByteBuffer#duplicate()} if they want to read it again.
+ */
+final class ByteBufferInputStream extends InputStream {
+  private final ByteBuffer buffer;
+  // Like ByteArrayInputStream, reset() without a mark goes back to the start.
+  private int mark;
+
+  ByteBufferInputStream(ByteBuffer buffer) {
+    this.buffer = Objects.requireNonNull(buffer);
+    this.mark = buffer.position();
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(len, buffer.remaining());
+    buffer.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) {
+    int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+    buffer.position(buffer.position() + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readLimit) {
+    mark = buffer.position();
+  }
+
+  @Override
+  public void reset() {
+    buffer.position(mark);
+  }
+}
@@ -0,0 +1,84 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * The raw content of a page, as downloaded by a {@link PageFetcher} and before it is parsed.
+ *
+ * <p>A page that could not be downloaded has an empty body, and parses to an empty
+ * {@link PageParser.Result}.
+ *
+ * <p>The body is a read-only {@link ByteBuffer}, which may be a file mapped into memory rather
+ * than a copy of it on the heap.
+ */
+public final class FetchedPage {
+  private static final ByteBuffer NO_BODY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+  private final String url;
+  private final String baseUri;
+  private final ByteBuffer body;
+  private final String charset;
+
+  FetchedPage(String url, String baseUri, byte[] body, String charset) {
+    this(url, baseUri, ByteBuffer.wrap(body), charset);
+  }
+
+  FetchedPage(String url, String baseUri, ByteBuffer body, String charset) {
+    this.url = Objects.requireNonNull(url);
+    this.baseUri = Objects.requireNonNull(baseUri);
+    this.body = body.asReadOnlyBuffer();
+    this.charset = charset;
+  }
+
+  /**
+   * Returns a page for the given URL that could not be downloaded.
+   */
+  static FetchedPage failed(String url) {
+    return new FetchedPage(url, "", NO_BODY, null);
+  }
+
+  /**
+   * Returns the URL the page was requested with.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Returns the number of bytes of the page's body.
+   */
+  public int getSize() {
+    return body.remaining();
+  }
+
+  /**
+   * Returns the URL that relative links on the page are resolved against, which differs from
+   * {@link #getUrl()} if the request was redirected. Empty for local files.
+   */
+  String getBaseUri() {
+    return baseUri;
+  }
+
+  /**
+   * Returns the body of the page, as a read-only buffer of its own.
+   */
+  ByteBuffer getBody() {
+    return body.duplicate();
+  }
+
+  /**
+   * Returns a stream that reads the body of the page straight out of its buffer.
+   */
+  InputStream openBody() {
+    return new ByteBufferInputStream(body.duplicate());
+  }
+
+  /**
+   * Returns the charset the server declared for the body, or null if the parser should detect it.
+   */
+  String getCharset() {
+    return charset;
+  }
+}
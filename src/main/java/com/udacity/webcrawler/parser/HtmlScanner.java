@@ -0,0 +1,572 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * Reads HTML in a single pass and reports its text and the {@code href} of its tags as it goes,
+ * without building a document tree.
+ *
+ * <p>The scanner follows the states of Jsoup's tokenizer wherever they decide what ends up in a
+ * text node or an attribute, so the text it reports is the text of the {@link
+ * org.jsoup.nodes.TextNode}s Jsoup would build: character references are decoded, comments,
+ * doctypes and processing instructions are dropped, the contents of {@code <script>} and
+ * {@code <style>} are skipped, and the contents of {@code <title>}, {@code <textarea>} and the
+ * other raw text elements are text even if they look like tags. It does not repair the tree, so
+ * it can differ from Jsoup on pages that rely on the tree builder moving or dropping elements,
+ * such as an {@code <a>} inside a {@code <select>}.
+ *
+ * <p>Memory use does not depend on the size of the page: the input is read through a fixed
+ * buffer, and long runs of text are reported in pieces that end at whitespace. Only a single tag,
+ * or a single word longer than {@link #MAX_TEXT_RUN}, is ever held in memory as a whole.
+ */
+final class HtmlScanner {
+  private static final int BUFFER_SIZE = 8192;
+  // Runs of text longer than this are reported at the next whitespace.
+  static final int MAX_TEXT_RUN = 4096;
+
+  /**
+   * Receives what a {@link HtmlScanner} finds, in document order.
+   */
+  interface Handler {
+
+    /**
+     * Called with a run of text. A text node may be split into several runs, but only at
+     * whitespace, so the words of the runs are the words of the text node.
+     */
+    void text(String text);
+
+    /**
+     * Called for every start tag with an {@code href} attribute, with the lowercase name of the
+     * tag and the decoded value of its first {@code href}, which is empty if it has no value.
+     */
+    void href(String tagName, String href);
+  }
+
+  private final Reader in;
+  private final Handler handler;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int pos;
+  private int limit;
+  private boolean eof;
+  // The text run being read, and how to decode it once it is complete.
+  private final StringBuilder text = new StringBuilder();
+  private TextMode textMode = TextMode.ESCAPED;
+  // How many characters at the start of the text run have already been decoded.
+  private int decodedLength;
+  private final StringBuilder name = new StringBuilder();
+  private final StringBuilder value = new StringBuilder();
+  // Whether the last tag read ended with "/>".
+  private boolean selfClosing;
+
+  HtmlScanner(Reader in, Handler handler) {
+    this.in = Objects.requireNonNull(in);
+    this.handler = Objects.requireNonNull(handler);
+  }
+
+  /**
+   * Reads the input to its end, and reports everything in it to the handler.
+   */
+  void scan() throws IOException {
+    while (true) {
+      if (pos == limit && !fill(0)) {
+        break;
+      }
+      int start = pos;
+      while (pos < limit && buffer[pos] != '<') {
+        pos++;
+      }
+      appendText(start, pos);
+      if (pos < limit) {
+        pos++;
+        tagOpen();
+      }
+    }
+    flushText();
+  }
+
+  private void tagOpen() throws IOException {
+    int c = peek(0);
+    if (c == '!') {
+      pos++;
+      markupDeclaration();
+    } else if (c == '/') {
+      pos++;
+      endTagOpen();
+    } else if (c == '?') {
+      flushText();
+      skipPast('>');
+    } else if (isAsciiLetter(c)) {
+      flushText();
+      String tagName = tag(true);
+      // Jsoup takes a self-closing <script/> or <title/> to be empty, as if closed right away.
+      if (tagName != null && !selfClosing) {
+        afterStartTag(tagName);
+      }
+    } else {
+      text.append('<');
+    }
+  }
+
+  private void endTagOpen() throws IOException {
+    int c = peek(0);
+    if (c < 0) {
+      text.append("</");
+    } else if (isAsciiLetter(c)) {
+      flushText();
+      tag(false);
+    } else if (c == '>') {
+      // Jsoup drops it without ending the text node, but a character reference cannot span it.
+      decodeText();
+      pos++;
+    } else {
+      flushText();
+      skipPast('>');
+    }
+  }
+
+  private void markupDeclaration() throws IOException {
+    flushText();
+    if (matches("--", false)) {
+      pos += 2;
+      comment();
+    } else if (matches("doctype", true)) {
+      skipPast('>');
+    } else if (matches("[CDATA[", false)) {
+      pos += 7;
+      // Jsoup keeps CDATA sections of HTML pages as text, without decoding or normalizing it.
+      textMode = TextMode.CDATA;
+      while (peek(0) >= 0 && !matches("]]>", false)) {
+        appendText((char) read());
+      }
+      flushText();
+      pos = Math.min(pos + 3, limit);
+    } else {
+      skipPast('>');
+    }
+  }
+
+  private void comment() throws IOException {
+    if (peek(0) == '>') {
+      pos++;
+      return;
+    }
+    if (peek(0) == '-' && peek(1) == '>') {
+      pos += 2;
+      return;
+    }
+    int c;
+    while ((c = read()) >= 0) {
+      if (c != '-' || peek(0) != '-') {
+        continue;
+      }
+      if (peek(1) == '>') {
+        pos += 2;
+        return;
+      }
+      if (peek(1) == '!' && peek(2) == '>') {
+        pos += 3;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reads the rest of a tag whose first letter is next, and reports its {@code href} if it is a
+   * start tag. Returns the lowercase name of the tag, or null if the input ended inside it, in
+   * which case Jsoup drops the tag.
+   */
+  private String tag(boolean start) throws IOException {
+    name.setLength(0);
+    int c;
+    while ((c = peek(0)) >= 0 && !isWhitespace(c) && c != '/' && c != '>' && c != '<') {
+      name.append(Character.toLowerCase((char) c));
+      pos++;
+    }
+    String tagName = name.toString();
+    String href = null;
+    // Whether the last attribute has no value and was followed by whitespace, in which case a '<'
+    // starts another attribute rather than the next tag.
+    boolean afterAttributeName = false;
+    selfClosing = false;
+    while (true) {
+      c = read();
+      if (c < 0) {
+        return null;
+      } else if (isWhitespace(c)) {
+        selfClosing = false;
+        continue;
+      } else if (c == '/') {
+        afterAttributeName = false;
+        selfClosing = true;
+        continue;
+      } else if (c == '<' && !afterAttributeName) {
+        // Not in the spec, but Jsoup ends the tag here and starts the next one.
+        pos--;
+        break;
+      } else if (c == '>') {
+        break;
+      }
+      selfClosing = false;
+      // An attribute. Its name starts with this character, even if it is a quote or '='.
+      name.setLength(0);
+      name.append(Character.toLowerCase((char) c));
+      while ((c = peek(0)) >= 0 && !isWhitespace(c) && c != '/' && c != '=' && c != '>') {
+        name.append(Character.toLowerCase((char) c));
+        pos++;
+      }
+      afterAttributeName = isWhitespace(c);
+      skipWhitespace();
+      String attributeValue = "";
+      boolean endOfInput = false;
+      if (peek(0) == '=') {
+        afterAttributeName = false;
+        pos++;
+        skipWhitespace();
+        // Unlike anywhere else in a tag, Jsoup keeps a tag that ends right after an '='.
+        endOfInput = peek(0) < 0;
+        attributeValue = endOfInput ? "" : attributeValue();
+        if (attributeValue == null) {
+          return null;
+        }
+      }
+      if (start && href == null && name.toString().trim().equals("href")) {
+        href = attributeValue;
+      }
+      if (endOfInput) {
+        break;
+      }
+    }
+    if (href != null) {
+      handler.href(tagName, href);
+    }
+    return tagName;
+  }
+
+  /**
+   * Reads an attribute value after its '=', or returns null if the input ended inside it.
+   */
+  private String attributeValue() throws IOException {
+    value.setLength(0);
+    int quote = peek(0);
+    if (quote == '"' || quote == '\'') {
+      pos++;
+      int c;
+      while ((c = read()) != quote) {
+        if (c < 0) {
+          return null;
+        }
+        value.append((char) c);
+      }
+    } else {
+      int c;
+      while ((c = peek(0)) >= 0 && !isWhitespace(c) && c != '>') {
+        value.append((char) c);
+        pos++;
+      }
+    }
+    String raw = value.toString();
+    return raw.indexOf('&') < 0 ? raw : Parser.unescapeEntities(raw, true);
+  }
+
+  private void afterStartTag(String tagName) throws IOException {
+    switch (tagName) {
+      case "script":
+      case "style":
+        // Jsoup keeps their contents as data, not text.
+        skipToEndTag(tagName, null);
+        break;
+      case "title":
+      case "textarea":
+        skipToEndTag(tagName, TextMode.ESCAPED);
+        break;
+      case "xmp":
+      case "iframe":
+      case "noembed":
+      case "noframes":
+        skipToEndTag(tagName, TextMode.RAW);
+        break;
+      case "plaintext":
+        // Everything after it is text, tags included.
+        textMode = TextMode.RAW;
+        int c;
+        while ((c = read()) >= 0) {
+          appendText((char) c);
+        }
+        flushText();
+        break;
+      default:
+        break;
+    }
+  }
+
+  private enum TextMode {
+    // Text with character references, as in the body of a page.
+    ESCAPED,
+    // Text taken as it is, as in a <xmp>.
+    RAW,
+    // A CDATA section, which Jsoup does not even normalize.
+    CDATA
+  }
+
+  /**
+   * Reads up to and including the end tag of the given element, and reports what was in between
+   * as text, or skips it if {@code mode} is null.
+   */
+  private void skipToEndTag(String tagName, TextMode mode) throws IOException {
+    if (mode != null) {
+      textMode = mode;
+    }
+    while (true) {
+      int c = read();
+      if (c < 0) {
+        break;
+      }
+      if (c == '<' && peek(0) == '/' && matchesAt(1, tagName, true)) {
+        int after = peek(1 + tagName.length());
+        if (isWhitespace(after) || after == '/' || after == '>') {
+          pos++;
+          tag(false);
+          break;
+        }
+      }
+      if (mode != null) {
+        appendText((char) c);
+      }
+    }
+    flushText();
+  }
+
+  private void appendText(int start, int end) {
+    while (start < end) {
+      // Fill the run up to its limit at most, unless it is a single word that cannot be split.
+      int room = MAX_TEXT_RUN - text.length();
+      int n = room > 0 ? Math.min(end - start, room) : end - start;
+      text.append(buffer, start, n);
+      start += n;
+      if (text.length() >= MAX_TEXT_RUN) {
+        splitText();
+      }
+    }
+  }
+
+  private void appendText(char c) {
+    text.append(c);
+    if (text.length() >= MAX_TEXT_RUN && isWhitespace(c)) {
+      splitText();
+    }
+  }
+
+  /**
+   * Reports the text run up to its last whitespace, and keeps the rest. A character reference
+   * never contains whitespace, so it is never split.
+   */
+  private void splitText() {
+    int split = text.length() - 1;
+    while (split > 0 && !isWhitespace(text.charAt(split))) {
+      split--;
+    }
+    if (split > 0) {
+      emitText(split);
+      text.delete(0, split);
+      decodedLength = Math.max(0, decodedLength - split);
+    }
+  }
+
+  /**
+   * Decodes the character references in the text run so far, so that none of them can continue
+   * past this point.
+   */
+  private void decodeText() {
+    if (textMode == TextMode.ESCAPED && text.indexOf("&", decodedLength) >= 0) {
+      String decoded = unescape(text.substring(decodedLength));
+      text.replace(decodedLength, text.length(), decoded);
+    }
+    decodedLength = text.length();
+  }
+
+  /**
+   * Reports the text run, and starts a new one in the body of the page.
+   */
+  private void flushText() {
+    if (text.length() > 0) {
+      emitText(text.length());
+      text.setLength(0);
+    }
+    decodedLength = 0;
+    textMode = TextMode.ESCAPED;
+  }
+
+  /**
+   * Reports the first {@code end} characters of the text run.
+   */
+  private void emitText(int end) {
+    String run = text.substring(0, end);
+    if (textMode == TextMode.CDATA) {
+      handler.text(run);
+      return;
+    }
+    int decoded = Math.min(decodedLength, end);
+    if (textMode == TextMode.ESCAPED && run.indexOf('&', decoded) >= 0) {
+      run = run.substring(0, decoded) + unescape(run.substring(decoded));
+    }
+    if (run.equals("\0")) {
+      // Jsoup drops text that is nothing but a null character.
+      return;
+    }
+    // Jsoup's TextNode#text() turns non-breaking spaces into plain ones.
+    handler.text(run.replace('\u00A0', ' '));
+  }
+
+  /**
+   * Decodes the character references in the given text exactly like Jsoup does in the body of a
+   * page. Parser#unescapeEntities does the same, but sets up a whole tokenizer for every call, so
+   * it is only used for the references this method does not decode itself.
+   */
+  static String unescape(String run) {
+    int amp = run.indexOf('&');
+    if (amp < 0) {
+      return run;
+    }
+    StringBuilder out = new StringBuilder(run.length());
+    int copied = 0;
+    while (amp >= 0) {
+      out.append(run, copied, amp);
+      int i = amp + 1;
+      int c = i < run.length() ? run.charAt(i) : -1;
+      if (c == '#') {
+        i++;
+        boolean hex = i < run.length() && (run.charAt(i) == 'x' || run.charAt(i) == 'X');
+        if (hex) {
+          i++;
+        }
+        int digits = i;
+        while (i < run.length() && Character.digit(run.charAt(i), hex ? 16 : 10) >= 0
+            && run.charAt(i) < 0x80) {
+          i++;
+        }
+        if (i == digits) {
+          // Not a reference after all.
+          out.append('&');
+          copied = amp + 1;
+        } else {
+          int codePoint = i - digits > 7
+              ? Integer.MAX_VALUE
+              : Integer.parseInt(run.substring(digits, i), hex ? 16 : 10);
+          if (codePoint >= 0x80 && codePoint <= 0x9f) {
+            // Mapped as if it was windows-1252. Leave that to Jsoup.
+            return Parser.unescapeEntities(run, false);
+          }
+          boolean valid = codePoint <= 0x10ffff && (codePoint < 0xd800 || codePoint > 0xdfff);
+          out.appendCodePoint(valid ? codePoint : 0xfffd);
+          copied = i < run.length() && run.charAt(i) == ';' ? i + 1 : i;
+        }
+      } else {
+        // Jsoup only looks up the longest run of letters and then digits after the '&'.
+        while (i < run.length() && Character.isLetter(run.charAt(i))) {
+          i++;
+        }
+        while (i < run.length() && run.charAt(i) >= '0' && run.charAt(i) <= '9') {
+          i++;
+        }
+        String name = run.substring(amp + 1, i);
+        boolean semicolon = i < run.length() && run.charAt(i) == ';';
+        if (Entities.isBaseNamedEntity(name) || (semicolon && Entities.isNamedEntity(name))) {
+          out.append(Entities.getByName(name));
+          copied = semicolon ? i + 1 : i;
+        } else {
+          out.append('&');
+          copied = amp + 1;
+        }
+      }
+      amp = run.indexOf('&', copied);
+    }
+    return out.append(run, copied, run.length()).toString();
+  }
+
+  private int read() throws IOException {
+    int c = peek(0);
+    if (c >= 0) {
+      pos++;
+    }
+    return c;
+  }
+
+  /**
+   * Returns the character {@code ahead} characters past the next one, or -1 past the end of the
+   * input. Looking ahead further than a tag name is not supported.
+   */
+  private int peek(int ahead) throws IOException {
+    if (pos + ahead >= limit && !fill(ahead)) {
+      return -1;
+    }
+    return buffer[pos + ahead];
+  }
+
+  /**
+   * Moves the unread characters to the front of the buffer and reads more, until at least
+   * {@code ahead + 1} are buffered. Returns false if the input ends before that.
+   */
+  private boolean fill(int ahead) throws IOException {
+    if (pos > 0) {
+      System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+      limit -= pos;
+      pos = 0;
+    }
+    while (!eof && limit <= ahead) {
+      int n = in.read(buffer, limit, buffer.length - limit);
+      if (n < 0) {
+        eof = true;
+      } else {
+        limit += n;
+      }
+    }
+    return limit > ahead;
+  }
+
+  private boolean matches(String s, boolean ignoreCase) throws IOException {
+    return matchesAt(0, s, ignoreCase);
+  }
+
+  private boolean matchesAt(int offset, String s, boolean ignoreCase) throws IOException {
+    for (int i = 0; i < s.length(); i++) {
+      int c = peek(offset + i);
+      if (c < 0) {
+        return false;
+      }
+      char expected = s.charAt(i);
+      if (ignoreCase
+          ? Character.toLowerCase((char) c) != Character.toLowerCase(expected)
+          : c != expected) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void skipPast(char end) throws IOException {
+    int c;
+    do {
+      c = read();
+    } while (c >= 0 && c != end);
+  }
+
+  private void skipWhitespace() throws IOException {
+    while (isWhitespace(peek(0))) {
+      pos++;
+    }
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  private static boolean isAsciiLetter(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+}
@@ -0,0 +1,208 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link IgnoredWords} patterns, compiled so that each token is checked once instead of once
+ * per pattern.
+ *
+ * <p>Patterns that only match a single literal word, such as {@code "the"}, {@code "^the$"} or
+ * {@code "\\Qthe\\E"}, go into a hash set. All other patterns are joined into one alternation,
+ * except for the few that cannot be joined safely (patterns with flags or back-references), which
+ * are still matched one by one.
+ *
+ * <p>A token is ignored if and only if at least one of the original patterns
+ * {@link Matcher#matches() matches} the entire token.
+ */
+final class IgnoredWordFilter {
+  private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  private final LiteralSet literals;
+  private final List<Pattern> patterns;
+
+  private IgnoredWordFilter(LiteralSet literals, List<Pattern> patterns) {
+    this.literals = literals;
+    this.patterns = patterns;
+  }
+
+  /**
+   * Compiles the given ignored word patterns.
+   */
+  static IgnoredWordFilter compile(List<Pattern> ignoredWords) {
+    List<String> literals = new ArrayList<>();
+    List<Pattern> joinable = new ArrayList<>();
+    List<Pattern> patterns = new ArrayList<>();
+    for (Pattern pattern : ignoredWords) {
+      String literal = pattern.flags() == 0 ? literalOf(pattern.pattern()) : null;
+      if (literal != null) {
+        literals.add(literal);
+      } else if (pattern.flags() == 0 && !hasBackReference(pattern.pattern())) {
+        joinable.add(pattern);
+      } else {
+        patterns.add(pattern);
+      }
+    }
+
+    if (joinable.size() == 1) {
+      patterns.add(joinable.get(0));
+    } else if (!joinable.isEmpty()) {
+      // Inline flags such as (?i) only apply until the end of the group that contains them, so
+      // wrapping every pattern in its own group keeps them independent.
+      String alternation = joinable.stream()
+          .map(p -> "(?:" + p.pattern() + ")")
+          .collect(Collectors.joining("|"));
+      try {
+        patterns.add(Pattern.compile(alternation));
+      } catch (PatternSyntaxException e) {
+        // For example, two patterns that declare the same named group.
+        patterns.addAll(joinable);
+      }
+    }
+    return new IgnoredWordFilter(new LiteralSet(literals), List.copyOf(patterns));
+  }
+
+  /**
+   * Returns a new {@link Checker}. Checkers reuse their {@link Matcher}s, so each thread needs its
+   * own.
+   */
+  Checker newChecker() {
+    return new Checker();
+  }
+
+  /**
+   * Tests tokens against the compiled patterns.
+   */
+  final class Checker {
+    private final Matcher[] matchers = new Matcher[patterns.size()];
+
+    private Checker() {
+      for (int i = 0; i < matchers.length; i++) {
+        matchers[i] = patterns.get(i).matcher("");
+      }
+    }
+
+    /**
+     * Returns true if any of the ignored word patterns matches the entire token.
+     */
+    boolean isIgnored(CharSequence token) {
+      if (literals.contains(token)) {
+        return true;
+      }
+      for (Matcher matcher : matchers) {
+        if (matcher.reset(token).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns true if no pattern can ever match a token.
+   */
+  boolean isEmpty() {
+    return literals.isEmpty() && patterns.isEmpty();
+  }
+
+  /**
+   * Returns the only word the given regular expression matches, or null if it can match anything
+   * else.
+   */
+  private static String literalOf(String regex) {
+    String body = regex;
+    if (body.startsWith("^")) {
+      body = body.substring(1);
+    }
+    if (body.endsWith("$") && !isEscaped(body, body.length() - 1)) {
+      body = body.substring(0, body.length() - 1);
+    }
+    if (body.startsWith("\\Q") && body.endsWith("\\E") && body.length() >= 4) {
+      String quoted = body.substring(2, body.length() - 2);
+      return quoted.contains("\\E") ? null : quoted;
+    }
+    for (int i = 0; i < body.length(); i++) {
+      if (METACHARACTERS.indexOf(body.charAt(i)) >= 0) {
+        return null;
+      }
+    }
+    return body;
+  }
+
+  private static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    while (index - backslashes > 0 && regex.charAt(index - backslashes - 1) == '\\') {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  /**
+   * Returns true if the regular expression refers back to one of its own groups, which would refer
+   * to a different group once it is part of a bigger pattern.
+   */
+  private static boolean hasBackReference(String regex) {
+    for (int i = 0; i < regex.length() - 1; i++) {
+      if (regex.charAt(i) == '\\') {
+        char next = regex.charAt(i + 1);
+        if ((next >= '1' && next <= '9') || next == 'k') {
+          return true;
+        }
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * An open-addressing set of literal words that can be probed with any {@link CharSequence},
+   * without turning it into a {@link String} first.
+   */
+  private static final class LiteralSet {
+    private final String[] table;
+    private final int mask;
+    private int size;
+
+    LiteralSet(List<String> words) {
+      int capacity = Integer.highestOneBit(Math.max(1, words.size()) * 2) << 1;
+      this.table = new String[capacity];
+      this.mask = capacity - 1;
+      for (String word : words) {
+        int slot = spread(word.hashCode()) & mask;
+        while (table[slot] != null && !table[slot].equals(word)) {
+          slot = (slot + 1) & mask;
+        }
+        if (table[slot] == null) {
+          table[slot] = word;
+          size++;
+        }
+      }
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    boolean contains(CharSequence token) {
+      // Same hash as String#hashCode(), so literals and tokens land in the same slot.
+      int hash = 0;
+      for (int i = 0; i < token.length(); i++) {
+        hash = 31 * hash + token.charAt(i);
+      }
+      for (int slot = spread(hash) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+        if (table[slot].contentEquals(token)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int spread(int h) {
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -0,0 +1,642 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * A cache of downloaded pages on disk, kept between crawls, so that a page can be revalidated with
+ * a conditional request instead of being downloaded again.
+ *
+ * <p>Only pages with an {@code ETag} or {@code Last-Modified} validator are cached. Their bodies
+ * are appended to segment files, and what is known about each page, including where its body is,
+ * is appended to an index log. When a URL is cached again, the new index record replaces the old
+ * one, and the old body is garbage until its segment is evicted. Neither file is ever rewritten in
+ * place, so a crawl that dies halfway leaves at most a torn record at the end of the index, which
+ * is dropped the next time the cache is opened.
+ *
+ * <p>Once the segments hold more than the maximum size, the oldest segment is deleted. With the
+ * {@link Eviction#FIFO_SECOND_CHANCE} policy, the pages in it that were used since the cache was
+ * opened are first copied into the newest segment, so that only pages the current crawl has not
+ * visited fall out of the cache. Use is not recorded on disk, so this is not LRU: a page that every
+ * crawl visits is kept, but among the pages the current crawl has not visited yet, the oldest ones
+ * are evicted first, however recently an earlier crawl used them.
+ *
+ * <p>This class is thread-safe. Its lock is only held to reserve space for a body and to publish
+ * the entry once the body is written, so threads write and read bodies at the same time. A lock
+ * file keeps other processes from opening the same cache while it is open.
+ */
+final class PageCache implements Closeable {
+  /**
+   * A cache that never has a page, and stores nothing.
+   */
+  static final PageCache DISABLED = new PageCache();
+
+  private static final String INDEX_FILE = "index.log";
+  private static final String LOCK_FILE = "lock";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+  // The cache is split into about this many segments, which are the unit of eviction.
+  private static final int SEGMENTS = 8;
+  private static final long MIN_SEGMENT_BYTES = 64 * 1024;
+  private static final int INDEX_RECORD_MAGIC = 0x50474931;
+
+  /**
+   * Which pages to evict once the cache is full.
+   */
+  enum Eviction {
+    /**
+     * Evicts the pages that were cached first.
+     */
+    FIFO,
+    /**
+     * Evicts the pages that were cached first, but gives the pages used since the cache was opened
+     * a second chance, by moving them to the newest segment.
+     */
+    FIFO_SECOND_CHANCE
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+  private final long segmentBytes;
+  private final Eviction eviction;
+  // All guarded by "this".
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private long totalBytes;
+  // Set while the cache is opened. Appends to the index are serialized on the index itself.
+  private FileChannel index;
+  private FileChannel lockFile;
+
+  private final LongAdder conditionalRequests = new LongAdder();
+  private final LongAdder notModified = new LongAdder();
+
+  private PageCache() {
+    this.directory = null;
+    this.maxBytes = 0;
+    this.segmentBytes = 0;
+    this.eviction = Eviction.FIFO;
+  }
+
+  private PageCache(Path directory, long maxBytes, Eviction eviction) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, maxBytes / SEGMENTS);
+    this.eviction = eviction;
+  }
+
+  /**
+   * Opens the cache in the given directory, which is created if it does not exist yet.
+   *
+   * @param directory the directory that holds the cache's files, and nothing else.
+   * @param maxBytes  how many bytes of page bodies the cache may hold.
+   * @param eviction  which pages to evict once the cache holds {@code maxBytes}.
+   * @throws IOException if the directory cannot be created, or its files cannot be opened.
+   */
+  static PageCache open(Path directory, long maxBytes, Eviction eviction) throws IOException {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    PageCache cache = new PageCache(directory, maxBytes, Objects.requireNonNull(eviction));
+    Files.createDirectories(directory);
+    try {
+      cache.lock();
+      cache.load();
+    } catch (IOException | RuntimeException e) {
+      cache.close();
+      throw e;
+    }
+    return cache;
+  }
+
+  /**
+   * Takes an exclusive lock on the cache directory, which is held until the cache is closed.
+   *
+   * @throws IOException if another cache holds the lock, in this process or another one.
+   */
+  private void lock() throws IOException {
+    lockFile = FileChannel.open(
+        directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = lockFile.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      throw new IOException("The page cache in " + directory + " is already in use");
+    }
+  }
+
+  private synchronized void load() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(
+        directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        long id;
+        try {
+          id = Long.parseLong(
+              name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        Segment segment = new Segment(id, file);
+        segments.put(id, segment);
+        totalBytes += segment.size;
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.put(1L, new Segment(1, segmentPath(1)));
+    }
+
+    // Replay the index. A later record for a URL replaces an earlier one, and records for bodies
+    // that are no longer on disk are dropped.
+    Path indexPath = directory.resolve(INDEX_FILE);
+    long records = 0;
+    if (Files.exists(indexPath)) {
+      for (Entry entry : readIndex(indexPath)) {
+        records++;
+        Segment segment = segments.get(entry.segment);
+        if (segment != null && entry.offset + entry.length <= segment.size) {
+          entries.put(entry.url, entry);
+        } else {
+          entries.remove(entry.url);
+        }
+      }
+    }
+    if (records > 2L * entries.size() + 64) {
+      // Mostly replaced or evicted records. Start the index over with just the live ones.
+      Path compacted = directory.resolve(INDEX_FILE + ".tmp");
+      try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        for (Entry entry : entries.values()) {
+          writeFully(out, ByteBuffer.wrap(indexRecord(entry)));
+        }
+      }
+      Files.move(compacted, indexPath, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    finishEviction(evict());
+  }
+
+  /**
+   * Reads every intact record in the index, and truncates it after the last one.
+   */
+  private static List<Entry> readIndex(Path indexPath) throws IOException {
+    List<Entry> records = new ArrayList<>();
+    byte[] bytes = Files.readAllBytes(indexPath);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int end = 0;
+    try {
+      while (end < bytes.length) {
+        if (in.readInt() != INDEX_RECORD_MAGIC) {
+          break;
+        }
+        int length = in.readInt();
+        if (length < 0 || length > bytes.length - end) {
+          break;
+        }
+        byte[] payload = in.readNBytes(length);
+        if (payload.length != length || in.readInt() != crc(payload, 0, length)) {
+          break;
+        }
+        records.add(Entry.read(new DataInputStream(new ByteArrayInputStream(payload))));
+        end += 12 + length;
+      }
+    } catch (IOException e) {
+      // A torn record at the end, from a crawl that did not finish writing it.
+    }
+    if (end < bytes.length) {
+      try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+        channel.truncate(end);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Returns what is cached about the page at the given URL, or null if it is not cached.
+   */
+  synchronized Entry get(String url) {
+    Entry entry = entries.get(url);
+    if (entry != null) {
+      entry.used = true;
+      conditionalRequests.increment();
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the cached body of the given entry, after its server said that it was not modified, or
+   * null if the body can no longer be read.
+   */
+  ByteBuffer read(Entry entry) {
+    FileChannel channel;
+    synchronized (this) {
+      Segment segment = segments.get(entry.segment);
+      if (segment == null || entries.get(entry.url) != entry) {
+        return null;
+      }
+      channel = segment.channel;
+    }
+    try {
+      ByteBuffer body = ByteBuffer.allocate(entry.length);
+      while (body.hasRemaining()) {
+        if (channel.read(body, entry.offset + body.position()) < 0) {
+          return null;
+        }
+      }
+      if (crc(body.array(), 0, entry.length) != entry.crc) {
+        synchronized (this) {
+          entries.remove(entry.url, entry);
+        }
+        return null;
+      }
+      notModified.increment();
+      return body.flip();
+    } catch (IOException e) {
+      // The segment was evicted while it was being read, or the disk failed.
+      return null;
+    }
+  }
+
+  /**
+   * Caches the body of the page at the given URL, with the validators its server sent.
+   *
+   * <p>Failures to write to disk are ignored: the page is then just not cached.
+   *
+   * @param etag         the {@code ETag} header of the response, or null if there was none.
+   * @param lastModified the {@code Last-Modified} header of the response, or null if there was
+   *                     none.
+   */
+  void put(
+      String url,
+      String baseUri,
+      String charset,
+      String etag,
+      String lastModified,
+      ByteBuffer body) {
+    if (directory == null
+        || (etag == null && lastModified == null)
+        || body.remaining() > maxBytes) {
+      return;
+    }
+    byte[] array = new byte[body.remaining()];
+    body.duplicate().get(array);
+    Entry entry = new Entry(url, baseUri, charset, etag, lastModified);
+    entry.used = true;
+    try {
+      store(entry, array, false);
+    } catch (IOException e) {
+      // A header or URL too long to write, or a disk that failed. The page is just not cached.
+    }
+  }
+
+  /**
+   * Appends the given body to the newest segment and the entry to the index, and then makes the
+   * entry visible, unless it is a copy made by eviction and the page was cached again meanwhile.
+   * If the entry cannot be stored, the page is no longer cached at all.
+   */
+  private void store(Entry entry, byte[] body, boolean copy) throws IOException {
+    entry.length = body.length;
+    entry.crc = crc(body, 0, body.length);
+    Segment segment;
+    synchronized (this) {
+      segment = reserve(entry);
+    }
+    boolean stored = false;
+    try {
+      byte[] record = indexRecord(entry);
+      writeFully(segment.channel, ByteBuffer.wrap(body), entry.offset);
+      // The record only goes to the index once the body it points to is written.
+      synchronized (index) {
+        writeFully(index, ByteBuffer.wrap(record));
+      }
+      stored = true;
+    } finally {
+      List<Evicted> evicted;
+      synchronized (this) {
+        segment.pendingWrites--;
+        if (stored && segments.get(segment.id) == segment) {
+          if (copy) {
+            entries.putIfAbsent(entry.url, entry);
+          } else {
+            entries.put(entry.url, entry);
+          }
+        } else if (!copy) {
+          entries.remove(entry.url);
+        }
+        evicted = evict();
+      }
+      finishEviction(evicted);
+    }
+  }
+
+  /**
+   * Reserves room for the body of the given entry at the end of the newest segment, starting a
+   * new segment if it is full, and records where the body goes in the entry.
+   */
+  private Segment reserve(Entry entry) throws IOException {
+    Segment segment = segments.lastEntry().getValue();
+    if (segment.size > 0 && segment.size + entry.length > segmentBytes) {
+      long id = segment.id + 1;
+      segment = new Segment(id, segmentPath(id));
+      segments.put(id, segment);
+    }
+    entry.segment = segment.id;
+    entry.offset = segment.size;
+    segment.size += entry.length;
+    segment.pendingWrites++;
+    totalBytes += entry.length;
+    return segment;
+  }
+
+  /**
+   * Takes the oldest segments out of the cache until it is back under its maximum size, and
+   * returns them, with the entries that should be copied out of them, for
+   * {@link #finishEviction(List)}. A segment that is still being written to stays until the last
+   * of its writers is done, who then evicts it.
+   */
+  private List<Evicted> evict() {
+    List<Evicted> evicted = new ArrayList<>();
+    while (totalBytes > maxBytes && segments.size() > 1) {
+      Segment oldest = segments.firstEntry().getValue();
+      if (oldest.pendingWrites > 0) {
+        break;
+      }
+      segments.pollFirstEntry();
+      totalBytes -= oldest.size;
+      List<Entry> kept = new ArrayList<>();
+      entries.values().removeIf(entry -> {
+        if (entry.segment != oldest.id) {
+          return false;
+        }
+        if (eviction == Eviction.FIFO_SECOND_CHANCE && entry.used) {
+          kept.add(entry);
+        }
+        return true;
+      });
+      evicted.add(new Evicted(oldest, kept));
+    }
+    return evicted;
+  }
+
+  /**
+   * Copies the kept entries out of the given evicted segments, and then deletes them. Runs
+   * without the cache's lock.
+   */
+  private void finishEviction(List<Evicted> evicted) {
+    for (Evicted segment : evicted) {
+      try {
+        for (Entry entry : segment.kept) {
+          ByteBuffer body = ByteBuffer.allocate(entry.length);
+          while (body.hasRemaining()
+              && segment.segment.channel.read(body, entry.offset + body.position()) >= 0) {
+            // Keep reading until the whole body is read.
+          }
+          if (!body.hasRemaining()) {
+            Entry copy = new Entry(
+                entry.url, entry.baseUri, entry.charset, entry.etag, entry.lastModified);
+            // Copies start out unused, so that one eviction never copies the same page twice,
+            // even if the crawl uses more pages than fit in the cache.
+            store(copy, body.array(), true);
+          }
+        }
+      } catch (IOException e) {
+        // The remaining pages of the segment are not kept.
+      }
+      try {
+        segment.segment.channel.close();
+        Files.deleteIfExists(segment.segment.path);
+      } catch (IOException e) {
+        // The file is left behind, and deleted with its segment the next time.
+      }
+    }
+  }
+
+  /**
+   * Returns the number of pages in the cache.
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of bytes in the cache's segments, including replaced bodies that have not
+   * been evicted yet.
+   */
+  synchronized long totalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * Registers this cache's statistics with the given profiler, under {@code pageCache.*}.
+   */
+  void recordStatistics(Profiler profiler) {
+    profiler.recordStatistic("pageCache.entries", () -> String.valueOf(size()));
+    profiler.recordStatistic(
+        "pageCache.conditionalRequests", () -> String.valueOf(conditionalRequests.sum()));
+    profiler.recordStatistic("pageCache.notModified", () -> String.valueOf(notModified.sum()));
+  }
+
+  /**
+   * Closes the cache's files, and releases its directory for other crawlers. Pages that are being
+   * written at the same time are not cached.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    for (Segment segment : segments.values()) {
+      segment.channel.close();
+    }
+    if (index != null) {
+      index.close();
+    }
+    if (lockFile != null) {
+      // Also releases the lock.
+      lockFile.close();
+    }
+  }
+
+  private Path segmentPath(long id) {
+    return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+  }
+
+  private static byte[] indexRecord(Entry entry) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    entry.write(new DataOutputStream(payload));
+    byte[] bytes = payload.toByteArray();
+    ByteArrayOutputStream record = new ByteArrayOutputStream(bytes.length + 12);
+    DataOutputStream out = new DataOutputStream(record);
+    out.writeInt(INDEX_RECORD_MAGIC);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+    out.writeInt(crc(bytes, 0, bytes.length));
+    return record.toByteArray();
+  }
+
+  private static int crc(byte[] bytes, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, offset, length);
+    return (int) crc.getValue();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+
+  /**
+   * What the cache knows about a page: where its body is, and how to revalidate it.
+   */
+  static final class Entry {
+    private final String url;
+    private final String baseUri;
+    private final String charset;
+    private final String etag;
+    private final String lastModified;
+    // Set once, when the body is appended, before the entry is shared.
+    private long segment;
+    private long offset;
+    private int length;
+    private int crc;
+    // Guarded by the cache.
+    private boolean used;
+
+    private Entry(String url, String baseUri, String charset, String etag, String lastModified) {
+      this.url = Objects.requireNonNull(url);
+      this.baseUri = Objects.requireNonNull(baseUri);
+      this.charset = charset;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the URL that relative links on the cached page are resolved against.
+     */
+    String getBaseUri() {
+      return baseUri;
+    }
+
+    /**
+     * Returns the charset the server declared for the cached page, or null if it declared none.
+     */
+    String getCharset() {
+      return charset;
+    }
+
+    /**
+     * Returns the {@code ETag} the server sent with the cached page, or null if it sent none.
+     */
+    String getEtag() {
+      return etag;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} date the server sent with the cached page, or null if it
+     * sent none.
+     */
+    String getLastModified() {
+      return lastModified;
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeUTF(url);
+      out.writeUTF(baseUri);
+      writeNullable(out, charset);
+      writeNullable(out, etag);
+      writeNullable(out, lastModified);
+      out.writeLong(segment);
+      out.writeLong(offset);
+      out.writeInt(length);
+      out.writeInt(crc);
+    }
+
+    private static Entry read(DataInputStream in) throws IOException {
+      Entry entry = new Entry(
+          in.readUTF(), in.readUTF(), readNullable(in), readNullable(in), readNullable(in));
+      entry.segment = in.readLong();
+      entry.offset = in.readLong();
+      entry.length = in.readInt();
+      entry.crc = in.readInt();
+      return entry;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+        out.writeUTF(value);
+      }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+      return in.readBoolean() ? in.readUTF() : null;
+    }
+  }
+
+  /**
+   * An append-only file of page bodies.
+   */
+  private static final class Segment {
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    // Both guarded by the cache. The size includes space reserved for bodies still being written.
+    private long size;
+    private int pendingWrites;
+
+    Segment(long id, Path path) throws IOException {
+      this.id = id;
+      this.path = path;
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      this.size = channel.size();
+    }
+  }
+
+  /**
+   * A segment taken out of the cache, with the entries in it that should be copied before it is
+   * deleted.
+   */
+  private static final class Evicted {
+    private final Segment segment;
+    private final List<Entry> kept;
+
+    Evicted(Segment segment, List<Entry> kept) {
+      this.segment = segment;
+      this.kept = kept;
+    }
+  }
+}
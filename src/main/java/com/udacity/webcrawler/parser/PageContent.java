@@ -0,0 +1,104 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * What a parser finds on a page that only depends on the page's content: its words, and its links
+ * as they are written in the page, before they are resolved against the page's URL.
+ *
+ * <p>Pages with the same bytes have the same content, whatever URL they were downloaded from, so a
+ * {@link ParseCache} can share one instance between all of them. Instances never change once built.
+ */
+final class PageContent {
+  static final PageContent EMPTY = new Builder().build();
+
+  private final WordCounter wordCounts;
+  private final List<String> hrefs;
+  private final List<String> baseHrefs;
+
+  private PageContent(WordCounter wordCounts, List<String> hrefs, List<String> baseHrefs) {
+    this.wordCounts = Objects.requireNonNull(wordCounts);
+    this.hrefs = Objects.requireNonNull(hrefs);
+    this.baseHrefs = Objects.requireNonNull(baseHrefs);
+  }
+
+  /**
+   * Returns the parse {@link PageParser.Result} of this content, for the page with the given URI.
+   *
+   * <p>Links are resolved like Jsoup resolves them: against the first {@code <base href>} that
+   * resolves to an absolute URL, and otherwise against the base URI of the page.
+   */
+  PageParser.Result toResult(URI uri, FetchedPage page, UrlCanonicalizer canonicalizer) {
+    Set<String> links = new HashSet<>();
+    if (PageParserImpl.isLocalFile(uri)) {
+      // Jsoup only knows how to resolve relative hrefs if the base URI is a "real" remote URI, so
+      // for local files, the base path is added back in manually.
+      String basePath = Path.of(uri).getParent().toString();
+      for (String href : hrefs) {
+        links.add(Path.of(basePath, href).toUri().toString());
+      }
+    } else {
+      String baseUri = baseUri(page.getBaseUri());
+      for (String href : hrefs) {
+        links.add(canonicalizer.canonicalize(StringUtil.resolve(baseUri, href)));
+      }
+    }
+    return PageParser.Result.of(wordCounts, links);
+  }
+
+  private String baseUri(String pageBaseUri) {
+    for (String baseHref : baseHrefs) {
+      String absolute = StringUtil.resolve(pageBaseUri, baseHref);
+      if (!absolute.isEmpty()) {
+        return absolute;
+      }
+    }
+    return pageBaseUri;
+  }
+
+  /**
+   * A builder class for {@link PageContent}, which collects words and links in the order a parser
+   * finds them.
+   */
+  static final class Builder {
+    private final WordCounter wordCounts = new WordCounter();
+    private final List<String> hrefs = new ArrayList<>();
+    private final List<String> baseHrefs = new ArrayList<>();
+
+    /**
+     * Increments the frequency counter for the given word.
+     */
+    void addWord(String word) {
+      wordCounts.increment(word);
+    }
+
+    /**
+     * Adds the {@code href} of an {@code <a>} element.
+     */
+    void addHref(String href) {
+      hrefs.add(Objects.requireNonNull(href));
+    }
+
+    /**
+     * Adds the {@code href} of a {@code <base>} element.
+     */
+    void addBaseHref(String href) {
+      baseHrefs.add(Objects.requireNonNull(href));
+    }
+
+    /**
+     * Constructs a {@link PageContent} from this builder.
+     */
+    PageContent build() {
+      return new PageContent(wordCounts, List.copyOf(hrefs), List.copyOf(baseHrefs));
+    }
+  }
+}
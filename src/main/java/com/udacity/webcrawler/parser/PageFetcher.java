@@ -0,0 +1,22 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiled;
+
+/**
+ * Downloads the raw content of local and remote HTML pages, without parsing it.
+ *
+ * <p>Fetching is the I/O-bound half of {@link PageParser#parse()}. Crawlers that want to download
+ * and parse pages on different threads fetch pages with a {@link PageFetcher}, and then parse them
+ * with {@link PageParserFactory#get(FetchedPage)}.
+ */
+public interface PageFetcher {
+
+  /**
+   * Downloads the page at the given URL.
+   *
+   * <p>Does not throw if the page cannot be downloaded; it returns a page with an empty body
+   * instead, just like {@link PageParser#parse()} returns an empty result.
+   */
+  @Profiled
+  FetchedPage fetch(String url);
+}
@@ -0,0 +1,385 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A {@link PageFetcher} that reads local files from disk and downloads remote pages with a shared
+ * {@link HttpClient}.
+ *
+ * <p>Unlike a new {@code HttpURLConnection} per page, the client keeps connections to a host alive
+ * between pages, multiplexes requests over HTTP/2 where the server supports it, and asks for
+ * compressed responses. It accepts the same responses Jsoup does: anything below status 400 with a
+ * {@code text/*} or XML content type.
+ *
+ * <p>Like Jsoup's, the timeout bounds the whole download, body included, so a server that stalls in
+ * the middle of a page cannot hold the crawler's thread for longer than that.
+ *
+ * <p>Local files of at least {@code minMappedFileSize} bytes are mapped into memory instead of
+ * read, and parsed straight out of the mapping. Smaller files are cheaper to read than to map and
+ * unmap.
+ *
+ * <p>Remote pages that are in the {@link PageCache} are only downloaded again if their server says
+ * they changed. Otherwise, the cached body is used.
+ */
+final class PageFetcherImpl implements PageFetcher {
+  // The most Jsoup reads of a page by default. Anything beyond it is dropped.
+  private static final int MAX_BODY_BYTES = 2 * 1024 * 1024;
+  // Smaller files save too little copying to pay for a mapping, and every mapping counts against
+  // the kernel's limit until the page is garbage collected. See LocalFileFetchBenchmark.
+  static final long DEFAULT_MIN_MAPPED_FILE_SIZE = 64 * 1024;
+  private static final String ACCEPT =
+      "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+  // The JDK has no Brotli decoder, so only the encodings it can decode are asked for.
+  private static final String ACCEPT_ENCODING = "gzip, deflate";
+  private static final Pattern XML_CONTENT_TYPE =
+      Pattern.compile("(?i)application/(\\w+\\+)?xml.*");
+  private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+  private static final Pattern NO_STORE = Pattern.compile("(?i).*\\bno-store\\b.*");
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private final HttpClient client;
+  private final Duration timeout;
+  private final long minMappedFileSize;
+  private final PageCache cache;
+
+  /**
+   * Creates a fetcher with a client of its own.
+   *
+   * @param timeout the timeout to use when downloading a remote page, or zero for none.
+   */
+  PageFetcherImpl(Duration timeout) {
+    this(newHttpClient(timeout), timeout);
+  }
+
+  /**
+   * @param client  the client to download remote pages with, which may be shared by many fetchers.
+   * @param timeout the timeout to use when downloading a remote page, or zero for none.
+   */
+  PageFetcherImpl(HttpClient client, Duration timeout) {
+    this(client, timeout, DEFAULT_MIN_MAPPED_FILE_SIZE);
+  }
+
+  /**
+   * @param client            the client to download remote pages with.
+   * @param timeout           the timeout to use when downloading a remote page, or zero for none.
+   * @param minMappedFileSize the size from which local files are mapped into memory instead of
+   *                          read. {@link Long#MAX_VALUE} never maps them.
+   */
+  PageFetcherImpl(HttpClient client, Duration timeout, long minMappedFileSize) {
+    this(client, timeout, minMappedFileSize, PageCache.DISABLED);
+  }
+
+  /**
+   * @param client            the client to download remote pages with.
+   * @param timeout           the timeout to use when downloading a remote page, or zero for none.
+   * @param minMappedFileSize the size from which local files are mapped into memory instead of
+   *                          read. {@link Long#MAX_VALUE} never maps them.
+   * @param cache             the cache to revalidate remote pages against, and to store them in.
+   */
+  PageFetcherImpl(HttpClient client, Duration timeout, long minMappedFileSize, PageCache cache) {
+    this.client = Objects.requireNonNull(client);
+    this.timeout = Objects.requireNonNull(timeout);
+    this.minMappedFileSize = minMappedFileSize;
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  /**
+   * Creates a client that follows redirects and prefers HTTP/2, for a {@link PageFetcherImpl} with
+   * the given timeout.
+   */
+  static HttpClient newHttpClient(Duration timeout) {
+    HttpClient.Builder builder =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL);
+    if (isPositive(timeout)) {
+      builder.connectTimeout(timeout);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public FetchedPage fetch(String url) {
+    try {
+      URI uri = new URI(url);
+      if (PageParserImpl.isLocalFile(uri)) {
+        // Local files have no base URI. See PageParserImpl for how their links are resolved.
+        return new FetchedPage(url, "", readFile(Path.of(uri)), StandardCharsets.UTF_8.name());
+      }
+      PageCache.Entry cached = cache.get(url);
+      HttpResponse<Body> response = send(uri, cached);
+      if (cached != null && response.statusCode() == HTTP_NOT_MODIFIED) {
+        ByteBuffer body = cache.read(cached);
+        if (body != null) {
+          return new FetchedPage(url, cached.getBaseUri(), body, cached.getCharset());
+        }
+        // The cached body could not be read after all, so download the page again.
+        response = send(uri, null);
+      }
+      if (response.body() == null) {
+        return FetchedPage.failed(url);
+      }
+      HttpHeaders headers = response.headers();
+      String encoding = headers.firstValue("Content-Encoding").orElse("");
+      byte[] bytes = decode(response.body(), encoding);
+      String baseUri = response.uri().toString();
+      String charset = charsetOf(headers.firstValue("Content-Type").orElse(null));
+      if (response.statusCode() == HTTP_OK
+          && headers.allValues("Cache-Control").stream().noneMatch(NO_STORE.asPredicate())) {
+        cache.put(
+            url,
+            baseUri,
+            charset,
+            headers.firstValue("ETag").orElse(null),
+            headers.firstValue("Last-Modified").orElse(null),
+            ByteBuffer.wrap(bytes));
+      }
+      return new FetchedPage(url, baseUri, bytes, charset);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return FetchedPage.failed(url);
+    } catch (Exception e) {
+      // Invalid URIs, missing files, network errors and encodings we cannot decode all end up
+      // here. There is not much we can do about any of them.
+      return FetchedPage.failed(url);
+    }
+  }
+
+  /**
+   * Sends a request for the given page, which only asks for its body if it changed since the given
+   * cached copy, if any. Waits for the whole response, body included, for at most the timeout.
+   */
+  private HttpResponse<Body> send(URI uri, PageCache.Entry cached)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(uri)
+            .header("Accept", ACCEPT)
+            .header("Accept-Encoding", ACCEPT_ENCODING)
+            .GET();
+    if (cached != null && cached.getEtag() != null) {
+      request.header("If-None-Match", cached.getEtag());
+    }
+    if (cached != null && cached.getLastModified() != null) {
+      request.header("If-Modified-Since", cached.getLastModified());
+    }
+    CompletableFuture<HttpResponse<Body>> response =
+        client.sendAsync(request.build(), PageFetcherImpl::subscribe);
+    try {
+      return isPositive(timeout)
+          ? response.get(timeout.toNanos(), TimeUnit.NANOSECONDS)
+          : response.get();
+    } finally {
+      // Abandons the exchange if it timed out or this thread was interrupted. Does nothing if it
+      // is complete.
+      response.cancel(true);
+    }
+  }
+
+  /**
+   * Reads the body of a response Jsoup would parse, and discards any other body.
+   */
+  private static HttpResponse.BodySubscriber<Body> subscribe(HttpResponse.ResponseInfo response) {
+    String contentType = response.headers().firstValue("Content-Type").orElse(null);
+    if (response.statusCode() >= 400
+        || response.statusCode() == HTTP_NOT_MODIFIED
+        || !isSupported(contentType)) {
+      return HttpResponse.BodySubscribers.replacing(null);
+    }
+    return new LimitedBodySubscriber(MAX_BODY_BYTES);
+  }
+
+  private ByteBuffer readFile(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < minMappedFileSize) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // Keep reading until the buffer is full or the file ends early.
+        }
+        return buffer.flip();
+      }
+      // The mapping stays valid after the channel is closed, and is unmapped once the page is
+      // garbage collected.
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+    }
+  }
+
+  private static boolean isPositive(Duration timeout) {
+    return !timeout.isZero() && !timeout.isNegative();
+  }
+
+  /**
+   * Returns whether Jsoup would parse a response with the given content type.
+   */
+  private static boolean isSupported(String contentType) {
+    return contentType == null
+        || contentType.startsWith("text/")
+        || XML_CONTENT_TYPE.matcher(contentType).matches();
+  }
+
+  /**
+   * Returns the charset declared in the given content type, or null if there is none that Java
+   * supports, in which case Jsoup looks for one in the page itself.
+   */
+  private static String charsetOf(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    Matcher matcher = CHARSET.matcher(contentType);
+    if (!matcher.find()) {
+      return null;
+    }
+    String charset = matcher.group(1).strip();
+    try {
+      return Charset.isSupported(charset) ? charset : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the given body, and returns at most {@link #MAX_BODY_BYTES} of it.
+   */
+  private static byte[] decode(Body body, String encoding) throws IOException {
+    String coding = encoding.strip().toLowerCase(Locale.ROOT);
+    if (coding.isEmpty() || coding.equals("identity")) {
+      return body.bytes;
+    }
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    try (InputStream in = decoder(body.bytes, coding)) {
+      byte[] buffer = new byte[8192];
+      int remaining = MAX_BODY_BYTES;
+      while (remaining > 0) {
+        int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+        if (read < 0) {
+          break;
+        }
+        decoded.write(buffer, 0, read);
+        remaining -= read;
+      }
+    } catch (EOFException e) {
+      // A body that was cut off ends in the middle of the compressed stream.
+      if (!body.truncated) {
+        throw e;
+      }
+    }
+    return decoded.toByteArray();
+  }
+
+  private static InputStream decoder(byte[] body, String coding) throws IOException {
+    switch (coding) {
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(new ByteArrayInputStream(body));
+      case "deflate":
+        return inflate(body);
+      default:
+        throw new IOException("Unsupported content encoding: " + coding);
+    }
+  }
+
+  /**
+   * Decodes a {@code deflate} body. It should be a zlib stream, but some servers send raw deflate
+   * data instead, so look at the header first.
+   */
+  private static InputStream inflate(byte[] body) {
+    boolean zlib = body.length >= 2
+        && (body[0] & 0x0f) == 8
+        && (((body[0] & 0xff) << 8) | (body[1] & 0xff)) % 31 == 0;
+    return new InflaterInputStream(new ByteArrayInputStream(body), new Inflater(!zlib));
+  }
+
+  /**
+   * The raw body of a response, which may have been cut off.
+   */
+  private static final class Body {
+    final byte[] bytes;
+    final boolean truncated;
+
+    Body(byte[] bytes, boolean truncated) {
+      this.bytes = bytes;
+      this.truncated = truncated;
+    }
+  }
+
+  /**
+   * Collects a response body up to a number of bytes, and cancels the rest of it.
+   */
+  private static final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<Body> {
+    private final int limit;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final CompletableFuture<Body> body = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    LimitedBodySubscriber(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public CompletionStage<Body> getBody() {
+      return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      for (ByteBuffer buffer : buffers) {
+        if (bytes.size() == limit && buffer.hasRemaining()) {
+          subscription.cancel();
+          body.complete(new Body(bytes.toByteArray(), true));
+          return;
+        }
+        byte[] chunk = new byte[Math.min(buffer.remaining(), limit - bytes.size())];
+        buffer.get(chunk);
+        bytes.write(chunk, 0, chunk.length);
+      }
+      subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(new Body(bytes.toByteArray(), false));
+    }
+  }
+}
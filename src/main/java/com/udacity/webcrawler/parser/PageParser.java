@@ -2,13 +2,12 @@ package com.udacity.webcrawler.parser;
 
 import com.udacity.webcrawler.profiler.Profiled;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -26,20 +25,38 @@ public interface PageParser {
    * A data class that represents the outcome of processing an HTML page.
    */
   final class Result {
-    private final Map<String, Integer> wordCounts;
+    private final WordCounter wordCounts;
     private final List<String> links;
 
-    private Result(Map<String, Integer> wordCounts, List<String> links) {
+    private Result(WordCounter wordCounts, List<String> links) {
       this.wordCounts = Objects.requireNonNull(wordCounts);
       this.links = Objects.requireNonNull(links);
     }
 
+    /**
+     * Returns a result with the given word counts, which must not change afterwards, and links.
+     */
+    static Result of(WordCounter wordCounts, Set<String> links) {
+      return new Result(wordCounts, links.stream().collect(Collectors.toUnmodifiableList()));
+    }
+
     /**
      * Returns an unmodifiable {@link Map} containing the words and word frequencies encountered
      * when parsing the web page.
+     *
+     * <p>Counts are boxed as the map is read. Callers that visit every word should prefer
+     * {@link #forEachWordCount(ObjIntConsumer)}.
      */
     public Map<String, Integer> getWordCounts() {
-      return wordCounts;
+      return wordCounts.asMap();
+    }
+
+    /**
+     * Calls {@code action} once for every word encountered when parsing the web page, together
+     * with its frequency, without boxing the frequency.
+     */
+    public void forEachWordCount(ObjIntConsumer<String> action) {
+      wordCounts.forEach(action);
     }
 
     /**
@@ -54,15 +71,14 @@ public interface PageParser {
      * hyperlinks encountered while parsing a web page.
      */
     static final class Builder {
-      private final Map<String, Integer> wordCounts = new HashMap<>();
+      private final WordCounter wordCounts = new WordCounter();
       private final Set<String> links = new HashSet<>();
 
       /**
        * Increments the frequency counter for the given word.
        */
       void addWord(String word) {
-        Objects.requireNonNull(word);
-        wordCounts.compute(word, (k, v) -> (v == null) ? 1 : v + 1);
+        wordCounts.increment(word);
       }
 
       /**
@@ -76,9 +92,7 @@ public interface PageParser {
        * Constructs a {@link Result} from this builder.
        */
       Result build() {
-        return new Result(
-            Collections.unmodifiableMap(wordCounts),
-            links.stream().collect(Collectors.toUnmodifiableList()));
+        return of(wordCounts, links);
       }
     }
   }
@@ -10,4 +10,16 @@ public interface PageParserFactory {
    * Returns a {@link PageParser} that parses the given {@link url}.
    */
   PageParser get(String url);
+
+  /**
+   * Returns a {@link PageParser} that parses the given, already downloaded page instead of
+   * downloading it again.
+   *
+   * <p>The default implementation ignores the fetched content and returns
+   * {@code get(page.getUrl())}, so factories that cannot parse fetched pages still work, only
+   * without saving the download.
+   */
+  default PageParser get(FetchedPage page) {
+    return get(page.getUrl());
+  }
 }
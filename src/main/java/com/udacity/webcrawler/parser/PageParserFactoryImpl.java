@@ -1,34 +1,53 @@
 package com.udacity.webcrawler.parser;
 
-import com.udacity.webcrawler.Timeout;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
-import java.time.Duration;
-import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * A {@link PageParserFactory} that wraps its returned instances using a {@link Profiler}.
+ *
+ * <p>It returns a {@link StreamingPageParser} if the {@link StreamingParser} option is set, and a
+ * {@link PageParserImpl} otherwise. Either one only parses a page if no page with the same content
+ * is in the {@link ParseCache}.
  */
 final class PageParserFactoryImpl implements PageParserFactory {
   private final Profiler profiler;
-  private final List<Pattern> ignoredWords;
-  private final Duration timeout;
+  private final PageFetcher fetcher;
+  private final IgnoredWordFilter ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final boolean streamingParser;
+  private final ParseCache cache;
 
   @Inject
   PageParserFactoryImpl(
-      Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+      Profiler profiler,
+      PageFetcher fetcher,
+      IgnoredWordFilter ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      @StreamingParser boolean streamingParser,
+      ParseCache cache) {
     this.profiler = profiler;
+    this.fetcher = fetcher;
     this.ignoredWords = ignoredWords;
-    this.timeout = timeout;
+    this.canonicalizer = canonicalizer;
+    this.streamingParser = streamingParser;
+    this.cache = cache;
   }
 
   @Override
   public PageParser get(String url) {
-    // Here, parse the page with the initial timeout (instead of just the time remaining), to make
-    // the download less likely to fail. Deadline enforcement should happen at a higher level.
-    PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
-    return profiler.wrap(PageParser.class, delegate);
+    return profiler.wrap(PageParser.class, newParser(url, fetcher));
+  }
+
+  @Override
+  public PageParser get(FetchedPage page) {
+    return profiler.wrap(PageParser.class, newParser(page.getUrl(), url -> page));
+  }
+
+  private PageParser newParser(String url, PageFetcher fetcher) {
+    return streamingParser
+        ? new StreamingPageParser(url, fetcher, ignoredWords, canonicalizer, cache)
+        : new PageParserImpl(url, fetcher, ignoredWords, canonicalizer, cache);
   }
 }
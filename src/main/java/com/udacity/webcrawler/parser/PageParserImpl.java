@@ -12,11 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -24,25 +20,17 @@ import java.util.regex.Pattern;
 /**
  * An implementation of {@link PageParser} that works for both local and remote files.
  *
- * <p>HTML parsing is done using the JSoup library. This class is a thin adapter around JSoup's API,
- * since JSoup does not know how to correctly resolve relative hyperlinks when parsing HTML from
- * local files.
+ * <p>The page is downloaded by a {@link PageFetcher}, and HTML parsing is done using the JSoup
+ * library. This class is a thin adapter around JSoup's API, since JSoup does not know how to
+ * correctly resolve relative hyperlinks when parsing HTML from local files.
  */
 final class PageParserImpl implements PageParser {
 
-  /**
-   * Matches whitespace characters.
-   */
-  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
-
-  /**
-   * Matches non-word characters.
-   */
-  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
-
   private final String uri;
-  private final Duration timeout;
-  private final List<Pattern> ignoredWords;
+  private final PageFetcher fetcher;
+  private final IgnoredWordFilter ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final ParseCache cache;
 
   /**
    * Constructs a page parser with the given parameters.
@@ -52,9 +40,41 @@ final class PageParserImpl implements PageParser {
    * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
    */
   PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+    this(
+        uri,
+        new PageFetcherImpl(timeout),
+        IgnoredWordFilter.compile(ignoredWords),
+        new UrlCanonicalizer(List.of()));
+  }
+
+  /**
+   * Constructs a page parser that downloads the page with the given {@link PageFetcher}, uses an
+   * already compiled {@link IgnoredWordFilter}, and passes every link it finds through the given
+   * {@link UrlCanonicalizer}.
+   */
+  PageParserImpl(
+      String uri,
+      PageFetcher fetcher,
+      IgnoredWordFilter ignoredWords,
+      UrlCanonicalizer canonicalizer) {
+    this(uri, fetcher, ignoredWords, canonicalizer, ParseCache.DISABLED);
+  }
+
+  /**
+   * Constructs a page parser like the one above, that only parses the page if no page with the same
+   * content is in the given {@link ParseCache}.
+   */
+  PageParserImpl(
+      String uri,
+      PageFetcher fetcher,
+      IgnoredWordFilter ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      ParseCache cache) {
     this.uri = Objects.requireNonNull(uri);
-    this.timeout = Objects.requireNonNull(timeout);
+    this.fetcher = Objects.requireNonNull(fetcher);
     this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.cache = Objects.requireNonNull(cache);
   }
 
   @Override
@@ -67,45 +87,42 @@ final class PageParserImpl implements PageParser {
       return new Result.Builder().build();
     }
 
+    FetchedPage page = fetcher.fetch(uri);
+    if (page.getSize() == 0) {
+      return new Result.Builder().build();
+    }
+    return cache.get(page, this::parseContent).toResult(parsedUri, page, canonicalizer);
+  }
+
+  /**
+   * Returns the words and links in the given page, found by building a Jsoup {@link Document} from
+   * it and making a single pass over the document.
+   */
+  private PageContent parseContent(FetchedPage page) {
     Document document;
     try {
-      document = parseDocument(parsedUri);
+      document = parseDocument(page);
     } catch (Exception e) {
-      // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
-      // Jsoup does not handle. There is not much we can do here.
-      return new Result.Builder().build();
+      // Jsoup can still fail on content it does not understand. There is not much we can do here.
+      return PageContent.EMPTY;
     }
-
-    Result.Builder builder = new Result.Builder();
-    // Do a single pass over the document to gather all hyperlinks and text.
+    PageContent.Builder builder = new PageContent.Builder();
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
     document.traverse(new NodeVisitor() {
       @Override
       public void head(Node node, int depth) {
         if (node instanceof TextNode) {
-          String text = ((TextNode) node).text().strip();
-          Arrays.stream(WHITESPACE.split(text))
-              .filter(s -> !s.isBlank())
-              .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-              .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-              .map(String::toLowerCase)
-              .forEach(builder::addWord);
+          tokenizer.tokenize(((TextNode) node).text(), builder::addWord);
           return;
         }
-        if (!(node instanceof Element)) {
+        if (!(node instanceof Element) || !node.hasAttr("href")) {
           return;
         }
         Element element = (Element) node;
-        if (!element.is(new Tag("a")) || !element.hasAttr("href")) {
-          return;
-        }
-        if (isLocalFile(parsedUri)) {
-          // If this is a local file, add the base path back in manually, since Jsoup only knows how
-          // to resolve relative hrefs if the base URI is a "real" remote URI.
-          String basePath = Path.of(parsedUri).getParent().toString();
-          builder.addLink(Path.of(basePath, element.attr("href")).toUri().toString());
-        } else {
-          // Otherwise, let Jsoup resolve the absolute URL for us.
-          builder.addLink(element.attr("abs:href"));
+        if (element.is(new Tag("a"))) {
+          builder.addHref(element.attr("href"));
+        } else if (element.is(new Tag("base"))) {
+          builder.addBaseHref(element.attr("href"));
         }
       }
 
@@ -117,27 +134,24 @@ final class PageParserImpl implements PageParser {
   }
 
   /**
-   * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
-   * refer to a local document or a remote web page.
+   * Returns a Jsoup {@link Document} representation of the given fetched page.
    */
-  private Document parseDocument(URI uri) throws IOException {
-    if (!isLocalFile(uri)) {
-      return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
-    }
-
+  private static Document parseDocument(FetchedPage page) throws IOException {
     // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
     // "file://" URIs. If we want the parser to support those URIs, which are very useful for
     // testing, the work-around is to pass in an empty baseUri and manually add the base back to
-    // href attributes.
-    try (InputStream in = Files.newInputStream(Path.of(uri))) {
-      return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+    // href attributes. PageFetcherImpl leaves the base URI of local files empty for this reason.
+    // Jsoup decodes the body straight out of its buffer, which for large local files is the file
+    // itself, mapped into memory.
+    try (InputStream in = page.openBody()) {
+      return Jsoup.parse(in, page.getCharset(), page.getBaseUri());
     }
   }
 
   /**
    * Returns true if and only if the given {@link URI} represents a local file.
    */
-  private static boolean isLocalFile(URI uri) {
+  static boolean isLocalFile(URI uri) {
     return uri.getScheme() != null && uri.getScheme().equals("file");
   }
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of {@link PageContent}, keyed by the content of the page it was parsed from, so
+ * that pages with identical bytes under different URLs are only parsed once.
+ *
+ * <p>Pages are identified by a 64-bit xxHash of their body, together with its length and the
+ * charset the server declared, which changes how the same bytes decode. The bodies themselves are
+ * not kept, so two different pages with the same hash would share a result, but even after a
+ * million pages the odds of that are below one in ten million.
+ *
+ * <p>When the cache is full, the least recently used entry is evicted. This class is thread-safe.
+ */
+final class ParseCache {
+  /**
+   * A cache that holds nothing, and parses every page.
+   */
+  static final ParseCache DISABLED = new ParseCache(0);
+
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  private final int capacity;
+  // Guarded by itself. Entries are kept in access order, so the eldest is the least recently used.
+  private final LinkedHashMap<Key, PageContent> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Creates a cache that holds the content of at most {@code capacity} pages.
+   */
+  ParseCache(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+    this.capacity = capacity;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, PageContent> eldest) {
+        return size() > ParseCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the content of the given page, which is only parsed with {@code parser} if no page with
+   * the same content is cached.
+   */
+  PageContent get(FetchedPage page, Function<FetchedPage, PageContent> parser) {
+    if (capacity == 0) {
+      return parser.apply(page);
+    }
+    Key key = new Key(hash(page.getBody()), page.getSize(), page.getCharset());
+    PageContent content;
+    synchronized (entries) {
+      content = entries.get(key);
+    }
+    if (content != null) {
+      hits.increment();
+      return content;
+    }
+    misses.increment();
+    // Parse outside of the lock. If two threads miss on the same content at once, both parse it,
+    // and the second result replaces the first, which is just as good.
+    content = parser.apply(page);
+    synchronized (entries) {
+      entries.put(key, content);
+    }
+    return content;
+  }
+
+  /**
+   * Returns the number of pages whose content is cached.
+   */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups that found the page's content in the cache.
+   */
+  double hitRatio() {
+    long hits = hits();
+    long lookups = hits + misses();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Registers this cache's statistics with the given profiler, under {@code parseCache.*}.
+   */
+  void recordStatistics(Profiler profiler) {
+    profiler.recordStatistic("parseCache.lookups", () -> String.valueOf(hits() + misses()));
+    profiler.recordStatistic("parseCache.hits", () -> String.valueOf(hits()));
+    profiler.recordStatistic(
+        "parseCache.hitRatio", () -> String.format(Locale.ROOT, "%.6f", hitRatio()));
+  }
+
+  /**
+   * Returns the 64-bit xxHash, with a seed of 0, of the remaining bytes of the given buffer,
+   * without moving its position.
+   */
+  static long hash(ByteBuffer buffer) {
+    ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int length = in.remaining();
+    int i = in.position();
+    int end = in.limit();
+    long h;
+    if (length >= 32) {
+      long v1 = PRIME64_1 + PRIME64_2;
+      long v2 = PRIME64_2;
+      long v3 = 0;
+      long v4 = -PRIME64_1;
+      for (; i <= end - 32; i += 32) {
+        v1 = round(v1, in.getLong(i));
+        v2 = round(v2, in.getLong(i + 8));
+        v3 = round(v3, in.getLong(i + 16));
+        v4 = round(v4, in.getLong(i + 24));
+      }
+      h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+          + Long.rotateLeft(v4, 18);
+      h = mergeRound(h, v1);
+      h = mergeRound(h, v2);
+      h = mergeRound(h, v3);
+      h = mergeRound(h, v4);
+    } else {
+      h = PRIME64_5;
+    }
+    h += length;
+    for (; i <= end - 8; i += 8) {
+      h ^= round(0, in.getLong(i));
+      h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+    }
+    if (i <= end - 4) {
+      h ^= (in.getInt(i) & 0xFFFFFFFFL) * PRIME64_1;
+      h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+      i += 4;
+    }
+    for (; i < end; i++) {
+      h ^= (in.get(i) & 0xFFL) * PRIME64_5;
+      h = Long.rotateLeft(h, 11) * PRIME64_1;
+    }
+    h ^= h >>> 33;
+    h *= PRIME64_2;
+    h ^= h >>> 29;
+    h *= PRIME64_3;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private static long round(long accumulator, long lane) {
+    return Long.rotateLeft(accumulator + lane * PRIME64_2, 31) * PRIME64_1;
+  }
+
+  private static long mergeRound(long h, long accumulator) {
+    return (h ^ round(0, accumulator)) * PRIME64_1 + PRIME64_4;
+  }
+
+  /**
+   * Identifies the content of a page.
+   */
+  private static final class Key {
+    private final long hash;
+    private final int size;
+    private final String charset;
+
+    Key(long hash, int size, String charset) {
+      this.hash = hash;
+      this.size = size;
+      this.charset = charset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hash == other.hash && size == other.size && Objects.equals(charset, other.charset);
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(hash);
+    }
+  }
+}
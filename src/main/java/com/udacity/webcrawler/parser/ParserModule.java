@@ -2,33 +2,114 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.ProvisionException;
+import com.google.inject.multibindings.Multibinder;
+import com.udacity.webcrawler.profiler.Profiler;
 
+import javax.inject.Singleton;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
  * Guice dependency injection module that installs a {@link PageParserFactory} that can be used to
- * create page parsers.
+ * create page parsers, and the {@link PageFetcher} they download pages with.
+ *
+ * <p>Resources that must be released once the crawl is over, such as the page cache, are bound
+ * into a {@code Set<Closeable>}, which the owner of the injector should close.
  */
 public final class ParserModule extends AbstractModule {
   private final Duration timeout;
   private final List<Pattern> ignoredWords;
+  private final List<String> strippedQueryParameters;
+  private final boolean streamingParser;
+  private final int parseCacheEntries;
+  private final String pageCacheDirectory;
+  private final long pageCacheMaxBytes;
+  private final PageCache.Eviction pageCacheEviction;
 
   /**
-   * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+   * Creates a {@link ParserModule} from the given timeout, ignored word patterns, stripped query
+   * parameters, choice of parser, and cache settings.
    */
-  private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+  private ParserModule(
+      Duration timeout,
+      List<Pattern> ignoredWords,
+      List<String> strippedQueryParameters,
+      boolean streamingParser,
+      int parseCacheEntries,
+      String pageCacheDirectory,
+      long pageCacheMaxBytes,
+      PageCache.Eviction pageCacheEviction) {
     this.timeout = timeout;
     this.ignoredWords = ignoredWords;
+    this.strippedQueryParameters = strippedQueryParameters;
+    this.streamingParser = streamingParser;
+    this.parseCacheEntries = parseCacheEntries;
+    this.pageCacheDirectory = pageCacheDirectory;
+    this.pageCacheMaxBytes = pageCacheMaxBytes;
+    this.pageCacheEviction = pageCacheEviction;
   }
 
   @Override
   protected void configure() {
     bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
     bind(new Key<List<Pattern>>(IgnoredWords.class) {}).toInstance(ignoredWords);
+    // Compile the patterns once for the whole crawl, instead of once per page.
+    bind(IgnoredWordFilter.class).toInstance(IgnoredWordFilter.compile(ignoredWords));
+    bind(UrlCanonicalizer.class).toInstance(new UrlCanonicalizer(strippedQueryParameters));
+    bind(Key.get(Boolean.class, StreamingParser.class)).toInstance(streamingParser);
     bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
+    Multibinder.newSetBinder(binder(), Closeable.class).addBinding().to(PageCache.class);
+  }
+
+  @Provides
+  @Singleton
+  PageFetcher providePageFetcher(Profiler profiler, PageCache pageCache) {
+    // Here, download every page with the initial timeout (instead of just the time remaining), to
+    // make the download less likely to fail. Deadline enforcement should happen at a higher level.
+    // A single client for the whole crawl, so that connections to a host are reused across pages.
+    return profiler.wrap(
+        PageFetcher.class,
+        new PageFetcherImpl(
+            PageFetcherImpl.newHttpClient(timeout),
+            timeout,
+            PageFetcherImpl.DEFAULT_MIN_MAPPED_FILE_SIZE,
+            pageCache));
+  }
+
+  @Provides
+  @Singleton
+  PageCache providePageCache(Profiler profiler) {
+    if (pageCacheDirectory.isEmpty()) {
+      return PageCache.DISABLED;
+    }
+    PageCache cache;
+    try {
+      cache = PageCache.open(Path.of(pageCacheDirectory), pageCacheMaxBytes, pageCacheEviction);
+    } catch (IOException e) {
+      throw new ProvisionException(
+          "Could not open the page cache in \"" + pageCacheDirectory + "\".", e);
+    }
+    cache.recordStatistics(profiler);
+    return cache;
+  }
+
+  @Provides
+  @Singleton
+  ParseCache provideParseCache(Profiler profiler) {
+    if (parseCacheEntries == 0) {
+      return ParseCache.DISABLED;
+    }
+    ParseCache cache = new ParseCache(parseCacheEntries);
+    cache.recordStatistics(profiler);
+    return cache;
   }
 
   /**
@@ -37,6 +118,12 @@ public final class ParserModule extends AbstractModule {
   public static final class Builder {
     private Duration timeout;
     private List<Pattern> ignoredWords;
+    private List<String> strippedQueryParameters = List.of();
+    private boolean streamingParser = false;
+    private int parseCacheEntries = 0;
+    private String pageCacheDirectory = "";
+    private long pageCacheMaxBytes = 256L * 1024 * 1024;
+    private PageCache.Eviction pageCacheEviction = PageCache.Eviction.FIFO_SECOND_CHANCE;
 
     /**
      * Sets the timeout that will be used by the page parser.
@@ -54,11 +141,72 @@ public final class ParserModule extends AbstractModule {
       return this;
     }
 
+    /**
+     * Sets the query parameters that will be removed from the links found by the page parser.
+     */
+    public Builder setStrippedQueryParameters(List<String> strippedQueryParameters) {
+      this.strippedQueryParameters = Objects.requireNonNull(strippedQueryParameters);
+      return this;
+    }
+
+    /**
+     * Sets whether pages are parsed in a single streaming pass, instead of by building a Jsoup
+     * document.
+     */
+    public Builder setStreamingParser(boolean streamingParser) {
+      this.streamingParser = streamingParser;
+      return this;
+    }
+
+    /**
+     * Sets the number of parsed pages that are remembered by their content, so that identical
+     * pages are only parsed once. 0 turns the cache off.
+     */
+    public Builder setParseCacheEntries(int parseCacheEntries) {
+      this.parseCacheEntries = parseCacheEntries;
+      return this;
+    }
+
+    /**
+     * Sets the directory where downloaded pages are cached between crawls. An empty path turns the
+     * cache off.
+     */
+    public Builder setPageCacheDirectory(String pageCacheDirectory) {
+      this.pageCacheDirectory = Objects.requireNonNull(pageCacheDirectory);
+      return this;
+    }
+
+    /**
+     * Sets how many bytes of pages the page cache may hold.
+     */
+    public Builder setPageCacheMaxBytes(long pageCacheMaxBytes) {
+      this.pageCacheMaxBytes = pageCacheMaxBytes;
+      return this;
+    }
+
+    /**
+     * Sets which pages to evict from the page cache once it is full: {@code "fifo-second-chance"},
+     * which keeps the pages used since the cache was opened, or {@code "fifo"}.
+     */
+    public Builder setPageCacheEviction(String pageCacheEviction) {
+      this.pageCacheEviction = PageCache.Eviction.valueOf(
+          pageCacheEviction.replace('-', '_').toUpperCase(Locale.ROOT));
+      return this;
+    }
+
     /**
      * Builds a {@link ParserModule} from this {@link Builder}.
      */
     public ParserModule build() {
-      return new ParserModule(timeout, ignoredWords);
+      return new ParserModule(
+          timeout,
+          ignoredWords,
+          strippedQueryParameters,
+          streamingParser,
+          parseCacheEntries,
+          pageCacheDirectory,
+          pageCacheMaxBytes,
+          pageCacheEviction);
     }
   }
 }
@@ -0,0 +1,182 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link PageParser} that counts words and collects links in a single streaming pass over the
+ * page with an {@link HtmlScanner}, instead of building a Jsoup document and traversing it.
+ *
+ * <p>It returns the same {@link Result} as {@link PageParserImpl}: the text is decoded with the
+ * charset Jsoup would pick, links are resolved the same way, including against a
+ * {@code <base href>}, and every text run goes through the same {@link WordTokenizer}.
+ */
+final class StreamingPageParser implements PageParser {
+  // How far Jsoup looks into a page for a <meta> charset when the server declared none.
+  private static final int CHARSET_SNIFF_BYTES = 5 * 1024;
+  private static final Pattern META_CHARSET =
+      Pattern.compile("(?i)<meta\\s[^>]*?charset\\s*=\\s*[\"']?\\s*([^\"'\\s;/>]+)");
+  private static final Pattern XML_ENCODING =
+      Pattern.compile("(?i)^\\s*<\\?xml\\s[^>]*?encoding\\s*=\\s*[\"']([^\"']+)");
+
+  private final String uri;
+  private final PageFetcher fetcher;
+  private final IgnoredWordFilter ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final ParseCache cache;
+
+  StreamingPageParser(
+      String uri,
+      PageFetcher fetcher,
+      IgnoredWordFilter ignoredWords,
+      UrlCanonicalizer canonicalizer) {
+    this(uri, fetcher, ignoredWords, canonicalizer, ParseCache.DISABLED);
+  }
+
+  StreamingPageParser(
+      String uri,
+      PageFetcher fetcher,
+      IgnoredWordFilter ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      ParseCache cache) {
+    this.uri = Objects.requireNonNull(uri);
+    this.fetcher = Objects.requireNonNull(fetcher);
+    this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.cache = Objects.requireNonNull(cache);
+  }
+
+  @Override
+  public Result parse() {
+    URI parsedUri;
+    try {
+      parsedUri = new URI(uri);
+    } catch (URISyntaxException e) {
+      // Invalid link; ignore
+      return new Result.Builder().build();
+    }
+
+    FetchedPage page = fetcher.fetch(uri);
+    if (page.getSize() == 0) {
+      return new Result.Builder().build();
+    }
+    return cache.get(page, this::parseContent).toResult(parsedUri, page, canonicalizer);
+  }
+
+  /**
+   * Returns the words and links in the given page, found in a single pass over its HTML.
+   */
+  private PageContent parseContent(FetchedPage page) {
+    PageContent.Builder builder = new PageContent.Builder();
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    HtmlScanner scanner = new HtmlScanner(openReader(page), new HtmlScanner.Handler() {
+      @Override
+      public void text(String text) {
+        tokenizer.tokenize(text, builder::addWord);
+      }
+
+      @Override
+      public void href(String tagName, String href) {
+        if (tagName.equals("a")) {
+          builder.addHref(href);
+        } else if (tagName.equals("base")) {
+          builder.addBaseHref(href);
+        }
+      }
+    });
+    try {
+      scanner.scan();
+    } catch (IOException | RuntimeException e) {
+      // Same as a page Jsoup fails to parse.
+      return PageContent.EMPTY;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a reader that decodes the body of the given page with the charset Jsoup would use: the
+   * one given by a byte order mark, then the one the server declared, then the one the page
+   * declares near its start, and UTF-8 otherwise.
+   */
+  private static Reader openReader(FetchedPage page) {
+    ByteBuffer body = page.getBody();
+    Charset charset = charsetFromByteOrderMark(body);
+    if (charset == null) {
+      charset = supportedCharset(page.getCharset());
+    }
+    if (charset == null) {
+      charset = sniffCharset(body);
+    }
+    return new InputStreamReader(new ByteBufferInputStream(body), charset);
+  }
+
+  /**
+   * Returns the charset given by the byte order mark at the start of the body, and moves the body
+   * past it, or returns null if there is none.
+   */
+  private static Charset charsetFromByteOrderMark(ByteBuffer body) {
+    int start = body.position();
+    int[] b = new int[4];
+    for (int i = 0; i < 4; i++) {
+      b[i] = start + i < body.limit() ? body.get(start + i) & 0xff : -1;
+    }
+    Charset charset = null;
+    int length = 0;
+    if (b[0] == 0x00 && b[1] == 0x00 && b[2] == 0xfe && b[3] == 0xff) {
+      charset = Charset.forName("UTF-32BE");
+      length = 4;
+    } else if (b[0] == 0xff && b[1] == 0xfe && b[2] == 0x00 && b[3] == 0x00) {
+      charset = Charset.forName("UTF-32LE");
+      length = 4;
+    } else if (b[0] == 0xfe && b[1] == 0xff) {
+      charset = StandardCharsets.UTF_16BE;
+      length = 2;
+    } else if (b[0] == 0xff && b[1] == 0xfe) {
+      charset = StandardCharsets.UTF_16LE;
+      length = 2;
+    } else if (b[0] == 0xef && b[1] == 0xbb && b[2] == 0xbf) {
+      charset = StandardCharsets.UTF_8;
+      length = 3;
+    }
+    body.position(start + length);
+    return charset;
+  }
+
+  /**
+   * Looks for a charset declared near the start of the body, like Jsoup does when the server did
+   * not declare one.
+   */
+  private static Charset sniffCharset(ByteBuffer body) {
+    ByteBuffer start = body.duplicate();
+    start.limit(start.position() + Math.min(start.remaining(), CHARSET_SNIFF_BYTES));
+    String head = StandardCharsets.ISO_8859_1.decode(start).toString();
+    Matcher matcher = META_CHARSET.matcher(head);
+    Charset charset = matcher.find() ? supportedCharset(matcher.group(1)) : null;
+    if (charset == null) {
+      matcher = XML_ENCODING.matcher(head);
+      charset = matcher.find() ? supportedCharset(matcher.group(1)) : null;
+    }
+    return charset == null ? StandardCharsets.UTF_8 : charset;
+  }
+
+  private static Charset supportedCharset(String name) {
+    if (name == null) {
+      return null;
+    }
+    String trimmed = name.trim().replaceAll("[\"']", "");
+    try {
+      return Charset.isSupported(trimmed) ? Charset.forName(trimmed) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
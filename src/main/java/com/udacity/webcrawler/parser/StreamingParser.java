@@ -0,0 +1,16 @@
+package com.udacity.webcrawler.parser;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for whether pages are parsed by a {@link StreamingPageParser}.
+ *
+ * <p>Like {@link ParseDeadline}, it is package-private and only used by the Guice module in this
+ * package.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@interface StreamingParser {
+}
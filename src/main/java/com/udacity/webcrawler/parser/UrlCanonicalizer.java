@@ -0,0 +1,238 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites {@code http} and {@code https} links into a canonical form, so that different spellings
+ * of the same page are only crawled once.
+ *
+ * <p>The canonical form of a URL:
+ *
+ * <ul>
+ *   <li>has a lowercase scheme and host,</li>
+ *   <li>has no port if the port is the scheme's default,</li>
+ *   <li>has no {@code .} or {@code ..} path segments, and a path of {@code /} if it was empty,</li>
+ *   <li>has no empty query parameters and none whose names match one of the stripped parameters,
+ *       and no query at all if none are left,</li>
+ *   <li>has no fragment.</li>
+ * </ul>
+ *
+ * <p>Everything else, including percent-encoding, the user info and trailing slashes, is kept as
+ * it is. Links with any other scheme are returned unchanged.
+ *
+ * <p>Most links on a page are already canonical. Those are recognized in a single scan over the
+ * string and returned as they are, without allocating anything.
+ */
+final class UrlCanonicalizer {
+  private final List<String> strippedParameters = new ArrayList<>();
+  private final List<String> strippedParameterPrefixes = new ArrayList<>();
+
+  /**
+   * Creates a canonicalizer that strips the given query parameters. A name that ends with
+   * {@code *}, such as {@code utm_*}, strips every parameter that starts with the rest of the name.
+   */
+  UrlCanonicalizer(List<String> strippedQueryParameters) {
+    for (String name : strippedQueryParameters) {
+      if (name.endsWith("*")) {
+        strippedParameterPrefixes.add(name.substring(0, name.length() - 1));
+      } else {
+        strippedParameters.add(name);
+      }
+    }
+  }
+
+  /**
+   * Returns the canonical form of the given absolute URL.
+   */
+  String canonicalize(String url) {
+    int schemeLength;
+    if (url.regionMatches(true, 0, "http://", 0, 7)) {
+      schemeLength = 4;
+    } else if (url.regionMatches(true, 0, "https://", 0, 8)) {
+      schemeLength = 5;
+    } else {
+      return url;
+    }
+
+    int length = url.length();
+    int authorityStart = schemeLength + 3;
+    int authorityEnd = indexOfAny(url, authorityStart, length, "/?#");
+    int pathEnd = indexOfAny(url, authorityEnd, length, "?#");
+    int fragmentStart = url.indexOf('#', pathEnd);
+    int queryEnd = fragmentStart < 0 ? length : fragmentStart;
+
+    int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+    if (hostStart < authorityStart) {
+      hostStart = authorityStart;
+    }
+    int hostEnd = authorityEnd;
+    if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+      // An IPv6 literal, which contains colons of its own.
+      int bracket = url.indexOf(']', hostStart);
+      hostEnd = bracket < 0 || bracket >= authorityEnd ? authorityEnd : bracket + 1;
+    } else {
+      int colon = url.indexOf(':', hostStart);
+      if (colon >= 0 && colon < authorityEnd) {
+        hostEnd = colon;
+      }
+    }
+    boolean keepPort = hostEnd < authorityEnd
+        && !isDefaultPort(url, hostEnd + 1, authorityEnd, schemeLength);
+
+    boolean hasQuery = pathEnd < length && url.charAt(pathEnd) == '?';
+    int queryStart = pathEnd + 1;
+    boolean canonicalQuery = !hasQuery
+        || (queryStart < queryEnd && !hasStrippedParameter(url, queryStart, queryEnd));
+    boolean canonical = isLowerCase(url, 0, schemeLength)
+        && isLowerCase(url, hostStart, hostEnd)
+        && (keepPort || hostEnd == authorityEnd)
+        && authorityEnd < pathEnd
+        && !hasDotSegments(url, authorityEnd, pathEnd)
+        && canonicalQuery
+        && fragmentStart < 0;
+    if (canonical) {
+      return url;
+    }
+
+    StringBuilder result = new StringBuilder(length);
+    appendLowerCase(result, url, 0, schemeLength);
+    result.append(url, schemeLength, hostStart);
+    appendLowerCase(result, url, hostStart, hostEnd);
+    if (keepPort) {
+      result.append(url, hostEnd, authorityEnd);
+    }
+    if (authorityEnd == pathEnd) {
+      result.append('/');
+    } else {
+      removeDotSegments(result, url.substring(authorityEnd, pathEnd));
+    }
+    if (hasQuery) {
+      appendQuery(result, url, queryStart, queryEnd);
+    }
+    return result.toString();
+  }
+
+  private boolean hasStrippedParameter(String url, int start, int end) {
+    if (url.charAt(end - 1) == '&') {
+      return true;
+    }
+    for (int i = start; i < end; ) {
+      int parameterEnd = indexOfAny(url, i, end, "&");
+      if (parameterEnd == i || isStripped(url, i, indexOfAny(url, i, parameterEnd, "="))) {
+        return true;
+      }
+      i = parameterEnd + 1;
+    }
+    return false;
+  }
+
+  private boolean isStripped(String url, int nameStart, int nameEnd) {
+    int nameLength = nameEnd - nameStart;
+    for (String name : strippedParameters) {
+      if (name.length() == nameLength && url.startsWith(name, nameStart)) {
+        return true;
+      }
+    }
+    for (String prefix : strippedParameterPrefixes) {
+      if (prefix.length() <= nameLength && url.startsWith(prefix, nameStart)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Appends the parameters of the query that are not stripped, or nothing if none are left.
+   */
+  private void appendQuery(StringBuilder result, String url, int start, int end) {
+    char separator = '?';
+    for (int i = start; i < end; ) {
+      int parameterEnd = indexOfAny(url, i, end, "&");
+      if (parameterEnd > i && !isStripped(url, i, indexOfAny(url, i, parameterEnd, "="))) {
+        result.append(separator).append(url, i, parameterEnd);
+        separator = '&';
+      }
+      i = parameterEnd + 1;
+    }
+  }
+
+  /**
+   * Appends the given absolute path with its {@code .} and {@code ..} segments resolved, as
+   * described in RFC 3986, section 5.2.4.
+   */
+  private static void removeDotSegments(StringBuilder result, String path) {
+    int outputStart = result.length();
+    int i = 0;
+    while (i < path.length()) {
+      if (path.startsWith("/./", i)) {
+        i += 2;
+      } else if (path.startsWith("/.", i) && i + 2 == path.length()) {
+        result.append('/');
+        i += 2;
+      } else if (path.startsWith("/../", i)
+          || (path.startsWith("/..", i) && i + 3 == path.length())) {
+        int lastSlash = result.lastIndexOf("/");
+        result.setLength(Math.max(outputStart, lastSlash));
+        i += 3;
+        if (i == path.length()) {
+          result.append('/');
+        }
+      } else {
+        int next = path.indexOf('/', i + 1);
+        int segmentEnd = next < 0 ? path.length() : next;
+        result.append(path, i, segmentEnd);
+        i = segmentEnd;
+      }
+    }
+    if (result.length() == outputStart) {
+      result.append('/');
+    }
+  }
+
+  private static boolean hasDotSegments(String url, int start, int end) {
+    for (int i = url.indexOf("/.", start); i >= 0 && i < end; i = url.indexOf("/.", i + 1)) {
+      int afterDots = i + 2 < end && url.charAt(i + 2) == '.' ? i + 3 : i + 2;
+      if (afterDots == end || url.charAt(afterDots) == '/') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isDefaultPort(String url, int start, int end, int schemeLength) {
+    String defaultPort = schemeLength == 4 ? "80" : "443";
+    return start == end
+        || (end - start == defaultPort.length() && url.startsWith(defaultPort, start));
+  }
+
+  private static boolean isLowerCase(String url, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = url.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void appendLowerCase(StringBuilder result, String url, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = url.charAt(i);
+      result.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+    }
+  }
+
+  /**
+   * Returns the index of the first of the given characters in {@code url[start, end)}, or
+   * {@code end} if there is none.
+   */
+  private static int indexOfAny(String url, int start, int end, String characters) {
+    for (int i = start; i < end; i++) {
+      if (characters.indexOf(url.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return end;
+  }
+}
@@ -0,0 +1,201 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A hash table from words to {@code int} counts that stores its counts unboxed.
+ *
+ * <p>Words and counts live in two parallel arrays and collisions are resolved with linear probing,
+ * so incrementing the count of a word allocates nothing unless the table has to grow.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class WordCounter {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private String[] words;
+  private int[] counts;
+  private int size;
+  private Map<String, Integer> mapView;
+
+  /**
+   * Creates an empty counter.
+   */
+  public WordCounter() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty counter that can hold {@code expectedWords} words without growing.
+   */
+  public WordCounter(int expectedWords) {
+    int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY / 2, expectedWords) - 1) << 2;
+    this.words = new String[capacity];
+    this.counts = new int[capacity];
+  }
+
+  /**
+   * Adds one occurrence of the given word.
+   */
+  public void increment(String word) {
+    add(word, 1);
+  }
+
+  /**
+   * Adds {@code count} occurrences of the given word.
+   */
+  public void add(String word, int count) {
+    Objects.requireNonNull(word);
+    int slot = slotOf(word, words);
+    if (words[slot] == null) {
+      words[slot] = word;
+      if (++size > words.length / 2) {
+        grow();
+        slot = slotOf(word, words);
+      }
+    }
+    counts[slot] += count;
+  }
+
+  /**
+   * Returns the number of occurrences of the given word, or 0 if it was never added.
+   */
+  public int get(String word) {
+    int slot = slotOf(word, words);
+    return words[slot] == null ? 0 : counts[slot];
+  }
+
+  /**
+   * Returns the number of distinct words.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Calls {@code action} once for every distinct word and its count, in no particular order.
+   */
+  public void forEach(ObjIntConsumer<String> action) {
+    for (int i = 0; i < words.length; i++) {
+      if (words[i] != null) {
+        action.accept(words[i], counts[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns an unmodifiable {@link Map} view of this counter. Counts are only boxed when the view
+   * is read, and the view reflects later changes to the counter.
+   */
+  public Map<String, Integer> asMap() {
+    if (mapView == null) {
+      mapView = new MapView();
+    }
+    return mapView;
+  }
+
+  /**
+   * Returns the slot that holds {@code word}, or the empty slot where it belongs.
+   */
+  private static int slotOf(Object word, String[] table) {
+    int mask = table.length - 1;
+    int h = word.hashCode();
+    int slot = (h ^ (h >>> 16)) & mask;
+    while (table[slot] != null && !table[slot].equals(word)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    String[] oldWords = words;
+    int[] oldCounts = counts;
+    words = new String[oldWords.length * 2];
+    counts = new int[oldCounts.length * 2];
+    for (int i = 0; i < oldWords.length; i++) {
+      if (oldWords[i] != null) {
+        int slot = slotOf(oldWords[i], words);
+        words[slot] = oldWords[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  /**
+   * A read-only {@link Map} backed by the counter's arrays.
+   */
+  private final class MapView extends AbstractMap<String, Integer> {
+    private final Set<Entry<String, Integer>> entrySet = new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, Integer>> iterator() {
+        return new Iterator<>() {
+          private int next = advance(0);
+
+          private int advance(int from) {
+            while (from < words.length && words[from] == null) {
+              from++;
+            }
+            return from;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return next < words.length;
+          }
+
+          @Override
+          public Entry<String, Integer> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, Integer> entry = new SimpleImmutableEntry<>(words[next], counts[next]);
+            next = advance(next + 1);
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+      return entrySet;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return key != null && words[slotOf(key, words)] != null;
+    }
+
+    @Override
+    public Integer get(Object key) {
+      if (key == null) {
+        return null;
+      }
+      int slot = slotOf(key, words);
+      return words[slot] == null ? null : counts[slot];
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Integer> action) {
+      WordCounter.this.forEach(action::accept);
+    }
+  }
+}
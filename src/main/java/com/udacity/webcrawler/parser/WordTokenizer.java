@@ -0,0 +1,149 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits the text of a page into counted words in a single pass over its characters.
+ *
+ * <p>The output is exactly what this regular expression pipeline produces:
+ *
+ * <pre>{@code
+ *   Arrays.stream(Pattern.compile("\\s+").split(text.strip()))
+ *       .filter(s -> !s.isBlank())
+ *       .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+ *       .map(s -> Pattern.compile("\\W").matcher(s).replaceAll(""))
+ *       .map(String::toLowerCase)
+ * }</pre>
+ *
+ * <p>but the raw tokens are never copied: the {@link IgnoredWordFilter} checks a view of the text,
+ * and the word characters are lowercased into a reusable buffer, so the only allocation per counted
+ * word is the word itself.
+ *
+ * <p>A tokenizer reuses its buffers between calls, so it must not be shared between threads.
+ */
+final class WordTokenizer {
+  private final IgnoredWordFilter.Checker ignoredWords;
+  private final boolean hasIgnoredWords;
+  private final Token token = new Token();
+  private final boolean asciiLowerCase;
+  private char[] word = new char[32];
+
+  /**
+   * Creates a tokenizer that drops raw tokens matched by the given filter.
+   */
+  WordTokenizer(IgnoredWordFilter ignoredWords) {
+    this.ignoredWords = ignoredWords.newChecker();
+    this.hasIgnoredWords = !ignoredWords.isEmpty();
+    // String#toLowerCase() maps 'I' to a dotless i in these locales.
+    String language = Locale.getDefault().getLanguage();
+    this.asciiLowerCase = !language.equals("tr") && !language.equals("az");
+  }
+
+  /**
+   * Passes every counted word of the given text to {@code words}, in order.
+   */
+  void tokenize(String text, Consumer<String> words) {
+    int end = text.length();
+    while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    int i = 0;
+    while (i < end && Character.isWhitespace(text.charAt(i))) {
+      i++;
+    }
+
+    while (i < end) {
+      int start = i;
+      while (i < end && !isRegexWhitespace(text.charAt(i))) {
+        i++;
+      }
+      emit(text, start, i, words);
+      while (i < end && isRegexWhitespace(text.charAt(i))) {
+        i++;
+      }
+    }
+  }
+
+  private void emit(String text, int start, int end, Consumer<String> words) {
+    if (isBlank(text, start, end)) {
+      return;
+    }
+    if (hasIgnoredWords) {
+      token.set(text, start, end);
+      if (ignoredWords.isIgnored(token)) {
+        return;
+      }
+    }
+
+    if (word.length < end - start) {
+      word = new char[Math.max(end - start, word.length * 2)];
+    }
+    int length = 0;
+    boolean upperCase = false;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_') {
+        word[length++] = c;
+      } else if (c >= 'A' && c <= 'Z') {
+        upperCase = true;
+        word[length++] = asciiLowerCase ? (char) (c + ('a' - 'A')) : c;
+      }
+    }
+    // Tokens made only of punctuation are counted as the empty word, as the regex pipeline does.
+    String result = new String(word, 0, length);
+    words.accept(upperCase && !asciiLowerCase ? result.toLowerCase() : result);
+  }
+
+  /**
+   * Returns true for the characters matched by the regular expression {@code \s}.
+   */
+  private static boolean isRegexWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isBlank(String text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A reusable {@link CharSequence} view of one raw token, so patterns can be matched against it
+   * without copying it out of the text.
+   */
+  private static final class Token implements CharSequence {
+    private String text;
+    private int start;
+    private int end;
+
+    void set(String text, int start, int end) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return text.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return text.subSequence(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return text.substring(start, end);
+    }
+  }
+}
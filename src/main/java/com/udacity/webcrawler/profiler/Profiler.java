@@ -3,6 +3,7 @@ package com.udacity.webcrawler.profiler;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
+import java.util.function.Supplier;
 
 /**
  * A utility that wraps an object that should be performance profiled.
@@ -26,6 +27,18 @@ public interface Profiler {
    */
   <T> T wrap(Class<T> klass, T delegate);
 
+  /**
+   * Registers a named statistic that should be written along with the profile data.
+   *
+   * <p>The value is only computed when the data is written, so the caller can keep updating
+   * whatever the supplier reads. Registering a statistic under a name that is already taken
+   * replaces the old one.
+   *
+   * @param name  the name of the statistic, for example {@code "visitedUrls.bloomFilter.lookups"}.
+   * @param value computes the formatted value of the statistic.
+   */
+  void recordStatistic(String name, Supplier<String> value);
+
   /**
    * Formats the profile data as a string and writes it to the given {@link Path}.
    *
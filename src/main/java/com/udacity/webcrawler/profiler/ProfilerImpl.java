@@ -12,6 +12,7 @@ import java.time.Clock;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
 
@@ -49,6 +50,11 @@ final class ProfilerImpl implements Profiler {
                 new ProfilingMethodInterceptor(clock, delegate, state));
     }
 
+    @Override
+    public void recordStatistic(String name, Supplier<String> value) {
+        state.recordStatistic(name, value);
+    }
+
     @Override
     public void writeData(Path path) throws IOException {
         try (BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.APPEND)) {
@@ -4,10 +4,12 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
  */
 final class ProfilingState {
   public final Map<String, Duration> data = new ConcurrentHashMap<>();
+  private final Map<String, Supplier<String>> statistics = new ConcurrentHashMap<>();
 
   /**
    * Records the given method invocation data.
@@ -34,6 +37,13 @@ final class ProfilingState {
     data.compute(key, (k, v) -> (v == null) ? elapsed : v.plus(elapsed));
   }
 
+  /**
+   * Records a named statistic, whose value is computed when the data is written.
+   */
+  void recordStatistic(String name, Supplier<String> value) {
+    statistics.put(Objects.requireNonNull(name), Objects.requireNonNull(value));
+  }
+
   /**
    * Writes the method invocation data to the given {@link Writer}.
    *
@@ -41,6 +51,8 @@ final class ProfilingState {
    * {@link #record(Class, Method, Duration) record} is called three times for the same method
    * {@code M()}, with each invocation taking 1 second. The total {@link Duration} reported by
    * this {@code write()} method for {@code M()} should be 3 seconds.
+   *
+   * <p>Recorded statistics are written after the method data, one {@code name: value} per line.
    */
   void write(Writer writer) throws IOException {
     List<String> entries =
@@ -48,7 +60,12 @@ final class ProfilingState {
             .stream()
             .sorted(Map.Entry.comparingByKey())
             .map(e -> e.getKey() + " took " + formatDuration(e.getValue()) + System.lineSeparator())
-            .collect(Collectors.toList());
+            .collect(Collectors.toCollection(ArrayList::new));
+    statistics.entrySet()
+        .stream()
+        .sorted(Map.Entry.comparingByKey())
+        .map(e -> e.getKey() + ": " + e.getValue().get() + System.lineSeparator())
+        .forEach(entries::add);
 
     // We have to use a for-loop here instead of a Stream API method because Writer#write() can
     // throw an IOException, and lambdas are not allowed to throw checked exceptions.
@@ -0,0 +1,148 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A {@link WebCrawler} that downloads and processes every page on its own virtual thread.
+ *
+ * <p>Crawling remote sites spends most of its time waiting for responses, so the number of
+ * downloads in flight is not limited by the number of CPU cores, only by a {@link Semaphore} with
+ * one permit per unit of the configured parallelism. A thread waiting for a permit or a response
+ * is a virtual thread, and costs a few hundred bytes instead of a platform thread's stack.
+ *
+ * <p>This class needs Java 21 or later. It lives in {@code src/main/java21}, which is only compiled
+ * by the {@code java21} profile in {@code pom.xml}, and {@link WebCrawlerModule} only registers it
+ * when it is there.
+ */
+final class VirtualThreadWebCrawler implements WebCrawler {
+    private final Clock clock;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final int maxFetches;
+    private final UrlFilter urlFilter;
+    private final Provider<VisitedUrlSet> visitedUrlSets;
+
+    @Inject
+    PageParserFactory pageParserFactory;
+
+    @Inject
+    VirtualThreadWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @MaxDepth int maxDepth,
+            @TargetParallelism int maxFetches,
+            UrlFilter urlFilter,
+            Provider<VisitedUrlSet> visitedUrlSets
+    ) {
+        this.clock = clock;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.maxFetches = Math.max(1, maxFetches);
+        this.urlFilter = urlFilter;
+        this.visitedUrlSets = visitedUrlSets;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        if (startingUrls.isEmpty() || maxDepth == 0) {
+            return new CrawlResult.Builder().build();
+        }
+        Crawl crawl;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            crawl = new Crawl(CrawlDeadline.start(clock, timeout), visitedUrlSets.get(), executor);
+            crawl.claimAndSubmit(startingUrls, maxDepth);
+            crawl.pages.await();
+        }
+
+        Map<String, Integer> wordCounts = crawl.wordCounts.getWordCounts();
+        return new CrawlResult.Builder()
+                .setWordCounts(WordCounts.sort(wordCounts, popularWordCount))
+                .setUrlsVisited(crawl.urlsVisited.size())
+                .setTruncatedByDeadline(crawl.deadline.wasTruncated())
+                .build();
+    }
+
+    /**
+     * Returns {@link Integer#MAX_VALUE}: the parallelism of this crawler is the number of downloads
+     * it keeps in flight, not the number of CPU cores it uses.
+     */
+    @Override
+    public int getMaxParallelism() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * The state of a single crawl, shared by all of its virtual threads.
+     */
+    private final class Crawl {
+        private final CrawlDeadline deadline;
+        private final VisitedUrlSet urlsVisited;
+        // A shard per thread would mean a shard per page here, so every page counts into one map.
+        private final WordCountAggregator wordCounts = new ConcurrentWordCountAggregator();
+        private final Semaphore fetches = new Semaphore(maxFetches);
+        private final PendingPages pages;
+        private final ExecutorService executor;
+
+        Crawl(CrawlDeadline deadline, VisitedUrlSet urlsVisited, ExecutorService executor) {
+            this.deadline = deadline;
+            this.urlsVisited = urlsVisited;
+            this.pages = new PendingPages(deadline, urlsVisited);
+            this.executor = executor;
+        }
+
+        /**
+         * Claims every URL that is not ignored or already claimed, and starts a virtual thread
+         * that crawls it.
+         */
+        void claimAndSubmit(List<String> urls, int depth) {
+            for (String url : urls) {
+                if (url.isEmpty() || urlFilter.isIgnored(url) || !urlsVisited.add(url)) {
+                    continue;
+                }
+                pages.add();
+                executor.execute(() -> {
+                    try {
+                        crawlPage(url, depth);
+                    } catch (RuntimeException | Error e) {
+                        pages.fail(e);
+                    } finally {
+                        pages.finish();
+                    }
+                });
+            }
+        }
+
+        private void crawlPage(String url, int depth) {
+            PageParser.Result result;
+            fetches.acquireUninterruptibly();
+            try {
+                if (pages.skip(url)) {
+                    return;
+                }
+                result = pageParserFactory.get(url).parse();
+            } finally {
+                fetches.release();
+            }
+            result.forEachWordCount(wordCounts::add);
+            List<String> links = result.getLinks();
+            if (pages.shouldFollow(links, depth)) {
+                claimAndSubmit(links, depth - 1);
+            }
+        }
+    }
+}
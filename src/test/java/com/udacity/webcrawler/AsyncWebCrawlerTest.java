@@ -0,0 +1,132 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.udacity.webcrawler.testing.TestPages.writePage;
+
+public final class AsyncWebCrawlerTest {
+
+  // What a thread that waits for a task or a future has on its stack.
+  private static final Set<String> WAITING_METHODS =
+      Set.of("join", "invokeAll", "get", "awaitDone", "awaitJoin", "helpJoin", "waitingGet");
+
+  @Inject
+  private PageParserFactory parserFactory;
+
+  @Test
+  public void stackStaysFlatOnDeepCrawls(@TempDir Path dir) throws IOException {
+    inject();
+    int chainLength = 200;
+    for (int i = 0; i < chainLength; i++) {
+      String next = i + 1 < chainLength ? "<a href=\"page-" + (i + 1) + ".html\">next</a>" : "";
+      Files.writeString(dir.resolve("page-" + i + ".html"), "<p>hello</p>" + next);
+    }
+    AtomicInteger shallowestStack = new AtomicInteger(Integer.MAX_VALUE);
+    AtomicInteger deepestStack = new AtomicInteger();
+    AsyncWebCrawler crawler = newCrawler(Clock.systemUTC(), 2, chainLength);
+    crawler.pageParserFactory = url -> {
+      int stackDepth = Thread.currentThread().getStackTrace().length;
+      shallowestStack.accumulateAndGet(stackDepth, Math::min);
+      deepestStack.accumulateAndGet(stackDepth, Math::max);
+      return parserFactory.get(url);
+    };
+
+    CrawlResult result =
+        crawler.crawl(List.of(dir.resolve("page-0.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(chainLength);
+    assertThat(result.getWordCounts()).containsEntry("hello", chainLength);
+    assertWithMessage("The stack grew with the depth of the crawl")
+        .that(deepestStack.get() - shallowestStack.get())
+        .isLessThan(10);
+  }
+
+  @Test
+  public void neverParsesInsideAJoin(@TempDir Path dir) throws IOException {
+    inject();
+    // A small tree, so that pages have siblings that other workers could steal.
+    for (int i = 1; i <= 31; i++) {
+      if (2 * i <= 31) {
+        writePage(dir, "page-" + i, "page-" + (2 * i), "page-" + (2 * i + 1));
+      } else {
+        writePage(dir, "page-" + i);
+      }
+    }
+    Set<String> waitingFrames = ConcurrentHashMap.newKeySet();
+    AsyncWebCrawler crawler = newCrawler(Clock.systemUTC(), 4, 10);
+    crawler.pageParserFactory = url -> {
+      for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+        if (WAITING_METHODS.contains(frame.getMethodName())) {
+          waitingFrames.add(frame.toString());
+        }
+      }
+      return parserFactory.get(url);
+    };
+
+    CrawlResult result = crawler.crawl(List.of(dir.resolve("page-1.html").toUri().toString()));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(31);
+    assertWithMessage("Pages were parsed by threads waiting for other pages")
+        .that(waitingFrames)
+        .isEmpty();
+  }
+
+  @Test
+  public void rethrowsFailedPages(@TempDir Path dir) throws IOException {
+    inject();
+    writePage(dir, "start", "broken");
+    writePage(dir, "broken");
+    AsyncWebCrawler crawler = newCrawler(Clock.systemUTC(), 2, 10);
+    crawler.pageParserFactory = url -> {
+      if (url.endsWith("broken.html")) {
+        throw new IllegalStateException("broken page");
+      }
+      return parserFactory.get(url);
+    };
+
+    IllegalStateException e = assertThrows(
+        IllegalStateException.class,
+        () -> crawler.crawl(List.of(dir.resolve("start.html").toUri().toString())));
+
+    assertThat(e).hasMessageThat().isEqualTo("broken page");
+  }
+
+  private void inject() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+  }
+
+  private AsyncWebCrawler newCrawler(Clock clock, int threads, int maxDepth) {
+    AsyncWebCrawler crawler =
+        new AsyncWebCrawler(
+            clock,
+            Duration.ofSeconds(30),
+            3,
+            maxDepth,
+            threads,
+            UrlFilter.compile(List.of()),
+            ConcurrentVisitedUrlSet::new);
+    crawler.pageParserFactory = parserFactory;
+    return crawler;
+  }
+}
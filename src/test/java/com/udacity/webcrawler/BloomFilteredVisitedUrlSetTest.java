@@ -0,0 +1,120 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class BloomFilteredVisitedUrlSetTest {
+
+  @Test
+  public void filterHasNoFalseNegatives() {
+    BlockedBloomFilter filter = BlockedBloomFilter.create(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put(FingerprintVisitedUrlSet.hash("http://example.com/" + i));
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(filter.mightContain(FingerprintVisitedUrlSet.hash("http://example.com/" + i)))
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void filterIsCloseToItsTargetFalsePositiveRate() {
+    BlockedBloomFilter filter = BlockedBloomFilter.create(100_000, 0.01);
+    for (int i = 0; i < 100_000; i++) {
+      filter.put(FingerprintVisitedUrlSet.hash("http://example.com/" + i));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain(FingerprintVisitedUrlSet.hash("http://other.org/" + i))) {
+        falsePositives++;
+      }
+    }
+    // Blocking costs some accuracy, but it should stay well within a factor of two.
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+
+  @Test
+  public void exactSetHasTheFinalSay() {
+    BloomFilteredVisitedUrlSet urls = new BloomFilteredVisitedUrlSet(
+        new FingerprintVisitedUrlSet(64, 4), BlockedBloomFilter.create(1_000, 0.01));
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 1_000; i++) {
+        assertThat(urls.add("http://example.com/" + i)).isEqualTo(round == 0);
+      }
+    }
+    assertThat(urls.size()).isEqualTo(1_000);
+
+    BloomFilteredVisitedUrlSet.Statistics statistics = urls.statistics();
+    long falsePositives = statistics.falsePositives.sum();
+    urls.remove("http://example.com/0");
+    assertThat(urls.size()).isEqualTo(999);
+    assertThat(urls.add("http://example.com/0")).isTrue();
+    assertThat(urls.add("http://example.com/0")).isFalse();
+
+    assertThat(statistics.lookups()).isEqualTo(3_002);
+    assertThat(statistics.duplicates.sum()).isEqualTo(2_001);
+    // The filter rightly remembers the removed URL, so adding it again is no false positive.
+    assertThat(statistics.readded.sum()).isEqualTo(1);
+    assertThat(statistics.falsePositives.sum()).isEqualTo(falsePositives);
+    assertThat(statistics.falsePositiveRate()).isLessThan(0.05);
+  }
+
+  @Test
+  public void concurrentClaimsOfANewUrlHaveOneWinner() throws Exception {
+    BloomFilteredVisitedUrlSet urls = new BloomFilteredVisitedUrlSet(
+        new FingerprintVisitedUrlSet(64, 8), BlockedBloomFilter.create(10_000, 0.01));
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CyclicBarrier barrier = new CyclicBarrier(threads);
+      List<Future<Integer>> claims = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        claims.add(executor.submit(() -> {
+          int claimed = 0;
+          for (int i = 0; i < 2_000; i++) {
+            if (i % 100 == 0) {
+              barrier.await();
+            }
+            if (urls.add("http://example.com/" + i)) {
+              claimed++;
+            }
+          }
+          return claimed;
+        }));
+      }
+      int claimed = 0;
+      for (Future<Integer> future : claims) {
+        claimed += future.get(1, TimeUnit.MINUTES);
+      }
+      assertThat(claimed).isEqualTo(2_000);
+      assertThat(urls.size()).isEqualTo(2_000);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void measuresTheCrawlsOwnLookups() {
+    BloomFilteredVisitedUrlSet urls = new BloomFilteredVisitedUrlSet(
+        new FingerprintVisitedUrlSet(64, 4), BlockedBloomFilter.create(1_000, 0.01));
+    BloomFilteredVisitedUrlSet.Statistics statistics = urls.statistics();
+    assertThat(statistics.lookupsPerSecondPerThread()).isEqualTo(0.0);
+
+    for (int i = 0; i < 1_000; i++) {
+      urls.add("http://example.com/" + (i % 100));
+    }
+
+    assertThat(statistics.lookups()).isEqualTo(1_000);
+    assertThat(statistics.lookupNanos.sum()).isGreaterThan(0L);
+    assertThat(statistics.lookupsPerSecondPerThread()).isGreaterThan(0.0);
+  }
+}
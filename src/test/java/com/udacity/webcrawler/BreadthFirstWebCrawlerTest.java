@@ -0,0 +1,119 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.udacity.webcrawler.testing.TestPages.url;
+import static com.udacity.webcrawler.testing.TestPages.writePage;
+
+public final class BreadthFirstWebCrawlerTest {
+
+  @Inject
+  private PageParserFactory parserFactory;
+
+  @Test
+  public void crawlsEveryPageAtItsShortestDistance(@TempDir Path dir) throws IOException {
+    injectParserFactory();
+    // The start page links to the target directly and through a detour. A depth-first crawl that
+    // takes the detour first reaches the target with no depth left, and never finds the leaf.
+    writePage(dir, "start", "detour", "target");
+    writePage(dir, "detour", "target");
+    writePage(dir, "target", "leaf");
+    writePage(dir, "leaf");
+
+    CrawlResult result =
+        newCrawler(Clock.systemUTC(), Duration.ofSeconds(30), 3).crawl(List.of(url(dir, "start")));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(4);
+    assertThat(result.getWordCounts()).containsEntry("leaf", 1);
+    assertThat(result.isTruncatedByDeadline()).isFalse();
+  }
+
+  @Test
+  public void finishesEachLevelBeforeTheNextAndIsDeterministic(@TempDir Path dir)
+      throws IOException {
+    injectParserFactory();
+    // A complete binary tree of depth 5 whose pages also link to the root and to their sibling.
+    int pageCount = (1 << 5) - 1;
+    for (int i = 1; i <= pageCount; i++) {
+      List<String> links = new ArrayList<>(List.of("page-1", "page-" + Math.max(1, i ^ 1)));
+      if (2 * i <= pageCount) {
+        links.add("page-" + (2 * i));
+        links.add("page-" + (2 * i + 1));
+      }
+      writePage(dir, "page-" + i, links.toArray(new String[0]));
+    }
+
+    CrawlResult first = null;
+    for (int run = 0; run < 5; run++) {
+      // Pages take random amounts of time, so the workers finish them in a different order.
+      ConcurrentLinkedQueue<Integer> crawledLevels = new ConcurrentLinkedQueue<>();
+      Map<String, Integer> levels = new ConcurrentHashMap<>();
+      for (int i = 1; i <= pageCount; i++) {
+        levels.put(url(dir, "page-" + i), 32 - Integer.numberOfLeadingZeros(i));
+      }
+      BreadthFirstWebCrawler crawler = newCrawler(Clock.systemUTC(), Duration.ofSeconds(30), 4);
+      crawler.pageParserFactory = url -> () -> {
+        try {
+          Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        crawledLevels.add(levels.get(url));
+        return parserFactory.get(url).parse();
+      };
+
+      CrawlResult result = crawler.crawl(List.of(url(dir, "page-1")));
+
+      assertWithMessage("Pages were not crawled level by level")
+          .that(crawledLevels)
+          .isInOrder();
+      assertThat(result.getUrlsVisited()).isEqualTo((1 << 4) - 1);
+      if (first == null) {
+        first = result;
+      } else {
+        assertThat(result.getWordCounts().entrySet())
+            .containsExactlyElementsIn(first.getWordCounts().entrySet())
+            .inOrder();
+      }
+    }
+  }
+
+  private void injectParserFactory() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+  }
+
+  private BreadthFirstWebCrawler newCrawler(Clock clock, Duration timeout, int maxDepth) {
+    BreadthFirstWebCrawler crawler =
+        new BreadthFirstWebCrawler(
+            clock,
+            timeout,
+            100,
+            maxDepth,
+            4,
+            UrlFilter.compile(List.of()),
+            ConcurrentVisitedUrlSet::new);
+    crawler.pageParserFactory = parserFactory;
+    return crawler;
+  }
+}
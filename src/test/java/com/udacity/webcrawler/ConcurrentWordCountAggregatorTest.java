@@ -0,0 +1,28 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ConcurrentWordCountAggregatorTest {
+  @Test
+  public void sumsCountsFromManyThreads() throws Exception {
+    WordCountAggregator aggregator = new ConcurrentWordCountAggregator();
+    Map<String, Integer> page = Map.of("the", 2, "quick", 1, "fox", 1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 1000; i++) {
+      executor.execute(() -> aggregator.addAll(page));
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(aggregator.getWordCounts())
+        .containsExactly("the", 2000, "quick", 1000, "fox", 1000);
+  }
+}
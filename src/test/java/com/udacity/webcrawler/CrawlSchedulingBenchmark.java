@@ -0,0 +1,209 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the scheduling overhead of a crawl, with page downloads and parsing taken out of the
+ * picture: every page of a synthetic site is parsed once up front, and the crawl is handed the
+ * cached results.
+ *
+ * <p>Every page links to the same navigation pages plus a few random content pages of the next
+ * layer of the site, so most links point to pages that have already been visited.
+ * {@code checkBeforeFork} is {@link CrawResultTask}; {@code forkThenCheck} is the way it used to
+ * work, where a task was forked for every link and only found out it was a duplicate once it ran.
+ * {@code breadthFirst} is a whole {@link BreadthFirstWebCrawler} crawl, which also ranks the
+ * handful of distinct words at the end. {@code priority} is a whole {@link PriorityWebCrawler}
+ * crawl, which also pays for scoring every link and queueing it in a {@link PriorityFrontier}.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CrawlScheduling}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrawlSchedulingBenchmark {
+
+  @Param({"2000"})
+  public int pageCount;
+
+  @Param({"10", "100"})
+  public int navigationLinks;
+
+  @Param({"4"})
+  public int maxDepth;
+
+  private Path site;
+  private String startPage;
+  private Map<String, PageParser.Result> pages;
+  private PageParserFactory cachedParserFactory;
+  private ForkJoinPool pool;
+  private BreadthFirstWebCrawler breadthFirstCrawler;
+  private PriorityWebCrawler priorityCrawler;
+
+  @Setup(Level.Trial)
+  public void generateSite() throws IOException {
+    site = Files.createTempDirectory("crawl-scheduling");
+    Random random = new Random(42);
+    int layerSize = pageCount / maxDepth;
+    for (int i = 0; i < pageCount; i++) {
+      // Pages only link to the next layer, so whichever task claims a page first, it claims it at
+      // the same depth, and both strategies visit exactly the same pages.
+      int nextLayer = (i / layerSize + 1) * layerSize;
+      StringBuilder html = new StringBuilder("<p>page ").append(i).append("</p>");
+      for (int j = 0; j < navigationLinks + 5 && nextLayer < pageCount; j++) {
+        int target = nextLayer + (j < navigationLinks ? j : random.nextInt(layerSize));
+        html.append("<a href=\"page-").append(target).append(".html\">link</a>");
+      }
+      Files.writeString(site.resolve("page-" + i + ".html"), html);
+    }
+
+    PageParserFactory parserFactory =
+        Guice.createInjector(
+                new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+                new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    pages = new HashMap<>();
+    for (int i = 0; i < pageCount; i++) {
+      String url = site.resolve("page-" + i + ".html").toUri().toString();
+      pages.put(url, parserFactory.get(url).parse());
+    }
+    startPage = site.resolve("page-0.html").toUri().toString();
+    cachedParserFactory = url -> () -> pages.get(url);
+    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    breadthFirstCrawler = new BreadthFirstWebCrawler(
+        Clock.systemUTC(),
+        Duration.ofMinutes(1),
+        10,
+        maxDepth,
+        pool.getParallelism(),
+        UrlFilter.compile(List.of()),
+        ConcurrentVisitedUrlSet::new);
+    breadthFirstCrawler.pageParserFactory = cachedParserFactory;
+    priorityCrawler = new PriorityWebCrawler(
+        Clock.systemUTC(),
+        Duration.ofMinutes(1),
+        10,
+        maxDepth,
+        pool.getParallelism(),
+        UrlFilter.compile(List.of()),
+        ConcurrentVisitedUrlSet::new,
+        new DefaultUrlScorer());
+    priorityCrawler.pageParserFactory = cachedParserFactory;
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteSite() throws IOException {
+    pool.shutdown();
+    try (Stream<Path> files = Files.walk(site)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public int checkBeforeFork() {
+    VisitedUrlSet urlsVisited = new ConcurrentVisitedUrlSet();
+    urlsVisited.add(startPage);
+    pool.invoke(new CrawResultTask.Builder()
+        .setUrl(startPage)
+        .setUrlsVisited(urlsVisited)
+        .setDepth(maxDepth)
+        .setPageParserFactory(cachedParserFactory)
+        .setUrlFilter(UrlFilter.compile(List.of()))
+        .setWordCounts(new ShardedWordCountAggregator(pool.getParallelism()))
+        .setDeadline(CrawlDeadline.start(Clock.systemUTC(), Duration.ofMinutes(1)))
+        .build());
+    return urlsVisited.size();
+  }
+
+  @Benchmark
+  public int forkThenCheck() {
+    VisitedUrlSet urlsVisited = new ConcurrentVisitedUrlSet();
+    pool.invoke(new ForkThenCheckTask(
+        startPage,
+        maxDepth,
+        urlsVisited,
+        new ShardedWordCountAggregator(pool.getParallelism())));
+    return urlsVisited.size();
+  }
+
+  @Benchmark
+  public int breadthFirst() {
+    return breadthFirstCrawler.crawl(List.of(startPage)).getUrlsVisited();
+  }
+
+  @Benchmark
+  public int priority() {
+    return priorityCrawler.crawl(List.of(startPage)).getUrlsVisited();
+  }
+
+  /**
+   * The scheduling {@link CrawResultTask} used to do: fork first, deduplicate in the child.
+   */
+  private final class ForkThenCheckTask extends RecursiveAction {
+    private final String url;
+    private final int depth;
+    private final VisitedUrlSet urlsVisited;
+    private final WordCountAggregator wordCounts;
+
+    ForkThenCheckTask(
+        String url, int depth, VisitedUrlSet urlsVisited, WordCountAggregator wordCounts) {
+      this.url = url;
+      this.depth = depth;
+      this.urlsVisited = urlsVisited;
+      this.wordCounts = wordCounts;
+    }
+
+    @Override
+    protected void compute() {
+      if (depth == 0 || !urlsVisited.add(url)) {
+        return;
+      }
+      PageParser.Result result = cachedParserFactory.get(url).parse();
+      result.forEachWordCount(wordCounts::add);
+      if (depth == 1) {
+        return;
+      }
+      List<ForkThenCheckTask> subtasks = new ArrayList<>();
+      for (String link : result.getLinks()) {
+        subtasks.add(new ForkThenCheckTask(link, depth - 1, urlsVisited, wordCounts));
+      }
+      invokeAll(subtasks);
+    }
+  }
+}
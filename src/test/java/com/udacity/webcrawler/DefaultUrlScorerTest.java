@@ -0,0 +1,40 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class DefaultUrlScorerTest {
+  private final UrlScorer scorer = new DefaultUrlScorer();
+
+  @Test
+  public void prefersShallowPages() {
+    assertThat(scorer.score("http://example.com/a", 1, 1))
+        .isGreaterThan(scorer.score("http://example.com/a", 2, 1));
+    // Fifteen times the inlinks are not enough to make up for one more link from the start.
+    assertThat(scorer.score("http://example.com/a", 1, 1))
+        .isGreaterThan(scorer.score("http://example.com/a", 2, 15));
+  }
+
+  @Test
+  public void prefersPagesWithMoreInlinks() {
+    assertThat(scorer.score("http://example.com/a", 2, 4))
+        .isGreaterThan(scorer.score("http://example.com/a", 2, 2));
+    assertThat(scorer.score("http://example.com/a", 2, 2))
+        .isGreaterThan(scorer.score("http://example.com/a", 2, 1));
+  }
+
+  @Test
+  public void prefersShortPathsWithoutQueries() {
+    assertThat(scorer.score("http://example.com/about", 1, 1))
+        .isGreaterThan(scorer.score("http://example.com/blog/2021/05/about", 1, 1));
+    assertThat(scorer.score("http://example.com/about", 1, 1))
+        .isGreaterThan(scorer.score("http://example.com/about?page=2", 1, 1));
+  }
+
+  @Test
+  public void pathNeverOutweighsInlinks() {
+    assertThat(scorer.score("http://example.com/a/b/c/d/e/f/g/h/i?j=k", 1, 2))
+        .isGreaterThan(scorer.score("http://example.com/", 1, 1));
+  }
+}
@@ -0,0 +1,99 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class FingerprintVisitedUrlSetTest {
+
+  @Test
+  public void claimsEachUrlOnce() {
+    VisitedUrlSet urls = new FingerprintVisitedUrlSet(64, 4);
+    assertThat(urls.add("http://example.com/")).isTrue();
+    assertThat(urls.add("http://example.com/a")).isTrue();
+    assertThat(urls.add("http://example.com/")).isFalse();
+    assertThat(urls.size()).isEqualTo(2);
+
+    urls.remove("http://example.com/");
+    urls.remove("http://example.com/never-added");
+    assertThat(urls.size()).isEqualTo(1);
+    assertThat(urls.add("http://example.com/")).isTrue();
+    assertThat(urls.add("http://example.com/a")).isFalse();
+  }
+
+  @Test
+  public void behavesLikeHashSet() {
+    // Small tables and lots of removals, to exercise growing and backward-shift deletion.
+    for (int bits : List.of(32, 48, 64)) {
+      VisitedUrlSet urls = new FingerprintVisitedUrlSet(bits, 1);
+      Set<String> expected = new HashSet<>();
+      Random random = new Random(bits);
+      for (int i = 0; i < 50_000; i++) {
+        String url = "http://example.com/page-" + random.nextInt(20_000);
+        if (random.nextInt(3) == 0) {
+          urls.remove(url);
+          expected.remove(url);
+        } else {
+          assertWithMessage("add(%s) with %s bits", url, bits)
+              .that(urls.add(url))
+              .isEqualTo(expected.add(url));
+        }
+      }
+      assertThat(urls.size()).isEqualTo(expected.size());
+    }
+  }
+
+  @Test
+  public void concurrentAddsClaimEachUrlOnce() throws Exception {
+    int threads = 8;
+    List<String> pages = IntStream.range(0, 20_000)
+        .mapToObj(i -> "http://example.com/" + i)
+        .collect(Collectors.toList());
+    VisitedUrlSet urls = new FingerprintVisitedUrlSet(64, threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> claims = IntStream.range(0, threads)
+          .mapToObj(t -> executor.submit(() -> {
+            start.await();
+            int claimed = 0;
+            for (String page : pages) {
+              if (urls.add(page)) {
+                claimed++;
+              }
+            }
+            return claimed;
+          }))
+          .collect(Collectors.toList());
+      start.countDown();
+      int total = 0;
+      for (Future<Integer> claim : claims) {
+        total += claim.get(30, TimeUnit.SECONDS);
+      }
+      assertThat(total).isEqualTo(pages.size());
+      assertThat(urls.size()).isEqualTo(pages.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void rejectsUnsupportedFingerprintSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new FingerprintVisitedUrlSet(16, 1));
+    assertThrows(IllegalArgumentException.class, () -> new FingerprintVisitedUrlSet(65, 1));
+  }
+}
@@ -0,0 +1,120 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HostFrontierTest {
+
+  @Test
+  public void findsTheHostOfAUrl() {
+    assertThat(HostFrontier.hostOf("http://Example.com:8080/a?b")).isEqualTo("Example.com");
+    assertThat(HostFrontier.hostOf("file:///tmp/page.html")).isEmpty();
+    assertThat(HostFrontier.hostOf("not a url")).isEmpty();
+  }
+
+  @Test
+  public void limitsRequestsPerHost() {
+    HostFrontier<String> frontier = new HostFrontier<>(new FakeClock(), 2, Duration.ZERO);
+    frontier.add("a", "a1");
+    frontier.add("a", "a2");
+    frontier.add("a", "a3");
+
+    assertThat(frontier.poll()).isEqualTo("a1");
+    assertThat(frontier.poll()).isEqualTo("a2");
+    assertThat(frontier.poll()).isNull();
+    assertThat(frontier.size()).isEqualTo(1);
+
+    frontier.release("a");
+    assertThat(frontier.poll()).isEqualTo("a3");
+  }
+
+  @Test
+  public void waitsBetweenRequestsToTheSameHost() {
+    FakeClock clock = new FakeClock();
+    HostFrontier<String> frontier = new HostFrontier<>(clock, 5, Duration.ofMillis(100));
+    frontier.add("a", "a1");
+    frontier.add("a", "a2");
+    frontier.add("b", "b1");
+
+    assertThat(frontier.poll()).isEqualTo("a1");
+    assertThat(frontier.poll()).isEqualTo("b1");
+    assertThat(frontier.poll()).isNull();
+
+    clock.tick(Duration.ofMillis(99));
+    assertThat(frontier.poll()).isNull();
+    clock.tick(Duration.ofMillis(1));
+    assertThat(frontier.poll()).isEqualTo("a2");
+  }
+
+  @Test
+  public void takesTurnsBetweenHosts() {
+    HostFrontier<String> frontier = new HostFrontier<>(new FakeClock(), 10, Duration.ZERO);
+    for (int i = 1; i <= 3; i++) {
+      frontier.add("a", "a" + i);
+    }
+    frontier.add("b", "b1");
+    frontier.add("c", "c1");
+    frontier.add("c", "c2");
+
+    List<String> order = new ArrayList<>();
+    for (String next = frontier.poll(); next != null; next = frontier.poll()) {
+      order.add(next);
+    }
+
+    assertThat(order).containsExactly("a1", "b1", "c1", "a2", "c2", "a3").inOrder();
+  }
+
+  @Test
+  public void doesNotLimitUrlsWithoutAHost() {
+    HostFrontier<String> frontier = new HostFrontier<>(new FakeClock(), 1, Duration.ofHours(1));
+    for (int i = 0; i < 5; i++) {
+      frontier.add("", "file" + i);
+    }
+    for (int i = 0; i < 5; i++) {
+      assertThat(frontier.poll()).isEqualTo("file" + i);
+    }
+  }
+
+  @Test
+  public void keepsTheDelayOfHostsThatWentIdle() {
+    FakeClock clock = new FakeClock();
+    HostFrontier<String> frontier = new HostFrontier<>(clock, 1, Duration.ofMillis(100));
+    frontier.add("a", "a1");
+    assertThat(frontier.poll()).isEqualTo("a1");
+    frontier.release("a");
+
+    clock.tick(Duration.ofMillis(50));
+    frontier.add("a", "a2");
+    assertThat(frontier.poll()).isNull();
+    clock.tick(Duration.ofMillis(50));
+    assertThat(frontier.poll()).isEqualTo("a2");
+  }
+
+  @Test
+  public void takeReturnsNullOnceClosed() throws Exception {
+    HostFrontier<String> frontier = new HostFrontier<>(new FakeClock(), 1, Duration.ZERO);
+    List<String> taken = new ArrayList<>();
+    Thread taker = new Thread(() -> {
+      try {
+        taken.add(frontier.take());
+        taken.add(frontier.take());
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    taker.start();
+    frontier.add("a", "a1");
+    Thread.sleep(50);
+    frontier.close();
+    taker.join(5_000);
+
+    assertThat(taker.isAlive()).isFalse();
+    assertThat(taken).containsExactly("a1", null).inOrder();
+  }
+}
@@ -0,0 +1,122 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how the {@link LinkBatchSize} of {@link CrawResultTask} affects the scheduling overhead
+ * of crawling wide sites, with page downloads and parsing taken out of the picture like in
+ * {@link CrawlSchedulingBenchmark}.
+ *
+ * <p>The site is a tree in which every page links to {@code fanOut} pages that nothing else links
+ * to, so every link is claimed and crawled, and the cost of scheduling it is not hidden behind
+ * duplicate checks. A batch size of 1 splits every page's links all the way down to one task per
+ * link.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LinkBatch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkBatchBenchmark {
+
+  @Param({"30", "100"})
+  public int fanOut;
+
+  @Param({"1", "4", "8", "32"})
+  public int linkBatchSize;
+
+  private static final int MAX_DEPTH = 3;
+
+  private Path site;
+  private String startPage;
+  private Map<String, PageParser.Result> pages;
+  private PageParserFactory cachedParserFactory;
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void generateSite() throws IOException {
+    site = Files.createTempDirectory("link-batch");
+    int pageCount = 1 + fanOut + fanOut * fanOut;
+    for (int i = 0; i < pageCount; i++) {
+      StringBuilder html = new StringBuilder("<p>page ").append(i % 100).append("</p>");
+      // Page i is the parent of pages i * fanOut + 1 to i * fanOut + fanOut.
+      for (int child = i * fanOut + 1; child <= i * fanOut + fanOut && child < pageCount; child++) {
+        html.append("<a href=\"page-").append(child).append(".html\">link</a>");
+      }
+      Files.writeString(site.resolve("page-" + i + ".html"), html);
+    }
+
+    PageParserFactory parserFactory =
+        Guice.createInjector(
+                new WebCrawlerModule(new CrawlerConfiguration.Builder().build()),
+                new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    pages = new HashMap<>();
+    for (int i = 0; i < pageCount; i++) {
+      String url = site.resolve("page-" + i + ".html").toUri().toString();
+      pages.put(url, parserFactory.get(url).parse());
+    }
+    startPage = site.resolve("page-0.html").toUri().toString();
+    cachedParserFactory = url -> () -> pages.get(url);
+    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteSite() throws IOException {
+    pool.shutdown();
+    try (Stream<Path> files = Files.walk(site)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public int crawl() {
+    VisitedUrlSet urlsVisited = new ConcurrentVisitedUrlSet();
+    urlsVisited.add(startPage);
+    pool.invoke(new CrawResultTask.Builder()
+        .setUrl(startPage)
+        .setUrlsVisited(urlsVisited)
+        .setDepth(MAX_DEPTH)
+        .setPageParserFactory(cachedParserFactory)
+        .setUrlFilter(UrlFilter.compile(List.of()))
+        .setLinkBatchSize(linkBatchSize)
+        .setWordCounts(new ShardedWordCountAggregator(pool.getParallelism()))
+        .setDeadline(CrawlDeadline.start(Clock.systemUTC(), Duration.ofMinutes(1)))
+        .build());
+    return urlsVisited.size();
+  }
+}
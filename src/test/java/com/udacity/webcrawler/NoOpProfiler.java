@@ -5,6 +5,7 @@ import com.udacity.webcrawler.profiler.Profiler;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A fake {@link Profiler} implementation that does nothing.
@@ -17,6 +18,12 @@ public final class NoOpProfiler implements Profiler {
     return Objects.requireNonNull(delegate);
   }
 
+  @Override
+  public void recordStatistic(String name, Supplier<String> value) {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(value);
+  }
+
   @Override
   public void writeData(Path path) {
     Objects.requireNonNull(path);
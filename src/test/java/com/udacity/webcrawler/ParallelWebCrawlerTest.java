@@ -1,17 +1,37 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public final class ParallelWebCrawlerTest {
+
   @Inject
   private ParallelWebCrawler parallelWebCrawler;
 
+  @Inject
+  private PageParserFactory parserFactory;
+
   @Test
   public void testMaxParallelism() {
     CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
@@ -19,4 +39,119 @@ public final class ParallelWebCrawlerTest {
         .injectMembers(this);
     assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
   }
+
+  @Test
+  public void crawlsAllStartPagesConcurrently(@TempDir Path dir) throws Exception {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    int parallelism = Math.min(4, parallelWebCrawler.getMaxParallelism());
+    assumeTrue(parallelism > 1, "needs more than one CPU core");
+
+    // Seed i is the head of a chain of i + 1 pages, so the seeds' subtrees have different depths.
+    int seedCount = 8;
+    List<String> seeds = new ArrayList<>();
+    int pageCount = 0;
+    for (int i = 0; i < seedCount; i++) {
+      for (int j = 0; j <= i; j++) {
+        String next = j < i ? "<a href=\"seed-" + i + "-" + (j + 1) + ".html\">next</a>" : "";
+        Files.writeString(
+            dir.resolve("seed-" + i + "-" + j + ".html"), "<p>hello " + i + "</p>" + next);
+        pageCount++;
+      }
+      seeds.add(dir.resolve("seed-" + i + "-0.html").toUri().toString());
+    }
+
+    // The first downloads only complete once every worker is downloading at the same time. If the
+    // seeds were crawled one after another, only one download would ever be in flight.
+    CountDownLatch allWorkersBusy = new CountDownLatch(parallelism);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger peakInFlight = new AtomicInteger();
+    ParallelWebCrawler crawler = new ParallelWebCrawler(
+        Clock.systemUTC(),
+        Duration.ofSeconds(30),
+        3,
+        10,
+        parallelism,
+        UrlFilter.compile(List.of()),
+        8,
+        ConcurrentVisitedUrlSet::new);
+    crawler.pageParserFactory = url -> () -> {
+      peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        allWorkersBusy.countDown();
+        allWorkersBusy.await(5, TimeUnit.SECONDS);
+        return parserFactory.get(url).parse();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    };
+
+    CrawlResult result = crawler.crawl(seeds);
+
+    assertWithMessage("Not every worker was busy downloading pages")
+        .that(peakInFlight.get())
+        .isEqualTo(parallelism);
+    assertThat(result.getUrlsVisited()).isEqualTo(pageCount);
+    assertThat(result.getWordCounts()).containsEntry("hello", pageCount);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 8, 1000})
+  public void crawlsTheLinksOfOnePageConcurrently(int linkBatchSize, @TempDir Path dir)
+      throws Exception {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    int parallelism = Math.min(4, parallelWebCrawler.getMaxParallelism());
+    assumeTrue(parallelism > 1, "needs more than one CPU core");
+
+    // Even when a whole page fits in one batch, idle workers get some of its links.
+    int linkCount = 64;
+    StringBuilder start = new StringBuilder("<p>start</p>");
+    for (int i = 0; i < linkCount; i++) {
+      Files.writeString(dir.resolve("page-" + i + ".html"), "<p>hello " + i + "</p>");
+      start.append("<a href=\"page-").append(i).append(".html\">link</a>");
+    }
+    Files.writeString(dir.resolve("start.html"), start);
+    String startUrl = dir.resolve("start.html").toUri().toString();
+
+    CountDownLatch allWorkersBusy = new CountDownLatch(parallelism);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger peakInFlight = new AtomicInteger();
+    ParallelWebCrawler crawler = new ParallelWebCrawler(
+        Clock.systemUTC(),
+        Duration.ofSeconds(30),
+        3,
+        10,
+        parallelism,
+        UrlFilter.compile(List.of()),
+        linkBatchSize,
+        ConcurrentVisitedUrlSet::new);
+    crawler.pageParserFactory = url -> () -> {
+      if (url.equals(startUrl)) {
+        return parserFactory.get(url).parse();
+      }
+      peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        allWorkersBusy.countDown();
+        allWorkersBusy.await(5, TimeUnit.SECONDS);
+        return parserFactory.get(url).parse();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    };
+
+    CrawlResult result = crawler.crawl(List.of(startUrl));
+
+    assertWithMessage("Not every worker was busy downloading pages")
+        .that(peakInFlight.get())
+        .isEqualTo(parallelism);
+    assertThat(result.getUrlsVisited()).isEqualTo(linkCount + 1);
+    assertThat(result.getWordCounts()).containsEntry("hello", linkCount);
+  }
 }
@@ -0,0 +1,294 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.sun.net.httpserver.HttpServer;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class PipelinedWebCrawlerTest {
+
+  @Inject
+  private PageFetcher fetcher;
+
+  @Inject
+  private PageParserFactory parserFactory;
+
+  @Test
+  public void downloadsAndParsesOnSeparatePools(@TempDir Path dir) throws IOException {
+    inject();
+    List<String> startPages = writePages(dir, 20);
+    Set<Thread> fetchThreads = ConcurrentHashMap.newKeySet();
+    Set<Thread> parseThreads = ConcurrentHashMap.newKeySet();
+    PipelinedWebCrawler crawler = newCrawler(Clock.systemUTC(), 3, 2, 4);
+    crawler.pageFetcher = url -> {
+      fetchThreads.add(Thread.currentThread());
+      return fetcher.fetch(url);
+    };
+    crawler.pageParserFactory = new PageParserFactory() {
+      @Override
+      public PageParser get(String url) {
+        throw new AssertionError("Downloaded " + url + " again");
+      }
+
+      @Override
+      public PageParser get(FetchedPage page) {
+        parseThreads.add(Thread.currentThread());
+        return parserFactory.get(page);
+      }
+    };
+
+    CrawlResult result = crawler.crawl(startPages);
+
+    assertThat(result.getUrlsVisited()).isEqualTo(20);
+    assertThat(result.getWordCounts()).containsEntry("hello", 20);
+    assertThat(fetchThreads.size()).isAtMost(3);
+    for (Thread thread : fetchThreads) {
+      assertThat(thread.getName()).startsWith("crawler-fetch-");
+    }
+    assertThat(parseThreads.size()).isAtMost(2);
+    for (Thread thread : parseThreads) {
+      assertThat(thread.getName()).startsWith("crawler-parse-");
+    }
+  }
+
+  @Test
+  public void downloadsWaitForSlowParsers(@TempDir Path dir) throws Exception {
+    inject();
+    List<String> startPages = writePages(dir, 50);
+    int fetchThreads = 2;
+    int queueCapacity = 3;
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch parserReleased = new CountDownLatch(1);
+    PipelinedWebCrawler crawler = newCrawler(Clock.systemUTC(), fetchThreads, 1, queueCapacity);
+    crawler.pageFetcher = url -> {
+      fetches.incrementAndGet();
+      return fetcher.fetch(url);
+    };
+    crawler.pageParserFactory = new PageParserFactory() {
+      @Override
+      public PageParser get(String url) {
+        return parserFactory.get(url);
+      }
+
+      @Override
+      public PageParser get(FetchedPage page) {
+        try {
+          parserReleased.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return parserFactory.get(page);
+      }
+    };
+
+    Thread crawl = new Thread(() -> crawler.crawl(startPages));
+    crawl.start();
+    // One page is being parsed, the queue is full, and every download thread is waiting for room.
+    int stalledFetches = 1 + queueCapacity + fetchThreads;
+    while (fetches.get() < stalledFetches) {
+      Thread.sleep(1);
+    }
+    Thread.sleep(100);
+    assertWithMessage("Downloads did not wait for the parser")
+        .that(fetches.get())
+        .isEqualTo(stalledFetches);
+
+    parserReleased.countDown();
+    crawl.join(10_000);
+    assertThat(fetches.get()).isEqualTo(50);
+  }
+
+  @Test
+  public void limitsConcurrentRequestsPerHost() throws IOException {
+    inject();
+    Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    Map<String, AtomicInteger> peakInFlight = new ConcurrentHashMap<>();
+    AtomicInteger totalInFlight = new AtomicInteger();
+    AtomicInteger peakTotalInFlight = new AtomicInteger();
+    HttpServer server = startServer(host -> {
+      int now = inFlight.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+      peakInFlight.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+      peakTotalInFlight.accumulateAndGet(totalInFlight.incrementAndGet(), Math::max);
+      sleep(50);
+      totalInFlight.decrementAndGet();
+      inFlight.get(host).decrementAndGet();
+    });
+    try {
+      PipelinedWebCrawler crawler =
+          newCrawler(Clock.systemUTC(), 8, 2, 16, 2, Duration.ZERO);
+
+      CrawlResult result = crawler.crawl(serverPages(server, 8));
+
+      assertThat(result.getUrlsVisited()).isEqualTo(16);
+      assertThat(result.getWordCounts()).containsEntry("hello", 16);
+      assertThat(peakInFlight).hasSize(2);
+      for (Map.Entry<String, AtomicInteger> peak : peakInFlight.entrySet()) {
+        assertWithMessage("Requests in flight to %s", peak.getKey())
+            .that(peak.getValue().get())
+            .isAtMost(2);
+      }
+      assertWithMessage("Requests to different hosts did not overlap")
+          .that(peakTotalInFlight.get())
+          .isGreaterThan(2);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void waitsBetweenRequestsToTheSameHost() throws IOException {
+    inject();
+    HttpServer server = startServer(host -> {
+    });
+    try {
+      Duration delay = Duration.ofMillis(100);
+      PipelinedWebCrawler crawler = newCrawler(Clock.systemUTC(), 4, 2, 16, 4, delay);
+      Map<String, ConcurrentLinkedQueue<Long>> requestTimes = new ConcurrentHashMap<>();
+      crawler.pageFetcher = url -> {
+        requestTimes
+            .computeIfAbsent(HostFrontier.hostOf(url), h -> new ConcurrentLinkedQueue<>())
+            .add(System.nanoTime());
+        return fetcher.fetch(url);
+      };
+
+      CrawlResult result = crawler.crawl(serverPages(server, 4));
+
+      assertThat(result.getUrlsVisited()).isEqualTo(8);
+      assertThat(requestTimes).hasSize(2);
+      for (Map.Entry<String, ConcurrentLinkedQueue<Long>> times : requestTimes.entrySet()) {
+        List<Long> sorted = new ArrayList<>(times.getValue());
+        sorted.sort(null);
+        for (int i = 1; i < sorted.size(); i++) {
+          // A little slack for the time between handing out a URL and starting its download.
+          assertWithMessage("Time between requests to %s", times.getKey())
+              .that(Duration.ofNanos(sorted.get(i) - sorted.get(i - 1)))
+              .isAtLeast(delay.minusMillis(10));
+        }
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  /**
+   * Starts a server on the loopback address that serves a small HTML page for every path, and
+   * tells the given listener the Host header of every request before it responds.
+   */
+  private static HttpServer startServer(RequestListener listener) throws IOException {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/", exchange -> {
+      listener.onRequest(exchange.getRequestHeaders().getFirst("Host"));
+      byte[] body = "<p>hello</p>".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  /**
+   * Returns the given number of page URLs on each of two host names of the given server.
+   */
+  private static List<String> serverPages(HttpServer server, int pagesPerHost) {
+    int port = server.getAddress().getPort();
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < pagesPerHost; i++) {
+      urls.add("http://127.0.0.1:" + port + "/page-" + i);
+      urls.add("http://localhost:" + port + "/page-" + i);
+    }
+    return urls;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private interface RequestListener {
+    void onRequest(String host);
+  }
+
+  private void inject() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+  }
+
+  private PipelinedWebCrawler newCrawler(
+      Clock clock, int fetchThreads, int parseThreads, int queueCapacity) {
+    return newCrawler(clock, fetchThreads, parseThreads, queueCapacity, 2, Duration.ZERO);
+  }
+
+  private PipelinedWebCrawler newCrawler(
+      Clock clock,
+      int fetchThreads,
+      int parseThreads,
+      int queueCapacity,
+      int maxRequestsPerHost,
+      Duration hostRequestDelay) {
+    PipelinedWebCrawler crawler =
+        new PipelinedWebCrawler(
+            clock,
+            Duration.ofSeconds(30),
+            3,
+            10,
+            fetchThreads,
+            parseThreads,
+            queueCapacity,
+            maxRequestsPerHost,
+            hostRequestDelay,
+            UrlFilter.compile(List.of()),
+            ConcurrentVisitedUrlSet::new);
+    crawler.pageFetcher = fetcher;
+    crawler.pageParserFactory = parserFactory;
+    return crawler;
+  }
+
+  private static List<String> writePages(Path dir, int count) throws IOException {
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Path page = dir.resolve("page-" + i + ".html");
+      Files.writeString(page, "<p>hello " + i + "</p>");
+      urls.add(page.toUri().toString());
+    }
+    return urls;
+  }
+}
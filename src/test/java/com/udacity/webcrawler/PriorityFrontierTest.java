@@ -0,0 +1,138 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PriorityFrontierTest {
+
+  @Test
+  public void isEmptyAtFirst() {
+    assertThat(new PriorityFrontier<String>(4).poll()).isNull();
+  }
+
+  @Test
+  public void singleThreadGetsAnExactOrder() {
+    PriorityFrontier<String> frontier = new PriorityFrontier<>(1);
+    frontier.add("low", 1);
+    frontier.add("high", 3);
+    frontier.add("middle", 2);
+    frontier.add("middle again", 2);
+
+    assertThat(frontier.poll()).isEqualTo("high");
+    assertThat(frontier.poll()).isEqualTo("middle");
+    assertThat(frontier.poll()).isEqualTo("middle again");
+    assertThat(frontier.poll()).isEqualTo("low");
+    assertThat(frontier.poll()).isNull();
+  }
+
+  @Test
+  public void pollsOneOfTheBestItems() {
+    PriorityFrontier<Integer> frontier = new PriorityFrontier<>(2);
+    List<Integer> priorities = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      priorities.add(i);
+    }
+    Collections.shuffle(priorities);
+    priorities.forEach(priority -> frontier.add(priority, priority));
+
+    // Every shard holds about a quarter of the best 1,000 items, and a shard only hands out a
+    // worse item once all of its better ones are gone.
+    for (int i = 0; i < 100; i++) {
+      assertThat(frontier.poll()).isAtLeast(9_000);
+    }
+  }
+
+  @Test
+  public void concurrentUsersNeitherLoseNorDuplicateItems() throws Exception {
+    int threads = 4;
+    int itemsPerThread = 10_000;
+    PriorityFrontier<Integer> frontier = new PriorityFrontier<>(threads);
+    Set<Integer> polled = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> duplicates = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int first = t * itemsPerThread;
+        duplicates.add(executor.submit(() -> {
+          int duplicateCount = 0;
+          for (int i = first; i < first + itemsPerThread; i++) {
+            frontier.add(i, i % 100);
+            if (i % 2 == 1) {
+              Integer item = frontier.poll();
+              if (item != null && !polled.add(item)) {
+                duplicateCount++;
+              }
+            }
+          }
+          return duplicateCount;
+        }));
+      }
+      for (Future<Integer> duplicateCount : duplicates) {
+        assertThat(duplicateCount.get()).isEqualTo(0);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    for (Integer item = frontier.poll(); item != null; item = frontier.poll()) {
+      assertThat(polled.add(item)).isTrue();
+    }
+
+    assertThat(polled).hasSize(threads * itemsPerThread);
+  }
+
+  @Test
+  public void takeWaitsForAnItem() throws Exception {
+    PriorityFrontier<String> frontier = new PriorityFrontier<>(4);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> takers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        takers.add(executor.submit(frontier::take));
+      }
+      Thread.sleep(50);
+      for (Future<String> taker : takers) {
+        assertThat(taker.isDone()).isFalse();
+      }
+
+      Set<String> added = Set.of("a", "b", "c", "d");
+      added.forEach(item -> frontier.add(item, 1));
+      Set<String> taken = ConcurrentHashMap.newKeySet();
+      for (Future<String> taker : takers) {
+        taken.add(taker.get(10, TimeUnit.SECONDS));
+      }
+      assertThat(taken).containsExactlyElementsIn(added);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void closeWakesEveryTaker() throws Exception {
+    PriorityFrontier<String> frontier = new PriorityFrontier<>(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = executor.submit(frontier::take);
+      Future<String> second = executor.submit(frontier::take);
+      Thread.sleep(50);
+
+      frontier.close();
+      assertThat(first.get(10, TimeUnit.SECONDS)).isNull();
+      assertThat(second.get(10, TimeUnit.SECONDS)).isNull();
+      frontier.add("late", 1);
+      assertThat(frontier.take()).isNull();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.FakeClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.udacity.webcrawler.testing.TestPages.url;
+import static com.udacity.webcrawler.testing.TestPages.writePage;
+
+public final class PriorityWebCrawlerTest {
+
+  @Inject
+  private PageParserFactory parserFactory;
+
+  @Test
+  public void crawlsPagesWithMoreInlinksFirst(@TempDir Path dir) throws IOException {
+    inject();
+    writePage(dir, "start", "hub-1", "hub-2", "hub-3");
+    writePage(dir, "hub-1", "obscure", "popular");
+    writePage(dir, "hub-2", "popular");
+    writePage(dir, "hub-3", "popular");
+    writePage(dir, "popular");
+    writePage(dir, "obscure");
+    Queue<String> crawled = new ConcurrentLinkedQueue<>();
+    PriorityWebCrawler crawler = newCrawler(Clock.systemUTC(), Duration.ofSeconds(30), 1);
+    crawler.pageParserFactory = url -> {
+      crawled.add(url);
+      return parserFactory.get(url);
+    };
+
+    CrawlResult result = crawler.crawl(List.of(url(dir, "start")));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(6);
+    // The parser does not keep the order of the links, so the hubs may come in any order.
+    List<String> order = new ArrayList<>(crawled);
+    assertThat(order.get(0)).isEqualTo(url(dir, "start"));
+    assertThat(order.subList(1, 4))
+        .containsExactly(url(dir, "hub-1"), url(dir, "hub-2"), url(dir, "hub-3"));
+    assertThat(order.subList(4, 6))
+        .containsExactly(url(dir, "popular"), url(dir, "obscure"))
+        .inOrder();
+  }
+
+  @Test
+  public void spendsATimeBudgetOnTheShallowestPages(@TempDir Path dir) throws IOException {
+    inject();
+    // A depth-first crawl follows the chain first, and runs out of time before the topics.
+    List<String> topics = new ArrayList<>(List.of("chain-1"));
+    for (int i = 1; i <= 8; i++) {
+      topics.add("topic-" + i);
+      writePage(dir, "topic-" + i);
+    }
+    writePage(dir, "start", topics.toArray(new String[0]));
+    for (int i = 1; i < 8; i++) {
+      writePage(dir, "chain-" + i, "chain-" + (i + 1));
+    }
+    writePage(dir, "chain-8");
+    FakeClock clock = new FakeClock();
+    Queue<String> crawled = new ConcurrentLinkedQueue<>();
+    PriorityWebCrawler crawler = newCrawler(clock, Duration.ofMillis(5_500), 1);
+    crawler.pageParserFactory = url -> {
+      crawled.add(url);
+      clock.tick(Duration.ofSeconds(1));
+      return parserFactory.get(url);
+    };
+
+    CrawlResult result = crawler.crawl(List.of(url(dir, "start")));
+
+    // The start page and five of the pages it links to fit in the budget.
+    assertThat(result.isTruncatedByDeadline()).isTrue();
+    assertThat(result.getUrlsVisited()).isEqualTo(6);
+    assertThat(result.getWordCounts().get("topic")).isAtLeast(4);
+    for (int i = 2; i <= 8; i++) {
+      assertThat(crawled).doesNotContain(url(dir, "chain-" + i));
+    }
+  }
+
+  @Test
+  public void crawlsEveryPageWithManyWorkers(@TempDir Path dir) throws IOException {
+    inject();
+    // Every page links to the next ten, so most pages are found many times before they are crawled.
+    int pageCount = 200;
+    for (int i = 0; i < pageCount; i++) {
+      List<String> links = new ArrayList<>();
+      for (int j = i + 1; j <= Math.min(pageCount - 1, i + 10); j++) {
+        links.add("page-" + j);
+      }
+      writePage(dir, "page-" + i, links.toArray(new String[0]));
+    }
+
+    CrawlResult result =
+        newCrawler(Clock.systemUTC(), Duration.ofSeconds(30), 4).crawl(List.of(url(dir, "page-0")));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(pageCount);
+    assertThat(result.getWordCounts()).containsEntry("page", pageCount);
+    assertThat(result.isTruncatedByDeadline()).isFalse();
+  }
+
+  @Test
+  public void stopsAtTheFirstErrorAndKeepsItsWorkers(@TempDir Path dir) throws IOException {
+    inject();
+    writePage(dir, "start", "broken", "chain-1");
+    writePage(dir, "broken");
+    for (int i = 1; i < 5; i++) {
+      writePage(dir, "chain-" + i, "chain-" + (i + 1));
+    }
+    writePage(dir, "chain-5");
+    Queue<String> crawled = new ConcurrentLinkedQueue<>();
+    PriorityWebCrawler crawler = newCrawler(Clock.systemUTC(), Duration.ofSeconds(30), 1);
+    crawler.pageParserFactory = url -> {
+      crawled.add(url);
+      if (url.endsWith("broken.html")) {
+        throw new AssertionError("broken page");
+      }
+      return parserFactory.get(url);
+    };
+
+    AssertionError e =
+        assertThrows(AssertionError.class, () -> crawler.crawl(List.of(url(dir, "start"))));
+
+    assertThat(e).hasMessageThat().isEqualTo("broken page");
+    // The broken page scores better than anything below the first link of the chain.
+    assertThat(crawled).doesNotContain(url(dir, "chain-2"));
+    // The only worker survived the error, so the next crawl still finishes.
+    crawler.pageParserFactory = parserFactory;
+    assertThat(crawler.crawl(List.of(url(dir, "chain-1"))).getUrlsVisited()).isEqualTo(5);
+  }
+
+  private void inject() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+  }
+
+  private PriorityWebCrawler newCrawler(Clock clock, Duration timeout, int threads) {
+    PriorityWebCrawler crawler =
+        new PriorityWebCrawler(
+            clock,
+            timeout,
+            100,
+            100,
+            threads,
+            UrlFilter.compile(List.of()),
+            ConcurrentVisitedUrlSet::new,
+            new DefaultUrlScorer());
+    crawler.pageParserFactory = parserFactory;
+    return crawler;
+  }
+}
@@ -0,0 +1,94 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ShardedWordCountAggregatorTest {
+  @Test
+  public void mergesShardsFromEveryWorker() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    WordCountAggregator aggregator = new ShardedWordCountAggregator(pool.getParallelism());
+    Map<String, Integer> page = Map.of("the", 2, "quick", 1, "fox", 1);
+
+    pool.invoke(ForkJoinTask.adapt(
+        () -> IntStream.range(0, 1000).parallel().forEach(i -> aggregator.addAll(page))));
+    Map<String, Integer> wordCounts = pool.invoke(ForkJoinTask.adapt(aggregator::getWordCounts));
+    pool.shutdown();
+
+    assertThat(wordCounts).containsExactly("the", 2000, "quick", 1000, "fox", 1000);
+  }
+
+  @Test
+  public void countsWordsFromOtherPoolsAndPlainThreads() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    ForkJoinPool otherPool = new ForkJoinPool(2);
+    WordCountAggregator aggregator = new ShardedWordCountAggregator(pool.getParallelism());
+    Map<String, Integer> page = Map.of("the", 1);
+
+    // Workers of the other pool have the same pool indices as this pool's workers.
+    ForkJoinTask<?> first = pool.submit(
+        () -> IntStream.range(0, 1000).parallel().forEach(i -> aggregator.addAll(page)));
+    ForkJoinTask<?> second = otherPool.submit(
+        () -> IntStream.range(0, 1000).parallel().forEach(i -> aggregator.addAll(page)));
+    Thread thread =
+        new Thread(() -> IntStream.range(0, 1000).forEach(i -> aggregator.addAll(page)));
+    thread.start();
+    first.join();
+    second.join();
+    thread.join();
+    pool.shutdown();
+    otherPool.shutdown();
+
+    assertThat(aggregator.getWordCounts()).containsExactly("the", 3000);
+  }
+
+  @Test
+  public void countsWordsFromThreadsThatOwnAShard() throws InterruptedException {
+    ShardedWordCountAggregator aggregator = new ShardedWordCountAggregator(3);
+    Thread[] threads = new Thread[3];
+    for (int i = 0; i < threads.length; i++) {
+      int shard = i;
+      threads[i] = new Thread(() -> IntStream.range(0, 1000).forEach(
+          j -> aggregator.add(shard, j % 2 == 0 ? "even" : "odd", 1)));
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(aggregator.getWordCounts()).containsExactly("even", 1500, "odd", 1500);
+  }
+
+  @Test
+  public void poolThreadsDoNotKeepTheAggregator() throws InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    WeakReference<WordCountAggregator> reference = addFromPool(pool);
+
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    pool.shutdown();
+
+    assertThat(reference.get()).isNull();
+  }
+
+  private static WeakReference<WordCountAggregator> addFromPool(ForkJoinPool pool) {
+    WordCountAggregator aggregator = new ShardedWordCountAggregator(pool.getParallelism());
+    pool.invoke(ForkJoinTask.adapt(
+        () -> IntStream.range(0, 100).parallel().forEach(i -> aggregator.add("word", 1))));
+    return new WeakReference<>(aggregator);
+  }
+
+  @Test
+  public void noWords() {
+    assertThat(new ShardedWordCountAggregator(1).getWordCounts()).isEmpty();
+  }
+}
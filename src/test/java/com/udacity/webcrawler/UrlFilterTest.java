@@ -0,0 +1,73 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class UrlFilterTest {
+
+  private static final List<String> URLS = List.of(
+      "",
+      "http://example.com",
+      "http://example.com/",
+      "http://example.com/a/b.html",
+      "https://example.com/a/b.html",
+      "http://EXAMPLE.com/a.pdf",
+      "http://example.com.evil.org/",
+      "http://exampleXcom/",
+      "http://other.org/logout?next=/",
+      "http://other.org/a.PDF",
+      "http://other.org/a.pdf\n",
+      "http://other.org/\nlogout",
+      "http://example.com/\u2028x",
+      "file:///tmp/infinite-loop.html",
+      "file:///tmp/dead-end.html",
+      "http://other.org/abab",
+      "http://other.org/$",
+      "http://other.org/.*");
+
+  private static final List<List<Pattern>> IGNORED_URLS = List.of(
+      List.of(),
+      // Host and path prefixes, extensions and fragments.
+      List.of(
+          Pattern.compile("http://example\\.com/.*"),
+          Pattern.compile("^https://example\\.com.*$"),
+          Pattern.compile(".*\\.pdf"),
+          Pattern.compile(".*logout.*"),
+          Pattern.compile("\\Qhttp://example.com\\E")),
+      // The patterns of WebCrawlerTest#respectsIgnoredUrls.
+      List.of(Pattern.compile(".*-loop\\.html$"), Pattern.compile(".*dead-.*")),
+      // Patterns that look literal but are not.
+      List.of(
+          Pattern.compile("http://example.com/.*"),
+          Pattern.compile(".*\\.*"),
+          Pattern.compile(".*/\\$"),
+          Pattern.compile(".*\\Q.*\\E"),
+          Pattern.compile(".*?pdf")),
+      // Joined and separate regular expressions.
+      List.of(
+          Pattern.compile("(?i).*\\.pdf"),
+          Pattern.compile("https?://other\\.org/(ab)\\1"),
+          Pattern.compile("[a-z]+://example\\.com/[ab]/.*"),
+          Pattern.compile(".*EXAMPLE.*", Pattern.CASE_INSENSITIVE),
+          Pattern.compile(".*", Pattern.DOTALL)));
+
+  @Test
+  public void matchesPerPatternLoop() {
+    for (List<Pattern> ignoredUrls : IGNORED_URLS) {
+      UrlFilter filter = UrlFilter.compile(ignoredUrls);
+      // Twice, so the second round is answered from the verdict cache.
+      for (int round = 0; round < 2; round++) {
+        for (String url : URLS) {
+          boolean expected = ignoredUrls.stream().anyMatch(p -> p.matcher(url).matches());
+          assertWithMessage("%s against %s", url, ignoredUrls)
+              .that(filter.isIgnored(url))
+              .isEqualTo(expected);
+        }
+      }
+    }
+  }
+}
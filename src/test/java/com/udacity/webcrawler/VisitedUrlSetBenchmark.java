@@ -0,0 +1,86 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the throughput of {@link VisitedUrlSet#add(String)} when most links are duplicates, as
+ * they are on real pages, at 1, 8 and 32 threads.
+ *
+ * <p>The crawl's profile only reports the lookup rate of a single thread, so this is where the
+ * Bloom filter's scaling across threads is measured.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=VisitedUrlSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitedUrlSetBenchmark {
+  private static final int URLS = 1 << 20;
+
+  @Param({"concurrent", "fingerprint", "bloom+fingerprint"})
+  public String implementation;
+
+  private String[] urls;
+  private VisitedUrlSet set;
+
+  @Setup(Level.Trial)
+  public void generateUrls() {
+    urls = new String[URLS];
+    for (int i = 0; i < URLS; i++) {
+      urls[i] = "https://example.com/section-" + (i % 97) + "/page-" + i + ".html";
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void fillSet() {
+    if (implementation.equals("concurrent")) {
+      set = new ConcurrentVisitedUrlSet();
+    } else {
+      FingerprintVisitedUrlSet exact = new FingerprintVisitedUrlSet(64, 32);
+      set = implementation.startsWith("bloom")
+          ? new BloomFilteredVisitedUrlSet(exact, BlockedBloomFilter.create(URLS, 0.01))
+          : exact;
+    }
+    // Nine out of ten links the benchmark adds have been seen before.
+    for (int i = 0; i < URLS * 9 / 10; i++) {
+      set.add(urls[i]);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean add1Thread() {
+    return addRandomUrl();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean add8Threads() {
+    return addRandomUrl();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public boolean add32Threads() {
+    return addRandomUrl();
+  }
+
+  private boolean addRandomUrl() {
+    return set.add(urls[ThreadLocalRandom.current().nextInt(URLS)]);
+  }
+}
@@ -1,14 +1,21 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.google.inject.util.Modules;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.FakeClock;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import javax.inject.Inject;
 import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +63,42 @@ public final class WebCrawlerTest {
     assertThat(crawler.getClass()).isAssignableTo(ParallelWebCrawler.class);
   }
 
+  @Test
+  public void testOverrideToBreadthFirst() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(BreadthFirstWebCrawler.class.getName())
+            .setParallelism(12)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(BreadthFirstWebCrawler.class);
+  }
+
+  @Test
+  public void testOverrideToPriority() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(PriorityWebCrawler.class.getName())
+            .setParallelism(12)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(PriorityWebCrawler.class);
+  }
+
+  @Test
+  public void testOverrideToAsync() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(AsyncWebCrawler.class.getName())
+            .setParallelism(12)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(AsyncWebCrawler.class);
+  }
+
   @Test
   public void testSequentialParallelism() {
     CrawlerConfiguration config =
@@ -323,4 +366,49 @@ public final class WebCrawlerTest {
             Map.entry("brown", 4))
         .inOrder();
   }
-}
\ No newline at end of file
+
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void stopsFollowingLinksAfterDeadline(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(10)
+            .setPopularWordCount(3)
+            .setTimeoutSeconds(30)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    PageParserFactory parserFactory =
+        Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+            .getInstance(PageParserFactory.class);
+    // Every page takes longer to parse than the whole crawl is allowed to take.
+    FakeClock clock = new FakeClock();
+    PageParserFactory slowParserFactory = new PageParserFactory() {
+      @Override
+      public PageParser get(String url) {
+        clock.tick(Duration.ofSeconds(31));
+        return parserFactory.get(url);
+      }
+
+      @Override
+      public PageParser get(FetchedPage page) {
+        clock.tick(Duration.ofSeconds(31));
+        return parserFactory.get(page);
+      }
+    };
+    Guice.createInjector(
+            Modules.override(new WebCrawlerModule(config)).with(binder -> {
+              binder.bind(Clock.class).toInstance(clock);
+              binder.bind(PageParserFactory.class).toInstance(slowParserFactory);
+            }),
+            new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+    CrawlResult result = crawler.crawl(config.getStartPages());
+
+    assertThat(result.isTruncatedByDeadline()).isTrue();
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertThat(result.getWordCounts()).containsEntry("the", 2);
+  }
+}
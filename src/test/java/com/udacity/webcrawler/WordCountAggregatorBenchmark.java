@@ -0,0 +1,95 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures how well each {@link WordCountAggregator} holds up when many crawler threads merge page
+ * counts at the same time.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WordCountAggregator}.
+ * Change {@link Threads} on {@link #mergePage()} to try other thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordCountAggregatorBenchmark {
+
+  /**
+   * The {@code synchronizedMap} variant is what the crawlers used before the aggregator existed.
+   */
+  @Param({"synchronizedMap", "concurrent"})
+  public String implementation;
+
+  private List<Map<String, Integer>> pages;
+  private WordCountAggregator aggregator;
+
+  @Setup(Level.Trial)
+  public void generatePages() {
+    // Word frequencies roughly follow Zipf's law, so a few words show up on almost every page.
+    Random random = new Random(42);
+    List<String> vocabulary = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      vocabulary.add("word" + i);
+    }
+    pages = new ArrayList<>();
+    for (int i = 0; i < 256; i++) {
+      Map<String, Integer> page = new HashMap<>();
+      for (int j = 0; j < 300; j++) {
+        int rank = (int) Math.floor(Math.pow(vocabulary.size(), random.nextDouble())) - 1;
+        page.merge(vocabulary.get(rank), 1, Integer::sum);
+      }
+      pages.add(page);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void createAggregator() {
+    aggregator = implementation.equals("concurrent")
+        ? new ConcurrentWordCountAggregator()
+        : new SynchronizedMapAggregator();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void mergePage() {
+    aggregator.addAll(pages.get(ThreadLocalRandom.current().nextInt(pages.size())));
+  }
+
+  /**
+   * The single-monitor map the crawlers used to merge page counts into.
+   */
+  private static final class SynchronizedMapAggregator implements WordCountAggregator {
+    private final Map<String, Integer> counts = Collections.synchronizedMap(new HashMap<>());
+
+    @Override
+    public void add(String word, int count) {
+      counts.merge(word, count, Integer::sum);
+    }
+
+    @Override
+    public Map<String, Integer> getWordCounts() {
+      return Map.copyOf(counts);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.udacity.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares ranking the popular words with a full sort against the bounded-heap top-K collectors in
+ * {@link WordCounts}.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WordCountsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordCountsBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int distinctWords;
+
+  @Param({"10", "100"})
+  public int popularWordCount;
+
+  private Map<String, Integer> wordCounts;
+
+  @Setup
+  public void generateWordCounts() {
+    Random random = new Random(42);
+    wordCounts = new HashMap<>();
+    for (int i = 0; i < distinctWords; i++) {
+      // A long tail of rare words, like a real vocabulary.
+      wordCounts.put("word" + i, (int) (1 / (random.nextDouble() + 1e-4)));
+    }
+  }
+
+  /**
+   * The implementation {@link WordCounts#sort(Map, int)} used before top-K selection.
+   */
+  @Benchmark
+  public Map<String, Integer> fullSort() {
+    return wordCounts.entrySet().stream()
+        .sorted(new WordCounts.WordCountComparator())
+        .limit(popularWordCount)
+        .collect(Collectors.toMap(
+            Map.Entry::getKey, Map.Entry::getValue, (v1, v2) -> v1, LinkedHashMap::new));
+  }
+
+  @Benchmark
+  public Map<String, Integer> topK() {
+    return WordCounts.sort(wordCounts, popularWordCount);
+  }
+
+  @Benchmark
+  public Map<String, Integer> parallelTopK() {
+    return WordCounts.parallelSort(wordCounts, popularWordCount);
+  }
+}
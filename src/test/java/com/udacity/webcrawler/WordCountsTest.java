@@ -2,9 +2,14 @@ package com.udacity.webcrawler;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 
 public final class WordCountsTest {
@@ -82,4 +87,31 @@ public final class WordCountsTest {
             Map.entry("quick", 1),
             Map.entry("fox", 1))
         .inOrder();  }
+
+  @Test
+  public void topWordsMatchFullSort() {
+    // Lots of equal counts and equal lengths, so every tie-breaking rule gets exercised.
+    Random random = new Random(7);
+    Map<String, Integer> unsortedCounts = new HashMap<>();
+    for (int i = 0; i < 50_000; i++) {
+      String word = Integer.toString(random.nextInt(100_000), 36);
+      unsortedCounts.put(word, 1 + random.nextInt(20));
+    }
+
+    for (int popularWordCount : new int[]{0, 1, 10, 100, unsortedCounts.size() + 1}) {
+      List<Map.Entry<String, Integer>> entries = new ArrayList<>(unsortedCounts.entrySet());
+      entries.sort(new WordCounts.WordCountComparator());
+      Map<String, Integer> expected = new LinkedHashMap<>();
+      entries.stream()
+          .limit(popularWordCount)
+          .forEach(e -> expected.put(e.getKey(), e.getValue()));
+
+      assertThat(WordCounts.sort(unsortedCounts, popularWordCount).entrySet())
+          .containsExactlyElementsIn(expected.entrySet())
+          .inOrder();
+      assertThat(WordCounts.parallelSort(unsortedCounts, popularWordCount).entrySet())
+          .containsExactlyElementsIn(expected.entrySet())
+          .inOrder();
+    }
+  }
 }
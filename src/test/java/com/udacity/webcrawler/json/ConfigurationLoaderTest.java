@@ -24,7 +24,22 @@ public final class ConfigurationLoaderTest {
         "\"timeoutSeconds\": 10, " +
         "\"popularWordCount\": 5, " +
         "\"profileOutputPath\": \"profileOutput.txt\", " +
-        "\"resultPath\": \"resultPath.json\" " +
+        "\"resultPath\": \"resultPath.json\", " +
+        "\"visitedUrlFingerprintBits\": 48, " +
+        "\"bloomFilterExpectedUrls\": 1000000, " +
+        "\"bloomFilterFalsePositiveRate\": 0.001, " +
+        "\"strippedQueryParameters\": [\"utm_*\", \"fbclid\"], " +
+        "\"fetchParallelism\": 64, " +
+        "\"parseParallelism\": 3, " +
+        "\"fetchedPageQueueCapacity\": 8, " +
+        "\"maxRequestsPerHost\": 4, " +
+        "\"hostRequestDelayMillis\": 250, " +
+        "\"linkBatchSize\": 32, " +
+        "\"streamingParser\": true, " +
+        "\"parseCacheEntries\": 4096, " +
+        "\"pageCacheDirectory\": \"cache\", " +
+        "\"pageCacheMaxMegabytes\": 64, " +
+        "\"pageCacheEviction\": \"fifo\" " +
         " }";
 
     Reader reader = new StringReader(json);
@@ -48,6 +63,21 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getPopularWordCount()).isEqualTo(5);
     assertThat(config.getProfileOutputPath()).isEqualTo("profileOutput.txt");
     assertThat(config.getResultPath()).isEqualTo("resultPath.json");
+    assertThat(config.getVisitedUrlFingerprintBits()).isEqualTo(48);
+    assertThat(config.getBloomFilterExpectedUrls()).isEqualTo(1_000_000);
+    assertThat(config.getBloomFilterFalsePositiveRate()).isEqualTo(0.001);
+    assertThat(config.getStrippedQueryParameters()).containsExactly("utm_*", "fbclid").inOrder();
+    assertThat(config.getFetchParallelism()).isEqualTo(64);
+    assertThat(config.getParseParallelism()).isEqualTo(3);
+    assertThat(config.getFetchedPageQueueCapacity()).isEqualTo(8);
+    assertThat(config.getMaxRequestsPerHost()).isEqualTo(4);
+    assertThat(config.getHostRequestDelay()).isEqualTo(Duration.ofMillis(250));
+    assertThat(config.getLinkBatchSize()).isEqualTo(32);
+    assertThat(config.isStreamingParser()).isTrue();
+    assertThat(config.getParseCacheEntries()).isEqualTo(4096);
+    assertThat(config.getPageCacheDirectory()).isEqualTo("cache");
+    assertThat(config.getPageCacheMaxMegabytes()).isEqualTo(64);
+    assertThat(config.getPageCacheEviction()).isEqualTo("fifo");
   }
 
   @Test
@@ -77,5 +107,20 @@ public final class ConfigurationLoaderTest {
     assertThat(config.getPopularWordCount()).isEqualTo(5);
     assertThat(config.getProfileOutputPath()).isEmpty();
     assertThat(config.getResultPath()).isEmpty();
+    assertThat(config.getVisitedUrlFingerprintBits()).isEqualTo(0);
+    assertThat(config.getBloomFilterExpectedUrls()).isEqualTo(0);
+    assertThat(config.getBloomFilterFalsePositiveRate()).isEqualTo(0.01);
+    assertThat(config.getStrippedQueryParameters()).isEmpty();
+    assertThat(config.getFetchParallelism()).isEqualTo(16);
+    assertThat(config.getParseParallelism()).isEqualTo(-1);
+    assertThat(config.getFetchedPageQueueCapacity()).isEqualTo(64);
+    assertThat(config.getMaxRequestsPerHost()).isEqualTo(2);
+    assertThat(config.getHostRequestDelay()).isEqualTo(Duration.ZERO);
+    assertThat(config.getLinkBatchSize()).isEqualTo(8);
+    assertThat(config.isStreamingParser()).isFalse();
+    assertThat(config.getParseCacheEntries()).isEqualTo(0);
+    assertThat(config.getPageCacheDirectory()).isEmpty();
+    assertThat(config.getPageCacheMaxMegabytes()).isEqualTo(256);
+    assertThat(config.getPageCacheEviction()).isEqualTo("fifo-second-chance");
   }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ByteBufferInputStreamTest {
+
+  @Test
+  public void readsTheRemainingBytes() throws Exception {
+    ByteBuffer buffer = ByteBuffer.wrap("<p>hello</p>".getBytes(StandardCharsets.US_ASCII));
+    buffer.position(3);
+
+    InputStream in = new ByteBufferInputStream(buffer);
+    assertThat(in.available()).isEqualTo(9);
+    assertThat(in.read()).isEqualTo('h');
+    assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo("ello</p>");
+    assertThat(in.read()).isEqualTo(-1);
+    assertThat(in.read(new byte[4], 0, 4)).isEqualTo(-1);
+  }
+
+  @Test
+  public void readsDirectBuffers() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(3).put(new byte[] {1, (byte) 0xff, 3}).flip();
+
+    InputStream in = new ByteBufferInputStream(buffer);
+    assertThat(in.read()).isEqualTo(1);
+    assertThat(in.read()).isEqualTo(0xff);
+    assertThat(in.read()).isEqualTo(3);
+    assertThat(in.read()).isEqualTo(-1);
+  }
+
+  @Test
+  public void marksAndResets() throws Exception {
+    InputStream in = new ByteBufferInputStream(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}));
+
+    assertThat(in.markSupported()).isTrue();
+    in.reset();
+    assertThat(in.read()).isEqualTo(1);
+    in.mark(2);
+    assertThat(in.skip(10)).isEqualTo(3);
+    in.reset();
+    assertThat(in.read()).isEqualTo(2);
+  }
+}
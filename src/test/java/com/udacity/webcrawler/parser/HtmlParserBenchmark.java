@@ -0,0 +1,77 @@
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a page by building and traversing a Jsoup document against a single streaming
+ * pass with {@link StreamingPageParser}, on generated pages that are already downloaded.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HtmlParserBenchmark}, and
+ * add {@code -prof gc} to the benchmark arguments to compare allocations as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlParserBenchmark {
+  private static final String URL = "http://example.com/dir/page.html";
+  private static final String[] WORDS = {
+      "the", "quick", "brown", "fox", "jumped", "over", "lazy", "dog", "crawler", "parallel"};
+
+  @Param({"4", "64"})
+  public int pageKilobytes;
+
+  private PageFetcher fetcher;
+  private IgnoredWordFilter ignoredWords;
+  private UrlCanonicalizer canonicalizer;
+
+  @Setup
+  public void generatePage() {
+    Random random = new Random(0);
+    StringBuilder html = new StringBuilder("<html><head><title>Page</title>")
+        .append("<script>var links = '<a href=\"x.html\">';</script>")
+        .append("<style>p { margin: 0 }</style></head><body>\n");
+    while (html.length() < pageKilobytes * 1024) {
+      html.append("<div class=\"section\"><p>");
+      for (int i = 0; i < 40; i++) {
+        html.append(WORDS[random.nextInt(WORDS.length)]).append(i % 7 == 0 ? "&nbsp;" : " ");
+      }
+      html.append("<a href=\"page-").append(random.nextInt(1000)).append(".html\">link</a>")
+          .append("</p><!-- end of section --></div>\n");
+    }
+    html.append("</body></html>\n");
+    FetchedPage page =
+        new FetchedPage(URL, URL, html.toString().getBytes(StandardCharsets.UTF_8), "UTF-8");
+    fetcher = url -> page;
+    ignoredWords = IgnoredWordFilter.compile(List.of());
+    canonicalizer = new UrlCanonicalizer(List.of());
+  }
+
+  @Benchmark
+  public void dom(Blackhole blackhole) {
+    blackhole.consume(new PageParserImpl(URL, fetcher, ignoredWords, canonicalizer).parse());
+  }
+
+  @Benchmark
+  public void streaming(Blackhole blackhole) {
+    blackhole.consume(new StreamingPageParser(URL, fetcher, ignoredWords, canonicalizer).parse());
+  }
+}
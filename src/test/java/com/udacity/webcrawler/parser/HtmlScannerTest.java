@@ -0,0 +1,140 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HtmlScannerTest {
+
+  @Test
+  public void reportsTextAndHrefsInOrder() throws IOException {
+    List<String> events = scan(
+        "<html><head><title>A &amp; B</title><base href=\"/base/\"></head>"
+            + "<body><p>Hello <a HREF='one.html' href=\"two.html\">links&nbsp;here</a></p>"
+            + "<!-- <a href=\"hidden.html\"> --><img src=\"x.png\"></body></html>");
+
+    assertThat(events)
+        .containsExactly(
+            "text:A & B", "href:base:/base/", "text:Hello ", "href:a:one.html", "text:links here")
+        .inOrder();
+  }
+
+  @Test
+  public void skipsScriptsAndStyles() throws IOException {
+    List<String> events = scan(
+        "a<script>document.write('<a href=\"js.html\">');</script>b"
+            + "<style>p > a { color: red }</style>c<SCRIPT type=x>x</Script >d");
+
+    assertThat(events)
+        .containsExactly("text:a", "text:b", "text:c", "text:d")
+        .inOrder();
+  }
+
+  @Test
+  public void keepsTagsInRawTextAsText() throws IOException {
+    List<String> events =
+        scan("<textarea><a href=\"no.html\">&lt;</textarea><xmp>&lt;<b></xmp><a href=yes.html>");
+
+    assertThat(events)
+        .containsExactly("text:<a href=\"no.html\"><", "text:&lt;<b>", "href:a:yes.html")
+        .inOrder();
+  }
+
+  @Test
+  public void readsAcrossBufferBoundaries() throws IOException {
+    String html = "<p>one</p><!-- two --><a href=\"three.html\">four</a><title>five</title>"
+        + "<![CDATA[six]]><script>seven</script>eight";
+    List<String> expected = scan(html);
+
+    // A reader that hands out a single character at a time, so every lookahead needs a refill.
+    Reader trickle = new Reader() {
+      private int pos;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        if (pos == html.length()) {
+          return -1;
+        }
+        buffer[offset] = html.charAt(pos++);
+        return 1;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    List<String> events = new ArrayList<>();
+    new HtmlScanner(trickle, recorder(events)).scan();
+
+    assertThat(events).containsExactlyElementsIn(expected).inOrder();
+    assertThat(events)
+        .containsExactly(
+            "text:one", "href:a:three.html", "text:four", "text:five", "text:six", "text:eight")
+        .inOrder();
+  }
+
+  @Test
+  public void splitsLongTextAtWhitespace() throws IOException {
+    StringBuilder html = new StringBuilder("<p>");
+    for (int i = 0; i < 10_000; i++) {
+      html.append("word&amp;").append(i).append(' ');
+    }
+    List<String> events = scan(html.toString());
+
+    assertThat(events.size()).isGreaterThan(1);
+    StringBuilder joined = new StringBuilder();
+    for (String event : events) {
+      String text = event.substring("text:".length());
+      assertThat(text.length()).isAtMost(HtmlScanner.MAX_TEXT_RUN);
+      joined.append(text);
+    }
+    assertThat(joined.toString())
+        .isEqualTo(html.substring("<p>".length()).replace("&amp;", "&"));
+  }
+
+  @Test
+  public void unescapesCharacterReferencesLikeJsoup() {
+    String[] pieces = {
+        "&", "amp", "lt", "gt", "nbsp", "notin", "not", "ampx", "copy", "frac12", "frac1",
+        "NotEqualTilde", "acE", ";", ";", "#", "x", "X", "65", "128", "0", "9f", "D800",
+        "110000", "12345678", "a", "Z", "7", " ", "<", "E\u00E9", "\u00E9"};
+    Random random = new Random(0);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder run = new StringBuilder();
+      int count = random.nextInt(8);
+      for (int j = 0; j < count; j++) {
+        run.append(pieces[random.nextInt(pieces.length)]);
+      }
+      String text = run.toString();
+      assertThat(HtmlScanner.unescape(text)).isEqualTo(Parser.unescapeEntities(text, false));
+    }
+  }
+
+  private static List<String> scan(String html) throws IOException {
+    List<String> events = new ArrayList<>();
+    new HtmlScanner(new StringReader(html), recorder(events)).scan();
+    return events;
+  }
+
+  private static HtmlScanner.Handler recorder(List<String> events) {
+    return new HtmlScanner.Handler() {
+      @Override
+      public void text(String text) {
+        events.add("text:" + text);
+      }
+
+      @Override
+      public void href(String tagName, String href) {
+        events.add("href:" + tagName + ":" + href);
+      }
+    };
+  }
+}
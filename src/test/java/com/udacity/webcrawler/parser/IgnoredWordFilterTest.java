@@ -0,0 +1,67 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredWordFilterTest {
+
+  private static final List<String> TOKENS = List.of(
+      "", "a", "an", "the", "The", "THE", "fox", "FOX", "foxes", "^the$", "the$", "a.b", "aab",
+      "abab", "abcabc", "1234", "12345", "snake_case", "it's", "--", "\\Qthe\\E", "naïve", "ß");
+
+  private static final List<List<Pattern>> IGNORED_WORDS = List.of(
+      List.of(),
+      List.of(Pattern.compile("^.{1,3}$")),
+      // Literal words in all the spellings that only match that word.
+      List.of(
+          Pattern.compile("the"),
+          Pattern.compile("^an$"),
+          Pattern.compile("\\Qa.b\\E"),
+          Pattern.compile("^\\Q--\\E$")),
+      // Patterns that look literal but are not.
+      List.of(
+          Pattern.compile("the$"),
+          Pattern.compile("a.b"),
+          Pattern.compile("fox(es)?"),
+          Pattern.compile("\\Q^the$\\E")),
+      // Inline flags must not leak into the patterns they are joined with.
+      List.of(Pattern.compile("(?i)the"), Pattern.compile("fox"), Pattern.compile("\\d{4}")),
+      List.of(Pattern.compile("fox"), Pattern.compile("(?i)the"), Pattern.compile("\\w+_\\w+")),
+      // Patterns that are never joined: flags, back-references and clashing named groups.
+      List.of(
+          Pattern.compile("FOX", Pattern.CASE_INSENSITIVE),
+          Pattern.compile("(ab)\\1"),
+          Pattern.compile("(?<w>abc)\\k<w>"),
+          Pattern.compile("(?<w>a)a+b"),
+          Pattern.compile("(?<w>\\d)+")),
+      List.of(
+          Pattern.compile("the"),
+          Pattern.compile("(?i)FOX"),
+          Pattern.compile("^.$"),
+          Pattern.compile("\\W+"),
+          Pattern.compile("(?u)(?i)SS|ß")));
+
+  @Test
+  public void matchesPerPatternLoop() throws IOException {
+    List<String> tokens = new ArrayList<>(TOKENS);
+    for (String text : WordTokenizerTest.testPageTexts()) {
+      tokens.addAll(Arrays.asList(text.split("\\s+")));
+    }
+    for (List<Pattern> ignoredWords : IGNORED_WORDS) {
+      IgnoredWordFilter.Checker checker = IgnoredWordFilter.compile(ignoredWords).newChecker();
+      for (String token : tokens) {
+        boolean expected = ignoredWords.stream().anyMatch(p -> p.matcher(token).matches());
+        assertWithMessage("%s against %s", token, ignoredWords)
+            .that(checker.isIgnored(token))
+            .isEqualTo(expected);
+      }
+    }
+  }
+}
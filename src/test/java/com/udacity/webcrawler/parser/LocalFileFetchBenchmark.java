@@ -0,0 +1,159 @@
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares reading local files into the heap against mapping them into memory, by fetching and
+ * parsing the pages of a generated mirror one after the other.
+ *
+ * <p>The mirror is written to the temporary directory the first time it is needed, and reused by
+ * later runs. At the default size it takes a few gigabytes.
+ *
+ * <p>Every case runs on one thread and on one thread per core. With a {@code cold} page cache, the
+ * operating system's page cache is dropped before every iteration, so pages come from the disk
+ * rather than from memory. That only works on Linux, as root; elsewhere, those cases fail and the
+ * others still run.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LocalFileFetchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalFileFetchBenchmark {
+  private static final String[] WORDS = {
+      "the", "quick", "brown", "fox", "jumped", "over", "lazy", "dog", "crawler", "parallel",
+      "mirror", "corpus", "statistics", "page", "link", "memory", "mapped", "file", "channel"};
+
+  @Param({"100000"})
+  public int pages;
+
+  @Param({"4", "64"})
+  public int pageKilobytes;
+
+  /**
+   * Files below this size are read, and the rest are mapped: {@code 0} maps every page, and
+   * {@code 9223372036854775807} reads every page.
+   */
+  @Param({"0", "9223372036854775807"})
+  public long minMappedFileSize;
+
+  @Param({"warm", "cold"})
+  public String pageCache;
+
+  private List<String> urls;
+  private PageFetcher fetcher;
+  private IgnoredWordFilter ignoredWords;
+  private UrlCanonicalizer canonicalizer;
+  private final AtomicInteger next = new AtomicInteger();
+
+  @Setup
+  public void writeMirror() throws IOException {
+    Path dir = Paths.get(
+        System.getProperty("java.io.tmpdir"),
+        "webcrawler-mirror-" + pages + "-" + pageKilobytes + "k");
+    Path complete = dir.resolve(".complete");
+    if (Files.notExists(complete)) {
+      Files.createDirectories(dir);
+      Random random = new Random(pages);
+      for (int i = 0; i < pages; i++) {
+        writePage(dir.resolve(pageName(i)), random);
+      }
+      Files.createFile(complete);
+    }
+    // Visit the pages in a shuffled order, like a crawl that follows links would.
+    Random random = new Random(42);
+    urls = new ArrayList<>(pages);
+    for (int i = 0; i < pages; i++) {
+      urls.add(dir.resolve(pageName(i)).toUri().toString());
+    }
+    Collections.shuffle(urls, random);
+    fetcher = new PageFetcherImpl(HttpClient.newHttpClient(), Duration.ZERO, minMappedFileSize);
+    ignoredWords = IgnoredWordFilter.compile(List.of());
+    canonicalizer = new UrlCanonicalizer(List.of());
+  }
+
+  @Setup(Level.Iteration)
+  public void dropPageCache() throws IOException, InterruptedException {
+    if (!pageCache.equals("cold")) {
+      return;
+    }
+    if (new ProcessBuilder("sync").inheritIO().start().waitFor() != 0) {
+      throw new IOException("sync failed");
+    }
+    Files.writeString(Paths.get("/proc/sys/vm/drop_caches"), "3");
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void fetchAndParse1Thread(Blackhole blackhole) {
+    fetchAndParse(blackhole);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void fetchAndParseEveryCore(Blackhole blackhole) {
+    fetchAndParse(blackhole);
+  }
+
+  private void fetchAndParse(Blackhole blackhole) {
+    String url = urls.get(Math.floorMod(next.getAndIncrement(), urls.size()));
+    PageParser.Result result =
+        new PageParserImpl(url, fetcher, ignoredWords, canonicalizer).parse();
+    blackhole.consume(result.getWordCounts());
+    blackhole.consume(result.getLinks());
+  }
+
+  private void writePage(Path path, Random random) throws IOException {
+    long size = pageKilobytes * 1024L;
+    try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      out.write("<html><head><title>Page</title></head><body>\n");
+      long written = 0;
+      while (written < size) {
+        StringBuilder paragraph = new StringBuilder("<p>");
+        for (int i = 0; i < 60; i++) {
+          paragraph.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        paragraph.append("<a href=\"").append(pageName(random.nextInt(pages))).append("\">");
+        paragraph.append("link</a></p>\n");
+        out.write(paragraph.toString());
+        written += paragraph.length();
+      }
+      out.write("</body></html>\n");
+    }
+  }
+
+  private static String pageName(int i) {
+    return "page-" + i + ".html";
+  }
+}
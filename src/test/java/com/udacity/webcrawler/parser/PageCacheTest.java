@@ -0,0 +1,251 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PageCacheTest {
+  private static final long MAX_BYTES = 256 * 1024;
+  // Three of these fit in a segment of a cache with MAX_BYTES.
+  private static final int PAGE_BYTES = 20 * 1024;
+
+  @TempDir
+  public Path directory;
+
+  @Test
+  public void keepsPagesBetweenCrawls() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      cache.put("http://a.example/", "http://a.example/home", "utf-8", "\"v1\"", null, body("a"));
+      cache.put(
+          "http://b.example/", "http://b.example/", null, null, "Mon, 01 Jan 2024", body("b"));
+    }
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      PageCache.Entry a = cache.get("http://a.example/");
+      assertThat(a.getBaseUri()).isEqualTo("http://a.example/home");
+      assertThat(a.getCharset()).isEqualTo("utf-8");
+      assertThat(a.getEtag()).isEqualTo("\"v1\"");
+      assertThat(a.getLastModified()).isNull();
+      assertThat(cache.read(a)).isEqualTo(body("a"));
+
+      PageCache.Entry b = cache.get("http://b.example/");
+      assertThat(b.getEtag()).isNull();
+      assertThat(b.getLastModified()).isEqualTo("Mon, 01 Jan 2024");
+      assertThat(cache.read(b)).isEqualTo(body("b"));
+    }
+  }
+
+  @Test
+  public void replacesPagesThatAreCachedAgain() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      cache.put("http://a.example/", "http://a.example/", null, "\"v1\"", null, body("old"));
+      cache.put("http://a.example/", "http://a.example/", null, "\"v2\"", null, body("new"));
+    }
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      PageCache.Entry entry = cache.get("http://a.example/");
+      assertThat(cache.size()).isEqualTo(1);
+      assertThat(entry.getEtag()).isEqualTo("\"v2\"");
+      assertThat(cache.read(entry)).isEqualTo(body("new"));
+    }
+  }
+
+  @Test
+  public void onlyCachesPagesThatCanBeRevalidated() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      cache.put("http://a.example/", "http://a.example/", null, null, null, body("a"));
+
+      assertThat(cache.get("http://a.example/")).isNull();
+      assertThat(cache.totalBytes()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void disabledCacheStoresNothing() {
+    PageCache.DISABLED.put(
+        "http://a.example/", "http://a.example/", null, "\"v1\"", null, body("a"));
+
+    assertThat(PageCache.DISABLED.get("http://a.example/")).isNull();
+  }
+
+  @Test
+  public void fifoEvictsTheOldestPages() throws IOException {
+    fillTwoCrawls(PageCache.Eviction.FIFO);
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO)) {
+      assertThat(cache.get(url(0))).isNull();
+      assertThat(cache.get(url(1))).isNull();
+      assertThat(cache.get(url(17))).isNotNull();
+      assertThat(cache.totalBytes()).isAtMost(MAX_BYTES);
+    }
+  }
+
+  @Test
+  public void secondChanceKeepsThePagesUsedDuringTheCrawl() throws IOException {
+    fillTwoCrawls(PageCache.Eviction.FIFO_SECOND_CHANCE);
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      // Used in the second crawl, so copied out of the evicted segment.
+      PageCache.Entry used = cache.get(url(0));
+      assertThat(used).isNotNull();
+      assertThat(cache.read(used)).isEqualTo(page(0));
+      // Not used, and in the same segment.
+      assertThat(cache.get(url(1))).isNull();
+      assertThat(cache.get(url(17))).isNotNull();
+      assertThat(cache.totalBytes()).isAtMost(MAX_BYTES);
+    }
+  }
+
+  @Test
+  public void dropsATornRecordAtTheEndOfTheIndex() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      cache.put(url(0), url(0), null, "\"v1\"", null, page(0));
+      cache.put(url(1), url(1), null, "\"v1\"", null, page(1));
+    }
+    Path index = directory.resolve("index.log");
+    byte[] bytes = Files.readAllBytes(index);
+    Files.write(index, Arrays.copyOf(bytes, bytes.length - 3));
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      assertThat(cache.read(cache.get(url(0)))).isEqualTo(page(0));
+      assertThat(cache.get(url(1))).isNull();
+      cache.put(url(2), url(2), null, "\"v1\"", null, page(2));
+    }
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(cache.read(cache.get(url(2)))).isEqualTo(page(2));
+    }
+  }
+
+  @Test
+  public void doesNotReturnCorruptedBodies() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      cache.put(url(0), url(0), null, "\"v1\"", null, page(0));
+    }
+    for (Path segment : segments()) {
+      Files.write(segment, new byte[] {'x'}, StandardOpenOption.WRITE);
+    }
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      PageCache.Entry entry = cache.get(url(0));
+      assertThat(entry).isNotNull();
+      assertThat(cache.read(entry)).isNull();
+      assertThat(cache.get(url(0))).isNull();
+    }
+  }
+
+  @Test
+  public void onlyOneCacheUsesADirectoryAtATime() throws IOException {
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      assertThrows(IOException.class, () -> open(PageCache.Eviction.FIFO_SECOND_CHANCE));
+    }
+
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      assertThat(cache.size()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void concurrentPutsKeepEveryBodyIntact() throws Exception {
+    int threads = 8;
+    int pagesPerThread = 6;
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          int first = t * pagesPerThread;
+          writers.add(executor.submit(() -> {
+            for (int i = first; i < first + pagesPerThread; i++) {
+              cache.put(url(i), url(i), null, "\"v1\"", null, page(i));
+            }
+          }));
+        }
+        for (Future<?> writer : writers) {
+          writer.get(1, TimeUnit.MINUTES);
+        }
+      } finally {
+        executor.shutdown();
+      }
+      assertThat(cache.size()).isGreaterThan(0);
+    }
+
+    // The pages do not all fit, so some were evicted, but every page that is left is intact.
+    try (PageCache cache = open(PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      int left = 0;
+      for (int i = 0; i < threads * pagesPerThread; i++) {
+        PageCache.Entry entry = cache.get(url(i));
+        if (entry != null) {
+          assertThat(cache.read(entry)).isEqualTo(page(i));
+          left++;
+        }
+      }
+      assertThat(left).isEqualTo(cache.size());
+      assertThat(left).isLessThan(threads * pagesPerThread);
+      assertThat(cache.totalBytes()).isAtMost(MAX_BYTES);
+    }
+  }
+
+  /**
+   * Caches 12 pages in one crawl, and then 6 more in the next, which only uses the first page of
+   * the first crawl again. The pages do not all fit in the cache.
+   */
+  private void fillTwoCrawls(PageCache.Eviction eviction) throws IOException {
+    try (PageCache cache = open(eviction)) {
+      for (int i = 0; i < 12; i++) {
+        cache.put(url(i), url(i), null, "\"v1\"", null, page(i));
+      }
+    }
+    try (PageCache cache = open(eviction)) {
+      assertThat(cache.get(url(0))).isNotNull();
+      for (int i = 12; i < 18; i++) {
+        cache.put(url(i), url(i), null, "\"v1\"", null, page(i));
+      }
+    }
+  }
+
+  private PageCache open(PageCache.Eviction eviction) throws IOException {
+    return PageCache.open(directory, MAX_BYTES, eviction);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().startsWith("segment-"))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static String url(int i) {
+    return "http://example.com/" + i + ".html";
+  }
+
+  private static ByteBuffer page(int i) {
+    byte[] bytes = new byte[PAGE_BYTES];
+    Arrays.fill(bytes, (byte) ('a' + i % 26));
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private static ByteBuffer body(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,300 @@
+package com.udacity.webcrawler.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PageFetcherImplTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+  private static final String PAGE = "<p>hello <a href=\"other.html\">world</a></p>";
+  private static final int MAX_BODY_BYTES = 2 * 1024 * 1024;
+
+  private final Set<InetSocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger notModifiedResponses = new AtomicInteger();
+  // Lets the server finish a response it stalled in the middle of.
+  private final CountDownLatch stalled = new CountDownLatch(1);
+  private final PageFetcher fetcher = new PageFetcherImpl(Duration.ofSeconds(10));
+  private HttpServer server;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      clientAddresses.add(exchange.getRemoteAddress());
+      String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      switch (exchange.getRequestURI().getPath()) {
+        case "/page.html":
+          respond(
+              exchange, 200, "text/html; charset=utf-8", "", PAGE.getBytes(StandardCharsets.UTF_8));
+          break;
+        case "/gzip.html":
+          respond(exchange, 200, "text/html", encoding.contains("gzip") ? "gzip" : "", gzip(PAGE));
+          break;
+        case "/deflate.html":
+          respond(exchange, 200, "text/html", "deflate", deflate(PAGE));
+          break;
+        case "/utf-16.html":
+          respond(
+              exchange,
+              200,
+              "text/html; charset=UTF-16LE",
+              "",
+              "<p>hello</p>".getBytes(StandardCharsets.UTF_16LE));
+          break;
+        case "/redirect":
+          exchange.getResponseHeaders().set("Location", "/sub/page.html");
+          respond(exchange, 302, "text/html", "", new byte[0]);
+          break;
+        case "/sub/page.html":
+          respond(exchange, 200, "text/html", "", PAGE.getBytes(StandardCharsets.UTF_8));
+          break;
+        case "/etag.html":
+          if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            respond(exchange, 304, "text/html", "", new byte[0]);
+          } else {
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            respond(exchange, 200, "text/html; charset=utf-8", "", PAGE.getBytes());
+          }
+          break;
+        case "/stall.html":
+          exchange.getResponseHeaders().set("Content-Type", "text/html");
+          exchange.sendResponseHeaders(200, 1000);
+          exchange.getResponseBody().write("<p>hello".getBytes(StandardCharsets.UTF_8));
+          exchange.getResponseBody().flush();
+          try {
+            stalled.await(30, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.close();
+          break;
+        case "/long.html":
+          respond(exchange, 200, "text/html", "", new byte[MAX_BODY_BYTES + 1024]);
+          break;
+        case "/long-gzip.html":
+          // Random bytes do not compress, so the compressed body is longer than the limit, too.
+          byte[] noise = new byte[MAX_BODY_BYTES + 64 * 1024];
+          new Random(42).nextBytes(noise);
+          respond(exchange, 200, "text/html", "gzip", gzip(noise));
+          break;
+        case "/image.png":
+          respond(exchange, 200, "image/png", "", new byte[] {1, 2, 3});
+          break;
+        default:
+          respond(exchange, 404, "text/html", "", "<p>not found</p>".getBytes());
+      }
+    });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    stalled.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void downloadsPages() {
+    FetchedPage page = fetcher.fetch(url("/page.html"));
+
+    assertThat(bodyOf(page)).isEqualTo(PAGE);
+    assertThat(page.getBaseUri()).isEqualTo(url("/page.html"));
+    assertThat(page.getCharset()).isEqualTo("utf-8");
+  }
+
+  @Test
+  public void reusesConnections() {
+    for (int i = 0; i < 5; i++) {
+      assertThat(fetcher.fetch(url("/page.html")).getSize()).isGreaterThan(0);
+    }
+
+    assertThat(clientAddresses).hasSize(1);
+  }
+
+  @Test
+  public void decodesCompressedPages() {
+    assertThat(bodyOf(fetcher.fetch(url("/gzip.html")))).isEqualTo(PAGE);
+    assertThat(bodyOf(fetcher.fetch(url("/deflate.html")))).isEqualTo(PAGE);
+  }
+
+  @Test
+  public void parsesWithTheDeclaredCharset() {
+    PageParser.Result result =
+        new PageParserImpl(
+            url("/utf-16.html"),
+            fetcher,
+            IgnoredWordFilter.compile(List.of()),
+            new UrlCanonicalizer(List.of()))
+            .parse();
+
+    assertThat(result.getWordCounts()).containsExactly("hello", 1);
+  }
+
+  @Test
+  public void resolvesLinksAgainstTheRedirectTarget() {
+    FetchedPage page = fetcher.fetch(url("/redirect"));
+    assertThat(page.getBaseUri()).isEqualTo(url("/sub/page.html"));
+
+    PageParser.Result result =
+        new PageParserImpl(
+            url("/redirect"),
+            fetcher,
+            IgnoredWordFilter.compile(List.of()),
+            new UrlCanonicalizer(List.of()))
+            .parse();
+    assertThat(result.getLinks()).containsExactly(url("/sub/other.html"));
+  }
+
+  @Test
+  public void errorsAndUnsupportedContentTypesFetchAsEmpty() {
+    assertThat(fetcher.fetch(url("/missing.html")).getSize()).isEqualTo(0);
+    assertThat(fetcher.fetch(url("/image.png")).getSize()).isEqualTo(0);
+    assertThat(fetcher.fetch("http://127.0.0.1:1/unreachable.html").getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void timesOutWhenTheBodyStalls() {
+    PageFetcher fetcher = new PageFetcherImpl(Duration.ofMillis(500));
+
+    long start = System.nanoTime();
+    FetchedPage page = fetcher.fetch(url("/stall.html"));
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    assertThat(page.getSize()).isEqualTo(0);
+    assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void cutsOffLongPages() {
+    assertThat(fetcher.fetch(url("/long.html")).getSize()).isEqualTo(MAX_BODY_BYTES);
+
+    // Only part of the compressed body is downloaded, so it ends in the middle of the stream.
+    int size = fetcher.fetch(url("/long-gzip.html")).getSize();
+    assertThat(size).isAtMost(MAX_BODY_BYTES);
+    assertThat(size).isGreaterThan(MAX_BODY_BYTES - 64 * 1024);
+  }
+
+  @Test
+  public void revalidatesCachedPagesInLaterCrawls(@TempDir Path cacheDirectory) throws IOException {
+    HttpClient client = HttpClient.newHttpClient();
+    try (PageCache cache =
+        PageCache.open(cacheDirectory, 1024 * 1024, PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      FetchedPage page = new PageFetcherImpl(client, Duration.ZERO, Long.MAX_VALUE, cache)
+          .fetch(url("/etag.html"));
+      assertThat(bodyOf(page)).isEqualTo(PAGE);
+    }
+    assertThat(notModifiedResponses.get()).isEqualTo(0);
+
+    try (PageCache cache =
+        PageCache.open(cacheDirectory, 1024 * 1024, PageCache.Eviction.FIFO_SECOND_CHANCE)) {
+      FetchedPage page = new PageFetcherImpl(client, Duration.ZERO, Long.MAX_VALUE, cache)
+          .fetch(url("/etag.html"));
+
+      assertThat(notModifiedResponses.get()).isEqualTo(1);
+      assertThat(bodyOf(page)).isEqualTo(PAGE);
+      assertThat(page.getBaseUri()).isEqualTo(url("/etag.html"));
+      assertThat(page.getCharset()).isEqualTo("utf-8");
+    }
+  }
+
+  @Test
+  public void readsLocalFiles() {
+    FetchedPage page = fetcher.fetch(Paths.get(DATA_DIR, "test-page.html").toUri().toString());
+
+    assertThat(page.getSize()).isGreaterThan(0);
+    assertThat(page.getBaseUri()).isEmpty();
+  }
+
+  @Test
+  public void mappedLocalFilesParseLikeReadOnes() {
+    String testPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    HttpClient client = HttpClient.newHttpClient();
+    PageFetcher reading = new PageFetcherImpl(client, Duration.ZERO, Long.MAX_VALUE);
+    PageFetcher mapping = new PageFetcherImpl(client, Duration.ZERO, 0);
+
+    FetchedPage read = reading.fetch(testPage);
+    FetchedPage mapped = mapping.fetch(testPage);
+    assertThat(read.getBody().isDirect()).isFalse();
+    assertThat(mapped.getBody().isDirect()).isTrue();
+    assertThat(mapped.getBody()).isEqualTo(read.getBody());
+
+    PageParser.Result expected = parse(testPage, reading);
+    PageParser.Result result = parse(testPage, mapping);
+    assertThat(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    assertThat(result.getWordCounts()).containsExactlyEntriesIn(expected.getWordCounts());
+    assertThat(result.getWordCounts()).isNotEmpty();
+  }
+
+  private static PageParser.Result parse(String url, PageFetcher fetcher) {
+    return new PageParserImpl(
+        url, fetcher, IgnoredWordFilter.compile(List.of()), new UrlCanonicalizer(List.of()))
+        .parse();
+  }
+
+  private static String bodyOf(FetchedPage page) {
+    return StandardCharsets.UTF_8.decode(page.getBody()).toString();
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  private static void respond(
+      HttpExchange exchange, int status, String contentType, String encoding, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    if (!encoding.isEmpty()) {
+      exchange.getResponseHeaders().set("Content-Encoding", encoding);
+    }
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    return gzip(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(data);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+}
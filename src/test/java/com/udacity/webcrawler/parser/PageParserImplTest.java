@@ -45,4 +45,32 @@ public final class PageParserImplTest {
     assertThat(result.getWordCounts()).containsEntry("over", 1);
     assertThat(result.getWordCounts()).containsEntry("lazy", 1);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void parsesFetchedPagesWithoutFetchingAgain() {
+    FetchedPage page = new PageFetcherImpl(Duration.ZERO).fetch(testPage);
+    PageParser.Result result =
+        new PageParserImpl(
+            testPage,
+            url -> page,
+            IgnoredWordFilter.compile(List.of()),
+            new UrlCanonicalizer(List.of()))
+            .parse();
+
+    PageParser.Result expected = new PageParserImpl(testPage, Duration.ZERO, List.of()).parse();
+    assertThat(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    assertThat(result.getWordCounts()).containsExactlyEntriesIn(expected.getWordCounts());
+  }
+
+  @Test
+  public void missingPagesFetchAsEmpty() {
+    String missingPage = Paths.get(DATA_DIR, "no-such-page.html").toUri().toString();
+    FetchedPage page = new PageFetcherImpl(Duration.ZERO).fetch(missingPage);
+
+    assertThat(page.getUrl()).isEqualTo(missingPage);
+    assertThat(page.getSize()).isEqualTo(0);
+    PageParser.Result result = new PageParserImpl(missingPage, Duration.ZERO, List.of()).parse();
+    assertThat(result.getLinks()).isEmpty();
+    assertThat(result.getWordCounts()).isEmpty();
+  }
+}
@@ -0,0 +1,128 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ParseCacheTest {
+
+  @Test
+  public void hashesLikeXxHash64() {
+    assertThat(ParseCache.hash(ByteBuffer.allocate(0))).isEqualTo(0xEF46DB3751D8E999L);
+    assertThat(ParseCache.hash(bytes("abc"))).isEqualTo(0x44BC2CF5AD770999L);
+  }
+
+  @Test
+  public void hashesOnlyTheRemainingBytes() {
+    String text = "The quick brown fox jumps over the lazy dog, again and again.";
+    ByteBuffer buffer = ByteBuffer.wrap(("xx" + text).getBytes(StandardCharsets.US_ASCII));
+    buffer.position(2);
+
+    assertThat(ParseCache.hash(buffer)).isEqualTo(ParseCache.hash(bytes(text)));
+    assertThat(buffer.position()).isEqualTo(2);
+  }
+
+  @Test
+  public void parsesIdenticalContentOnce() {
+    ParseCache cache = new ParseCache(8);
+    CountingParser parser = new CountingParser();
+
+    PageContent first = cache.get(page("http://a.example/", "<p>same</p>", null), parser);
+    PageContent second = cache.get(page("http://b.example/", "<p>same</p>", null), parser);
+    cache.get(page("http://a.example/", "<p>other</p>", null), parser);
+
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(parser.calls.get()).isEqualTo(2);
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(cache.misses()).isEqualTo(2);
+    assertThat(cache.hitRatio()).isWithin(1e-9).of(1.0 / 3);
+  }
+
+  @Test
+  public void keysOnTheDeclaredCharset() {
+    ParseCache cache = new ParseCache(8);
+    CountingParser parser = new CountingParser();
+
+    cache.get(page("http://a.example/", "<p>same</p>", null), parser);
+    cache.get(page("http://a.example/", "<p>same</p>", "UTF-16"), parser);
+
+    assertThat(parser.calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedContent() {
+    ParseCache cache = new ParseCache(2);
+    CountingParser parser = new CountingParser();
+
+    cache.get(page("http://a.example/", "a", null), parser);
+    cache.get(page("http://a.example/", "b", null), parser);
+    cache.get(page("http://a.example/", "a", null), parser);
+    cache.get(page("http://a.example/", "c", null), parser);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(parser.calls.get()).isEqualTo(3);
+
+    cache.get(page("http://a.example/", "a", null), parser);
+    assertThat(parser.calls.get()).isEqualTo(3);
+    cache.get(page("http://a.example/", "b", null), parser);
+    assertThat(parser.calls.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void disabledCacheParsesEveryPage() {
+    CountingParser parser = new CountingParser();
+
+    ParseCache.DISABLED.get(page("http://a.example/", "a", null), parser);
+    ParseCache.DISABLED.get(page("http://a.example/", "a", null), parser);
+
+    assertThat(parser.calls.get()).isEqualTo(2);
+    assertThat(ParseCache.DISABLED.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void resolvesCachedLinksAgainstEachPage() {
+    String html = "<p>Mirrored page</p><a href=\"next.html\">next</a><a href=\"/top.html\">top</a>";
+    PageFetcher fetcher = url -> page(url, html, null);
+    IgnoredWordFilter ignoredWords = IgnoredWordFilter.compile(List.of());
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of());
+    ParseCache cache = new ParseCache(8);
+
+    PageParser.Result first = new PageParserImpl(
+        "http://one.example/a/page.html", fetcher, ignoredWords, canonicalizer, cache).parse();
+    PageParser.Result second = new StreamingPageParser(
+        "http://two.example/b/page.html?session=42", fetcher, ignoredWords, canonicalizer, cache)
+        .parse();
+
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(first.getLinks())
+        .containsExactly("http://one.example/a/next.html", "http://one.example/top.html");
+    assertThat(second.getLinks())
+        .containsExactly("http://two.example/b/next.html", "http://two.example/top.html");
+    assertThat(second.getWordCounts()).containsExactlyEntriesIn(first.getWordCounts());
+    assertThat(second.getWordCounts())
+        .containsExactly("mirrored", 1, "page", 1, "next", 1, "top", 1);
+  }
+
+  private static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static FetchedPage page(String url, String html, String charset) {
+    return new FetchedPage(url, url, html.getBytes(StandardCharsets.UTF_8), charset);
+  }
+
+  private static final class CountingParser implements Function<FetchedPage, PageContent> {
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public PageContent apply(FetchedPage page) {
+      calls.incrementAndGet();
+      return new PageContent.Builder().build();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class StreamingPageParserTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+  private static final String BASE_URI = "http://example.com/dir/page.html";
+
+  // Pieces of markup that random pages are made of, chosen for the ways they can trip up a parser
+  // that does not build a tree.
+  private static final String[] FRAGMENTS = {
+      "hello", " world ", "The Quick", "\n", "\t  ", "don't", "a-b", "x_y", "42", "&amp;",
+      "&lt;tag&gt;", "&nbsp;", "caf&eacute;", "&#65;&#x42;", "&amp", "&notit;", "&bogus;", "<",
+      "a < b", "<>", "</>", "</ x>", "<p>", "</p>", "<b>", "</b>", "<br/>", "<div class=\"c\">",
+      "</div>", "<span title='x > y'>", "</span>", "<a href=\"one.html\">",
+      "<a href='../two.html'>", "<a href=three.html?x=1&amp;y=2>",
+      "<a HREF=\"/four.html\" href=\"ignored.html\">", "<a href>", "<a href=\"\">",
+      "<a name=\"anchor\">", "<a href=\"#frag\">",
+      "<a href=\"https://other.example/?utm_source=x\">", "<a\nhref=\"five.html\"\n>",
+      "<base href=\"/base/\">", "<base href=\"\">", "<a href=\"six.html\"/>",
+      "<A Href = \"seven.html\">", "</a>", "<img src=\"x.png\" alt=y>",
+      "<!-- comment -->", "<!-- <a href=\"hidden.html\"> -->", "<!---->", "<!-->", "<!--->",
+      "<!doctype html>", "<!DOCTYPE html PUBLIC \"-//W3C//DTD\">", "<?xml version=\"1.0\"?>",
+      "<![CDATA[ raw & <text> ]]>", "<!bogus>", "<script>var a = '<a href=\"js.html\">';</script>",
+      "<script type=\"text/javascript\">if (a < b && c) {}</script>",
+      "<style>p { color: red }</style>", "<SCRIPT>x</SCRIPT >",
+      "<title>A &amp; B <b>not bold</b></title>",
+      "<textarea>typed <a href=\"no.html\">text</a></textarea>", "<xmp><a href=\"no.html\"></xmp>",
+      "<noscript>no script</noscript>", "<ul><li>one<li>two</ul>", "<h1>Heading</h1>",
+      "<meta charset=\"utf-8\">", "<title/>", "<script/>", "<a href=x<b>", "<a <b>",
+      "<a href=\"q\"<b>", "<a b <c href=z.html>", "<a =href=w.html>",
+      "<a href='u.html'href=v.html>", "</a href=x>", "<a/href=s.html>", "<textarea/>",
+      "<plaintext>", "&#x;", "&#0;", "&#128;", "&amp=", "<a href=\"&amp=&amp;x&lt\">",
+      "<a href=\"a&copy=b\">", "&copy", "&copyx", "<![CDATA[x", "<!--x", "<a href='", "<i>", "</i>",
+      "<p\n>", "<P>", "<div/ >", "<br></br>", "<noframes>a<b>c</noframes>",
+      "<iframe>x<a href=\"if.html\"></iframe>", "<SCRIPT>a</script>",
+      "<script>a</scripts>b</script>", "<style>a</style x=\"y\">", "<title>t</title foo>",
+      "<a href=",
+  };
+
+  @ParameterizedTest
+  @ValueSource(strings = {"test-page.html", "link-1.html", "infinite-loop.html",
+      "infinite-loop-2.html"})
+  public void parsesTheTestPagesLikeTheDomParser(String fileName) {
+    String url = Paths.get(DATA_DIR, fileName).toUri().toString();
+    PageFetcher fetcher = new PageFetcherImpl(Duration.ZERO);
+
+    assertSameResult(url, fetcher, IgnoredWordFilter.compile(List.of()));
+    assertSameResult(
+        url, fetcher, IgnoredWordFilter.compile(List.of(Pattern.compile("^.{1,3}$"))));
+  }
+
+  @Test
+  public void parsesRandomPagesLikeTheDomParser() {
+    Random random = new Random(0);
+    for (int i = 0; i < 2000; i++) {
+      StringBuilder html = new StringBuilder();
+      int fragments = random.nextInt(40);
+      for (int j = 0; j < fragments; j++) {
+        html.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+      }
+      assertSameResult(page(html.toString(), "UTF-8", "UTF-8"));
+    }
+  }
+
+  @Test
+  public void parsesPagesWithLongTextRunsLikeTheDomParser() {
+    Random random = new Random(1);
+    StringBuilder html = new StringBuilder("<p>");
+    for (int i = 0; i < 5 * HtmlScanner.MAX_TEXT_RUN; i++) {
+      html.append(FRAGMENTS[random.nextInt(10)]);
+    }
+    html.append("</p><title>");
+    for (int i = 0; i < 5 * HtmlScanner.MAX_TEXT_RUN; i++) {
+      html.append(FRAGMENTS[random.nextInt(10)]);
+    }
+    html.append("</title>");
+
+    assertSameResult(page(html.toString(), "UTF-8", "UTF-8"));
+  }
+
+  @Test
+  public void decodesPagesLikeTheDomParser() {
+    String html = "<p>hello <a href=\"one.html\">world</a> again</p>";
+    assertSameResult(page(html, "UTF-16LE", "UTF-16LE"));
+    // The byte order mark wins over the declared charset.
+    assertSameResult(page("\uFEFF" + html, "UTF-16BE", "ISO-8859-1"));
+
+    // A non-breaking space separates two words, but only if the page is decoded as windows-1252.
+    String declared = "<meta charset=\"windows-1252\"><p>hello\u00A0world</p>";
+    assertSameResult(page(declared, "windows-1252", null));
+    assertThat(parse(streaming(page(declared, "windows-1252", null))).getWordCounts())
+        .containsExactly("hello", 1, "world", 1);
+    String contentType =
+        "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\">"
+            + "<p>hello\u00A0world</p>";
+    assertThat(parse(streaming(page(contentType, "windows-1252", null))).getWordCounts())
+        .containsExactly("hello", 1, "world", 1);
+  }
+
+  @Test
+  public void resolvesLinksAgainstTheBaseElement() {
+    String html =
+        "<a href=\"before.html\">x</a><base href=\"/other/\"><a href=\"after.html\">y</a>";
+    PageParser.Result result = parse(streaming(page(html, "UTF-8", "UTF-8")));
+
+    assertThat(result.getLinks())
+        .containsExactly("http://example.com/other/before.html",
+            "http://example.com/other/after.html");
+  }
+
+  private static void assertSameResult(FetchedPage page) {
+    PageFetcher fetcher = url -> page;
+    IgnoredWordFilter ignoredWords = IgnoredWordFilter.compile(List.of());
+    PageParser.Result expected = parse(dom(fetcher, ignoredWords));
+    PageParser.Result result = parse(streaming(fetcher, ignoredWords));
+
+    String html = StandardCharsets.ISO_8859_1.decode(page.getBody()).toString();
+    assertWithMessage(html).that(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    assertWithMessage(html)
+        .that(result.getWordCounts())
+        .containsExactlyEntriesIn(expected.getWordCounts());
+  }
+
+  private static void assertSameResult(
+      String url, PageFetcher fetcher, IgnoredWordFilter ignoredWords) {
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of());
+    PageParser.Result expected =
+        new PageParserImpl(url, fetcher, ignoredWords, canonicalizer).parse();
+    PageParser.Result result =
+        new StreamingPageParser(url, fetcher, ignoredWords, canonicalizer).parse();
+
+    assertThat(result.getWordCounts()).isNotEmpty();
+    assertThat(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    assertThat(result.getWordCounts()).containsExactlyEntriesIn(expected.getWordCounts());
+  }
+
+  /**
+   * Returns the given page, encoded with {@code encoding}, as served with the {@code declared}
+   * charset, which may be null.
+   */
+  private static FetchedPage page(String html, String encoding, String declared) {
+    return new FetchedPage(BASE_URI, BASE_URI, html.getBytes(Charset.forName(encoding)), declared);
+  }
+
+  private static PageParser dom(PageFetcher fetcher, IgnoredWordFilter ignoredWords) {
+    return new PageParserImpl(BASE_URI, fetcher, ignoredWords, new UrlCanonicalizer(List.of()));
+  }
+
+  private static PageParser streaming(PageFetcher fetcher, IgnoredWordFilter ignoredWords) {
+    return new StreamingPageParser(
+        BASE_URI, fetcher, ignoredWords, new UrlCanonicalizer(List.of()));
+  }
+
+  private static PageParser streaming(FetchedPage page) {
+    return streaming(url -> page, IgnoredWordFilter.compile(List.of()));
+  }
+
+  private static PageParser.Result parse(PageParser parser) {
+    return parser.parse();
+  }
+}
@@ -0,0 +1,98 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class UrlCanonicalizerTest {
+
+  private final UrlCanonicalizer canonicalizer =
+      new UrlCanonicalizer(List.of("utm_*", "fbclid", "sessionid"));
+
+  @Test
+  public void collapsesSpellingsOfTheSamePage() {
+    assertCanonical("http://x/a", "http://x/a");
+    assertCanonical("HTTP://X/a#frag", "http://x/a");
+    assertCanonical("http://x/a?utm_source=news&utm_medium=email", "http://x/a");
+    assertCanonical("http://x:80/a", "http://x/a");
+    assertCanonical("http://x:/a", "http://x/a");
+    assertCanonical("https://x:443/a", "https://x/a");
+    assertCanonical("http://x", "http://x/");
+    assertCanonical("http://x?q=1", "http://x/?q=1");
+    assertCanonical("http://x#top", "http://x/");
+  }
+
+  @Test
+  public void keepsWhatCanChangeThePage() {
+    // Path case, trailing slashes, percent-encoding and non-default ports all matter to a server.
+    assertCanonical("http://x/A/", "http://x/A/");
+    assertCanonical("http://x/a%2Fb", "http://x/a%2Fb");
+    assertCanonical("http://x:8080/a", "http://x:8080/a");
+    assertCanonical("https://x:80/a", "https://x:80/a");
+    assertCanonical("http://User:Pw@X/a", "http://User:Pw@x/a");
+    assertCanonical("http://x/a?utm=1&Fbclid=2", "http://x/a?utm=1&Fbclid=2");
+  }
+
+  @Test
+  public void resolvesDotSegments() {
+    assertCanonical("http://x/a/./b", "http://x/a/b");
+    assertCanonical("http://x/a/../b", "http://x/b");
+    assertCanonical("http://x/a/b/..", "http://x/a/");
+    assertCanonical("http://x/a/b/.", "http://x/a/b/");
+    assertCanonical("http://x/../../a", "http://x/a");
+    assertCanonical("http://x/..", "http://x/");
+    assertCanonical("http://x/a/..?q=1", "http://x/?q=1");
+    assertCanonical("http://x/.hidden/..b/a.", "http://x/.hidden/..b/a.");
+  }
+
+  @Test
+  public void stripsOnlyConfiguredQueryParameters() {
+    assertCanonical("http://x/a?id=1&utm_source=s&fbclid=f", "http://x/a?id=1");
+    assertCanonical("http://x/a?fbclid&id=1&sessionid=2&page=3", "http://x/a?id=1&page=3");
+    assertCanonical("http://x/a?fbclidx=1", "http://x/a?fbclidx=1");
+    assertCanonical("http://x/a?", "http://x/a");
+    assertCanonical("http://x/a?&id=1&&page=2&", "http://x/a?id=1&page=2");
+    assertCanonical("http://x/a?&", "http://x/a");
+  }
+
+  @Test
+  public void handlesIpv6Hosts() {
+    assertCanonical("http://[::1]:80/a", "http://[::1]/a");
+    assertCanonical("http://[FE80::1]:8080/a", "http://[fe80::1]:8080/a");
+  }
+
+  @Test
+  public void leavesOtherSchemesAlone() {
+    assertCanonical("file:///tmp/A/../b#c", "file:///tmp/A/../b#c");
+    assertCanonical("mailto:Someone@Example.com", "mailto:Someone@Example.com");
+    assertCanonical("", "");
+  }
+
+  @Test
+  public void returnsCanonicalUrlsWithoutCopying() {
+    String url = "https://example.com/a/b.html?id=1&page=2";
+    assertThat(canonicalizer.canonicalize(url)).isSameInstanceAs(url);
+  }
+
+  @Test
+  public void isIdempotent() {
+    List<String> urls = List.of(
+        "HTTP://X:80/a/./b/../c?utm_x=1&id=2#f",
+        "https://[::1]:443/..",
+        "http://a@B:81/x/..//y?&",
+        "http://x/a?fbclid");
+    for (String url : urls) {
+      String canonical = canonicalizer.canonicalize(url);
+      assertWithMessage(url)
+          .that(canonicalizer.canonicalize(canonical))
+          .isSameInstanceAs(canonical);
+    }
+  }
+
+  private void assertCanonical(String url, String expected) {
+    assertWithMessage(url).that(canonicalizer.canonicalize(url)).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,47 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class WordCounterTest {
+  @Test
+  public void countsLikeHashMap() {
+    WordCounter counter = new WordCounter();
+    Map<String, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      String word = "word" + (i % 997);
+      counter.increment(word);
+      expected.merge(word, 1, Integer::sum);
+    }
+
+    assertThat(counter.size()).isEqualTo(expected.size());
+    assertThat(counter.get("word13")).isEqualTo(expected.get("word13"));
+    assertThat(counter.get("missing")).isEqualTo(0);
+    assertThat(counter.asMap()).isEqualTo(expected);
+
+    Map<String, Integer> visited = new HashMap<>();
+    counter.forEach(visited::put);
+    assertThat(visited).isEqualTo(expected);
+  }
+
+  @Test
+  public void mapViewIsReadOnly() {
+    WordCounter counter = new WordCounter();
+    counter.add("fox", 3);
+
+    Map<String, Integer> view = counter.asMap();
+    assertThat(view).containsExactly("fox", 3);
+    assertThat(view.get("dog")).isNull();
+    assertThrows(UnsupportedOperationException.class, () -> view.put("dog", 1));
+    assertThrows(
+        UnsupportedOperationException.class, () -> view.entrySet().iterator().next().setValue(1));
+
+    counter.increment("dog");
+    assertThat(view).containsExactly("fox", 3, "dog", 1);
+  }
+}
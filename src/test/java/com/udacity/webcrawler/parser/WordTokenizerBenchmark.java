@@ -0,0 +1,67 @@
+package com.udacity.webcrawler.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link WordTokenizer} against the regular expression pipeline it replaced, on the text
+ * of the pages under {@code src/test/data}.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WordTokenizerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordTokenizerBenchmark {
+
+  /**
+   * The ignored words of the sample crawler configuration, or none at all.
+   */
+  @Param({"", "^.{1,3}$"})
+  public String ignoredWord;
+
+  private List<String> texts;
+  private List<Pattern> ignoredWords;
+  private IgnoredWordFilter filter;
+
+  @Setup
+  public void loadPages() throws IOException {
+    texts = WordTokenizerTest.testPageTexts();
+    ignoredWords = ignoredWord.isEmpty() ? List.of() : List.of(Pattern.compile(ignoredWord));
+    filter = IgnoredWordFilter.compile(ignoredWords);
+  }
+
+  @Benchmark
+  public void regexPipeline(Blackhole blackhole) {
+    for (String text : texts) {
+      WordTokenizerTest.regexPipeline(text, ignoredWords).forEach(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void wordTokenizer(Blackhole blackhole) {
+    // PageParserImpl creates one tokenizer per page.
+    WordTokenizer tokenizer = new WordTokenizer(filter);
+    for (String text : texts) {
+      tokenizer.tokenize(text, blackhole::consume);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordTokenizerTest {
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
+
+  private static final List<String> TEXTS = List.of(
+      "",
+      "   ",
+      "The quick brown fox",
+      "  leading and trailing\t\n",
+      "Hello, World! It's 9:30 -- snake_case & CamelCase.",
+      " em space  no-break space \u000Bvertical\u001Ctab",
+      "  　 lonely  ",
+      "... --- !!! ?",
+      "naïve café Ünïcödé",
+      "emoji 😀grin😀 face",
+      "MIXED case WORDS With Digits123 And_Underscores");
+
+  private static final List<List<Pattern>> IGNORED_WORDS = List.of(
+      List.of(),
+      List.of(Pattern.compile("^...$")),
+      List.of(Pattern.compile("^.{1,3}$"), Pattern.compile("(?i)the"), Pattern.compile("\\W+")),
+      List.of(Pattern.compile("\\s*\\S+")));
+
+  @Test
+  public void matchesRegexPipeline() throws IOException {
+    List<String> texts = new ArrayList<>(TEXTS);
+    texts.addAll(testPageTexts());
+    for (List<Pattern> ignoredWords : IGNORED_WORDS) {
+      WordTokenizer tokenizer = new WordTokenizer(IgnoredWordFilter.compile(ignoredWords));
+      for (String text : texts) {
+        List<String> words = new ArrayList<>();
+        tokenizer.tokenize(text, words::add);
+        assertThat(words).containsExactlyElementsIn(regexPipeline(text, ignoredWords)).inOrder();
+      }
+    }
+  }
+
+  @Test
+  public void matchesRegexPipelineInTurkishLocale() {
+    Locale defaultLocale = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+      WordTokenizer tokenizer = new WordTokenizer(IgnoredWordFilter.compile(List.of()));
+      List<String> words = new ArrayList<>();
+      tokenizer.tokenize("ISTANBUL Izmir", words::add);
+      assertThat(words).containsExactlyElementsIn(regexPipeline("ISTANBUL Izmir", List.of()));
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  /**
+   * The tokenization {@link PageParserImpl} did before {@link WordTokenizer} existed.
+   */
+  static List<String> regexPipeline(String text, List<Pattern> ignoredWords) {
+    return Arrays.stream(WHITESPACE.split(text.strip()))
+        .filter(s -> !s.isBlank())
+        .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+        .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
+        .map(String::toLowerCase)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the text of every text node in the pages under {@code src/test/data}.
+   */
+  static List<String> testPageTexts() throws IOException {
+    try (Stream<Path> pages = Files.list(Path.of(DATA_DIR))) {
+      List<String> texts = new ArrayList<>();
+      for (Path page : pages.sorted().collect(Collectors.toList())) {
+        String html = Files.readString(page, StandardCharsets.UTF_8);
+        for (Element element : Jsoup.parse(html).getAllElements()) {
+          element.textNodes().stream().map(TextNode::text).forEach(texts::add);
+        }
+      }
+      return texts;
+    }
+  }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
@@ -136,6 +137,20 @@ public final class ProfilerImplTest {
     assertThat(written).contains("0m 1s 0ms");
   }
 
+  @Test
+  public void writesStatisticsWhenDataIsWritten() throws Exception {
+    AtomicInteger hits = new AtomicInteger();
+    profiler.recordStatistic("cache.hits", () -> String.valueOf(hits.get()));
+    profiler.recordStatistic("cache.misses", () -> "7");
+    hits.set(42);
+
+    CloseableStringWriter writer = new CloseableStringWriter();
+    profiler.writeData(writer);
+    String written = writer.toString();
+    assertThat(written).contains("cache.hits: 42" + System.lineSeparator());
+    assertThat(written.indexOf("cache.hits")).isLessThan(written.indexOf("cache.misses: 7"));
+  }
+
   /**
    * A test interface that does not have any {@link Profiled} methods.
    */
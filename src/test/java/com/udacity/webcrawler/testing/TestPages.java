@@ -0,0 +1,34 @@
+package com.udacity.webcrawler.testing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes small, linked HTML pages for crawler tests.
+ */
+public final class TestPages {
+
+  private TestPages() {
+    // This class cannot be instantiated
+  }
+
+  /**
+   * Writes a page called {@code name} to the given directory. The page's text is its name, with
+   * dashes turned into spaces, and it links to the pages with the given names.
+   */
+  public static void writePage(Path dir, String name, String... links) throws IOException {
+    StringBuilder html = new StringBuilder("<p>").append(name.replace('-', ' ')).append("</p>");
+    for (String link : links) {
+      html.append("<a href=\"").append(link).append(".html\">link</a>");
+    }
+    Files.writeString(dir.resolve(name + ".html"), html);
+  }
+
+  /**
+   * Returns the URL of the page called {@code name} in the given directory.
+   */
+  public static String url(Path dir, String name) {
+    return dir.resolve(name + ".html").toUri().toString();
+  }
+}
@@ -0,0 +1,132 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class VirtualThreadWebCrawlerTest {
+
+  @Inject
+  private WebCrawler crawler;
+
+  @Inject
+  private PageParserFactory parserFactory;
+
+  @Test
+  public void isSelectedForParallelismAboveTheCoreCount() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setParallelism(Runtime.getRuntime().availableProcessors() + 1)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(VirtualThreadWebCrawler.class);
+  }
+
+  @Test
+  public void keepsMoreFetchesInFlightThanThereAreCores(@TempDir Path dir) throws IOException {
+    injectParserFactory();
+    int fetches = Runtime.getRuntime().availableProcessors() * 16;
+    List<String> startPages = writePages(dir, fetches);
+
+    // No download completes until every page is being downloaded at the same time.
+    CountDownLatch allFetchesInFlight = new CountDownLatch(fetches);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger peakInFlight = new AtomicInteger();
+    VirtualThreadWebCrawler crawler = newCrawler(Clock.systemUTC(), fetches);
+    crawler.pageParserFactory = url -> () -> {
+      peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        allFetchesInFlight.countDown();
+        allFetchesInFlight.await(5, TimeUnit.SECONDS);
+        return parserFactory.get(url).parse();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    };
+
+    CrawlResult result = crawler.crawl(startPages);
+
+    assertThat(peakInFlight.get()).isEqualTo(fetches);
+    assertThat(result.getUrlsVisited()).isEqualTo(fetches);
+    assertThat(result.getWordCounts()).containsEntry("hello", fetches);
+  }
+
+  @Test
+  public void limitsFetchesInFlightToTheParallelism(@TempDir Path dir) throws IOException {
+    injectParserFactory();
+    List<String> startPages = writePages(dir, 40);
+
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger peakInFlight = new AtomicInteger();
+    VirtualThreadWebCrawler crawler = newCrawler(Clock.systemUTC(), 3);
+    crawler.pageParserFactory = url -> () -> {
+      peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+        return parserFactory.get(url).parse();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    };
+
+    CrawlResult result = crawler.crawl(startPages);
+
+    assertWithMessage("More fetches were in flight than the parallelism allows")
+        .that(peakInFlight.get())
+        .isAtMost(3);
+    assertThat(result.getUrlsVisited()).isEqualTo(40);
+  }
+
+  private void injectParserFactory() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+  }
+
+  private VirtualThreadWebCrawler newCrawler(Clock clock, int parallelism) {
+    VirtualThreadWebCrawler crawler =
+        new VirtualThreadWebCrawler(
+            clock,
+            Duration.ofSeconds(30),
+            3,
+            10,
+            parallelism,
+            UrlFilter.compile(List.of()),
+            ConcurrentVisitedUrlSet::new);
+    crawler.pageParserFactory = parserFactory;
+    return crawler;
+  }
+
+  private static List<String> writePages(Path dir, int count) throws IOException {
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Path page = dir.resolve("page-" + i + ".html");
+      Files.writeString(page, "<p>hello " + i + "</p>");
+      urls.add(page.toUri().toString());
+    }
+    return urls;
+  }
+}